@@ -197,4 +197,13 @@ public class StackTools_v1_18_R1 implements IStackTools {
     public Object asNMSCopy(ItemStack itemStack) {
         return CraftItemStack.asNMSCopy(itemStack);
     }
+
+    @Override
+    public Object getHandle(ItemStack itemStack) {
+        try {
+            return NBTTagTools_v1_18_R1.getItem(itemStack).orElse(null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            return null;
+        }
+    }
 }
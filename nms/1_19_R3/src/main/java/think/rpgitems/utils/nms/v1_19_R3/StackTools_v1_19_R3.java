@@ -197,4 +197,13 @@ public class StackTools_v1_19_R3 implements IStackTools {
     public Object asNMSCopy(ItemStack itemStack) {
         return CraftItemStack.asNMSCopy(itemStack);
     }
+
+    @Override
+    public Object getHandle(ItemStack itemStack) {
+        try {
+            return NBTTagTools_v1_19_R3.getItem(itemStack).orElse(null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            return null;
+        }
+    }
 }
@@ -4,6 +4,7 @@ import net.minecraft.nbt.NBTTagCompound;
 import org.bukkit.craftbukkit.v1_20_R1.inventory.CraftItemStack;
 import org.bukkit.inventory.ItemStack;
 import think.rpgitems.utils.nms.INBTTagTools;
+import think.rpgitems.utils.nms.ItemIdentity;
 
 import java.lang.reflect.Field;
 import java.util.Optional;
@@ -319,8 +320,26 @@ public class NBTTagTools_v1_20_R1 implements INBTTagTools {
         itemStack.c(tag);
     }
 
+    @Override
+    public long getIdentity(ItemStack item, String uidKey, String itemUuidKey, String modelKey) {
+        Optional<net.minecraft.world.item.ItemStack> item1;
+        try {
+            item1 = getItem(item);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            return ItemIdentity.NONE;
+        }
+        if (item1.isEmpty()) return ItemIdentity.NONE;
+        NBTTagCompound tag = item1.get().v();
+        if (tag == null) return ItemIdentity.NONE;
+        long cached = ItemIdentity.getCached(tag);
+        if (cached != ItemIdentity.MISS) return cached;
+        long identity = ItemIdentity.pack(tag.e(uidKey), tag.h(uidKey), tag.e(itemUuidKey), tag.q(modelKey));
+        ItemIdentity.putCached(tag, identity);
+        return identity;
+    }
+
     static Field handle;
-    private static Optional<net.minecraft.world.item.ItemStack> getItem(ItemStack itemStack) throws NoSuchFieldException, IllegalAccessException {
+    static Optional<net.minecraft.world.item.ItemStack> getItem(ItemStack itemStack) throws NoSuchFieldException, IllegalAccessException {
         if (!(itemStack instanceof CraftItemStack)) {
             return Optional.empty();
         }
@@ -28,4 +28,14 @@ public interface INBTTagTools {
     Optional<Float> getFloat(ItemStack item, String key);
     Optional<Float> setFloat(ItemStack item, String key, float value) throws NoSuchFieldException, IllegalAccessException;
     void remove(ItemStack item, String key) throws NoSuchFieldException, IllegalAccessException;
+
+    /**
+     * Read the identity tags of an item in one pass, cached until {@link ItemIdentity#invalidate()}.
+     *
+     * @param uidKey      Key of the int uid tag
+     * @param itemUuidKey Key of the string item uuid tag, only checked for presence
+     * @param modelKey    Key of the boolean model tag
+     * @return Identity packed by {@link ItemIdentity#pack}
+     */
+    long getIdentity(ItemStack item, String uidKey, String itemUuidKey, String modelKey);
 }
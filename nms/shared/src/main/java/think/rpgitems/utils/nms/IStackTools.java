@@ -30,4 +30,9 @@ public interface IStackTools {
      */
     @Deprecated
     Object asNMSCopy(ItemStack itemStack);
+
+    /**
+     * @return The NMS stack backing a CraftItemStack mirror, only meant to be compared by identity. Null if there is none.
+     */
+    Object getHandle(ItemStack itemStack);
 }
@@ -0,0 +1,85 @@
+package think.rpgitems.utils.nms;
+
+/**
+ * Primitive-packed identity tags of an item, as returned by {@link INBTTagTools#getIdentity}.
+ * <p>
+ * Also holds a small direct-mapped cache keyed by the identity of the NMS tag holder,
+ * so unchanged stacks are not read again. {@link #invalidate()} must be called whenever a tag is written.
+ */
+public final class ItemIdentity {
+    public static final long NONE = 0L;
+    /**
+     * Never returned by {@link #pack}, marks a cache miss
+     */
+    public static final long MISS = -1L;
+    private static final long HAS_UID = 1L << 32;
+    private static final long HAS_ITEM_UUID = 1L << 33;
+    private static final long IS_MODEL = 1L << 34;
+    private static final int SIZE = 1024;
+    private static final Entry[] cache = new Entry[SIZE];
+    private static volatile int generation = 0;
+
+    private ItemIdentity() {
+    }
+
+    public static long pack(boolean hasUid, int uid, boolean hasItemUuid, boolean isModel) {
+        long identity = hasUid ? HAS_UID | (uid & 0xFFFFFFFFL) : NONE;
+        if (hasItemUuid) identity |= HAS_ITEM_UUID;
+        if (isModel) identity |= IS_MODEL;
+        return identity;
+    }
+
+    public static boolean hasUid(long identity) {
+        return (identity & HAS_UID) != 0;
+    }
+
+    public static int getUid(long identity) {
+        return (int) identity;
+    }
+
+    public static boolean hasItemUuid(long identity) {
+        return (identity & HAS_ITEM_UUID) != 0;
+    }
+
+    public static boolean isModel(long identity) {
+        return (identity & IS_MODEL) != 0;
+    }
+
+    /**
+     * @param holder The NMS object holding the tags, compared by identity
+     * @return Cached identity, or {@link #MISS}
+     */
+    public static long getCached(Object holder) {
+        Entry entry = cache[slot(holder)];
+        if (entry == null || entry.holder != holder || entry.generation != generation) return MISS;
+        return entry.identity;
+    }
+
+    public static void putCached(Object holder, long identity) {
+        cache[slot(holder)] = new Entry(holder, identity, generation);
+    }
+
+    /**
+     * Drop all cached identities
+     */
+    public static void invalidate() {
+        generation++;
+    }
+
+    private static int slot(Object holder) {
+        int h = System.identityHashCode(holder);
+        return (h ^ (h >>> 16)) & (SIZE - 1);
+    }
+
+    private static final class Entry {
+        final Object holder;
+        final long identity;
+        final int generation;
+
+        Entry(Object holder, long identity, int generation) {
+            this.holder = holder;
+            this.identity = identity;
+            this.generation = generation;
+        }
+    }
+}
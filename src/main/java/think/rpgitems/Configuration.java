@@ -97,9 +97,41 @@ public class Configuration extends PluginConfigure {
     @Serializable(name = "item.defaults.author")
     public String defaultAuthor;
 
+    // spread players over this many ticks, each player is ticked once every shards ticks
+    @Serializable(name = "general.ticker.shards")
+    public int tickerShards = 1;
+
+    // milliseconds per tick spent stepping beams before the rest wait for the next tick, 0 for no limit
+    @Serializable(name = "general.beam.tick_budget")
+    public int beamTickBudget = 10;
+
+    // ticks a projectile launched by an item stays tracked without hitting anything, 0 for no limit
+    @Serializable(name = "general.projectile.max_age")
+    public int projectileMaxAge = 1200;
+
+    // most particle spawns sent to a player per tick, the rest are thinned out evenly, 0 for no limit
+    @Serializable(name = "general.particle.budget")
+    public int particleBudget = 400;
+
+    // particles farther than this from a player are not sent to them, forced particles use 512
+    @Serializable(name = "general.particle.view_distance")
+    public double particleViewDistance = 32;
+
+    // below this TPS, the particle budget and counts shrink with the TPS, 0 to disable
+    @Serializable(name = "general.particle.reduce_below_tps")
+    public double particleReduceBelowTps = 18;
+
     @Serializable(name = "general.item.fs_lock")
     public boolean itemFsLock = true;
 
+    // restore unchanged item files from a binary snapshot instead of parsing them
+    @Serializable(name = "general.item.snapshot_cache")
+    public boolean itemSnapshotCache = true;
+
+    // reload single item files when they are changed, added or removed on disk
+    @Serializable(name = "general.item.hot_reload")
+    public boolean itemHotReload = false;
+
     @Serializable(name = "general.item.show_loaded")
     public boolean itemShowLoaded = false;
 
@@ -123,6 +155,10 @@ public class Configuration extends PluginConfigure {
         qualityPrefixes.put("legendary", "&e");
     }
 
+    // ticks the factor of an entity is cached, if every definer consulted for it allows, 0 to disable
+    @Serializable(name = "general.factor.cache_ttl")
+    public int factorCacheTtl = 20;
+
     @Serializable(name = "factor_config")
     public FactorConfig factorConfig = new FactorConfig();
     {
@@ -0,0 +1,100 @@
+package think.rpgitems;
+
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import think.rpgitems.data.Factor;
+import think.rpgitems.data.FactorConfig;
+import think.rpgitems.item.EquipmentIndex;
+import think.rpgitems.item.RPGItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Equipment and factors of both sides of a damage event, resolved once and shared by every phase of
+ * {@link Events#onDamage}.
+ * <p>
+ * Contexts are pooled, one per nesting level, since powers fired by the handler may deal damage themselves.
+ */
+final class DamageContext {
+    private static final List<DamageContext> pool = new ArrayList<>();
+    private static int depth = 0;
+
+    EntityDamageByEntityEvent event;
+    /**
+     * Damager, if it is a living entity
+     */
+    LivingEntity attacker;
+    /**
+     * Damaged entity, if it is a living entity
+     */
+    LivingEntity victim;
+    /**
+     * Equipment of the attacker, or null
+     */
+    EquipmentIndex.Snapshot attackerEquipment;
+    /**
+     * Equipment of the victim, or null
+     */
+    EquipmentIndex.Snapshot victimEquipment;
+    private boolean factorsResolved;
+    private Factor attackerFactor;
+    private Factor victimFactor;
+
+    private DamageContext() {
+    }
+
+    static DamageContext acquire(EntityDamageByEntityEvent event) {
+        if (depth == pool.size()) {
+            pool.add(new DamageContext());
+        }
+        DamageContext context = pool.get(depth++);
+        context.event = event;
+        context.attacker = event.getDamager() instanceof LivingEntity living ? living : null;
+        context.victim = event.getEntity() instanceof LivingEntity living ? living : null;
+        context.attackerEquipment = context.attacker == null ? null : EquipmentIndex.of(context.attacker);
+        context.victimEquipment = context.victim == null ? null : EquipmentIndex.of(context.victim);
+        return context;
+    }
+
+    void release() {
+        event = null;
+        attacker = null;
+        victim = null;
+        attackerEquipment = null;
+        victimEquipment = null;
+        factorsResolved = false;
+        attackerFactor = null;
+        victimFactor = null;
+        depth--;
+    }
+
+    /**
+     * @return Whether the victim has any RPG item equipped
+     */
+    boolean isVictimEquipped() {
+        return victimEquipment != null && !victimEquipment.isEmpty();
+    }
+
+    RPGItem getAttackerItem(EquipmentSlot slot) {
+        return attackerEquipment == null ? null : attackerEquipment.get(slot);
+    }
+
+    ItemStack getAttackerStack(EquipmentSlot slot) {
+        return attackerEquipment == null ? null : attackerEquipment.getStack(slot);
+    }
+
+    /**
+     * Applies the factor damage of the attacker against the victim, both of which must be living
+     */
+    double applyFactors(FactorConfig config, double damage) {
+        if (!factorsResolved) {
+            attackerFactor = config.getFactor(attacker);
+            victimFactor = config.getFactor(victim);
+            factorsResolved = true;
+        }
+        return config.getDamage(attackerFactor, victimFactor, attackerEquipment, victimEquipment, damage);
+    }
+}
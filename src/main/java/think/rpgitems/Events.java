@@ -3,6 +3,9 @@ package think.rpgitems;
 import com.destroystokyo.paper.event.player.PlayerArmorChangeEvent;
 import org.bukkit.block.BlockFace;
 import org.bukkit.event.block.*;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import think.rpgitems.event.LoreUpdateEvent;
 import think.rpgitems.support.PlaceholderSupport;
 import think.rpgitems.utils.nyaacore.Pair;
@@ -10,7 +13,6 @@ import think.rpgitems.utils.nyaacore.utils.RayTraceUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.block.Block;
 import org.bukkit.entity.*;
 import org.bukkit.event.*;
@@ -29,11 +31,15 @@ import think.rpgitems.data.Context;
 import think.rpgitems.event.BeamEndEvent;
 import think.rpgitems.event.BeamHitBlockEvent;
 import think.rpgitems.event.BeamHitEntityEvent;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.ItemManager;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.Pimpl;
 import think.rpgitems.power.PowerSneak;
 import think.rpgitems.power.PowerSprint;
+import think.rpgitems.power.EntityGrid;
+import think.rpgitems.power.ProjectileRegistry;
+import think.rpgitems.power.TempBlocks;
 import think.rpgitems.power.Utils;
 import think.rpgitems.power.marker.Ranged;
 import think.rpgitems.power.trigger.BaseTriggers;
@@ -61,54 +67,78 @@ public class Events implements Listener {
     public static final String SUPPRESS_PROJECTILE = "SuppressProjectile";
     public static final String DAMAGE_SOURCE_ITEM = "DamageSourceItem";
 
-    private static final Set<Integer> removeProjectiles = new HashSet<>();
-    private static final Map<Integer, Integer> rpgProjectiles = new HashMap<>();
-    private static final Map<UUID, ItemStack> localItemStacks = new HashMap<>();
     private static final Map<String, Long> lastSneak = new HashMap<>();
+    private static final EquipmentSlot[] ARMOR_SLOTS = {EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET};
+    // slots checked for dodge and anti critical, in order
+    private static final EquipmentSlot[] DEFENCE_SLOTS = {EquipmentSlot.HAND, EquipmentSlot.OFF_HAND, EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET};
 
-    private static RPGItem projectileRpgItem;
-    private static ItemStack projectileItemStack;
-    private static Player projectilePlayer;
+    public static void registerRPGProjectile(RPGItem rpgItem, ItemStack itemStack, Player player, LivingEntity source) {
+        ProjectileRegistry.expectLaunch(rpgItem, itemStack, player, source);
+    }
 
-    public static void registerLocalItemStack(UUID entityId, ItemStack item) {
-        localItemStacks.put(entityId, item);
+    public static void registerRPGProjectile(RPGItem rpgItem, ItemStack itemStack, Player player) {
+        registerRPGProjectile(rpgItem, itemStack, player, player);
     }
 
-    public static boolean hasLocalItemStack(UUID entityId) {
-        return localItemStacks.containsKey(entityId);
+    public static void registerRPGProjectile(Projectile projectile, int uid) {
+        ProjectileRegistry.track(projectile, uid);
     }
 
-    public static ItemStack removeLocalItemStack(UUID entityId) {
-        return localItemStacks.remove(entityId);
+    public static void autoRemoveProjectile(Projectile projectile) {
+        ProjectileRegistry.autoRemove(projectile);
     }
 
-    public static ItemStack getLocalItemStack(UUID entityId) {
-        return localItemStacks.get(entityId);
+    /**
+     * @deprecated use {@link #registerRPGProjectile(Projectile, int)}
+     */
+    @Deprecated
+    public static void registerRPGProjectile(int entityId, int uid) {
+        ProjectileRegistry.track(entityId, uid);
     }
 
-    private static final Map<UUID, UUID> projectileRegisterMap = new WeakHashMap<>();
+    /**
+     * @deprecated use {@link #autoRemoveProjectile(Projectile)}
+     */
+    @Deprecated
+    public static void autoRemoveProjectile(int entityId) {
+        ProjectileRegistry.autoRemove(entityId);
+    }
 
-    public static void registerRPGProjectile(RPGItem rpgItem, ItemStack itemStack, Player player, LivingEntity source) {
-        if (projectilePlayer != null) {
-            projectilePlayer = null;
-            throw new IllegalStateException();
+    /**
+     * @deprecated use {@link ProjectileRegistry#setLocalItemStack}, only works once the entity is in its world
+     */
+    @Deprecated
+    public static void registerLocalItemStack(UUID entityId, ItemStack item) {
+        Entity entity = Bukkit.getEntity(entityId);
+        if (entity != null) {
+            ProjectileRegistry.setLocalItemStack(entity, item);
         }
-        Events.projectileRpgItem = rpgItem;
-        Events.projectileItemStack = itemStack;
-        Events.projectilePlayer = player;
-        projectileRegisterMap.put(source.getUniqueId(), player.getUniqueId());
     }
 
-    public static void registerRPGProjectile(RPGItem rpgItem, ItemStack itemStack, Player player) {
-        registerRPGProjectile(rpgItem, itemStack, player, player);
+    /**
+     * @deprecated use {@link ProjectileRegistry#getLocalItemStack}
+     */
+    @Deprecated
+    public static boolean hasLocalItemStack(UUID entityId) {
+        return getLocalItemStack(entityId) != null;
     }
 
-    public static void registerRPGProjectile(int entityId, int uid) {
-        rpgProjectiles.put(entityId, uid);
+    /**
+     * @deprecated use {@link ProjectileRegistry#removeLocalItemStack}
+     */
+    @Deprecated
+    public static ItemStack removeLocalItemStack(UUID entityId) {
+        Entity entity = Bukkit.getEntity(entityId);
+        return entity == null ? null : ProjectileRegistry.removeLocalItemStack(entity);
     }
 
-    public static void autoRemoveProjectile(int entityId) {
-        removeProjectiles.add(entityId);
+    /**
+     * @deprecated use {@link ProjectileRegistry#getLocalItemStack}
+     */
+    @Deprecated
+    public static ItemStack getLocalItemStack(UUID entityId) {
+        Entity entity = Bukkit.getEntity(entityId);
+        return entity == null ? null : ProjectileRegistry.getLocalItemStack(entity);
     }
 
     @EventHandler
@@ -133,18 +163,32 @@ public class Events implements Listener {
     @EventHandler
     public void onBreak(BlockPhysicsEvent e) { // Is not triggered when the block a torch is attached to is removed
         if (e.getChangedType().equals(Material.TORCH))
-            if (e.getBlock().hasMetadata("RPGItems.Torch")) {
+            if (TempBlocks.isTemp(e.getBlock())) {
                 e.setCancelled(true); // Cancelling this does not work
-                e.getBlock().removeMetadata("RPGItems.Torch", plugin);
-                e.getBlock().setType(Material.AIR);
+                TempBlocks.revert(e.getBlock());
             }
     }
 
+    @EventHandler
+    public void onChunkUnload(ChunkUnloadEvent e) {
+        TempBlocks.revert(e.getChunk());
+    }
+
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent e) {
+        TempBlocks.recover(e.getWorld());
+    }
+
+    @EventHandler
+    public void onWorldUnload(WorldUnloadEvent e) {
+        TempBlocks.revert(e.getWorld());
+    }
+
     @EventHandler(ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent e) {
         Block block = e.getBlock();
         if (block.getType().equals(Material.TORCH))
-            if (block.hasMetadata("RPGItems.Torch"))
+            if (TempBlocks.isTemp(block))
                 e.setCancelled(true);
 
         Player player = e.getPlayer();
@@ -163,26 +207,19 @@ public class Events implements Listener {
         } else {
             player.getInventory().setItemInMainHand(item);
         }
+        EquipmentIndex.markDirty(player);
     }
 
     @EventHandler
     public void onProjectileHit(ProjectileHitEvent e) {
         final Projectile entity = e.getEntity();
-        if (removeProjectiles.contains(entity.getEntityId())) {
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                if (e.getHitEntity() != null && e.getEntity() instanceof AbstractArrow && ((AbstractArrow) e.getEntity()).getPierceLevel() > 0 ) {
-                    return;
-                }
-                removeProjectiles.remove(entity.getEntityId());
-                entity.remove();
-            });
-        }
-        if (rpgProjectiles.containsKey(entity.getEntityId())) {
+        boolean pierced = e.getHitEntity() != null && entity instanceof AbstractArrow && ((AbstractArrow) entity).getPierceLevel() > 0;
+        if (ProjectileRegistry.isTracked(entity)) {
             try {
                 if (entity instanceof Trident && entity.getScoreboardTags().contains("rgi_projectile")){
                     ((Trident) entity).setPickupStatus(AbstractArrow.PickupStatus.DISALLOWED);
                 }
-                RPGItem rItem = ItemManager.getItem(rpgProjectiles.get(entity.getEntityId())).orElse(null);
+                RPGItem rItem = ProjectileRegistry.getItem(entity).orElse(null);
 
                 if (rItem == null || !(entity.getShooter() instanceof Player player))
                     return;
@@ -190,15 +227,9 @@ public class Events implements Listener {
                     ItemStack item = player.getInventory().getItemInMainHand();
                     RPGItem hItem = ItemManager.toRPGItem(item).orElse(null);
 
-                    final UUID projectileUuid = entity.getUniqueId();
-                    if (hasLocalItemStack(projectileUuid)) {
-                        item = getLocalItemStack(projectileUuid);
-                        new BukkitRunnable(){
-                            @Override
-                            public void run() {
-                                removeLocalItemStack(projectileUuid);
-                            }
-                        }.runTaskLater(plugin, 1);
+                    ItemStack localItem = ProjectileRegistry.getLocalItemStack(entity);
+                    if (localItem != null) {
+                        item = localItem;
                         rItem = ItemManager.toRPGItem(item).orElse(null);
                         if (rItem == null) throw new IllegalStateException();
                     } else {
@@ -227,13 +258,10 @@ public class Events implements Listener {
                     rItem.power(player, item, e, BaseTriggers.PROJECTILE_HIT);
                 }
             } finally {
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    if (e.getHitEntity() != null && e.getEntity() instanceof AbstractArrow && ((AbstractArrow) e.getEntity()).getPierceLevel() > 0 ) {
-                        return;
-                    }
-                    rpgProjectiles.remove(entity.getEntityId());
-                });
+                ProjectileRegistry.hit(entity, pierced);
             }
+        } else {
+            ProjectileRegistry.hit(entity, pierced);
         }
     }
 
@@ -245,11 +273,15 @@ public class Events implements Listener {
             ItemStack bow = e.getBow();
             Optional<RPGItem> rpgItem = ItemManager.toRPGItem(bow);
             force = rpgItem.flatMap(rpgItem1 -> {
-                registerRPGProjectile(e.getProjectile().getEntityId(), rpgItem1.getUid());
+                if (e.getProjectile() instanceof Projectile projectile) {
+                    registerRPGProjectile(projectile, rpgItem1.getUid());
+                }
                 return rpgItem1.power(((Player) entity), bow, e, BaseTriggers.BOW_SHOOT);
             }).orElse(force);
             if (e.isCancelled()) {
-                autoRemoveProjectile(entity.getEntityId());
+                if (e.getProjectile() instanceof Projectile projectile) {
+                    autoRemoveProjectile(projectile);
+                }
                 return;
             }
         }
@@ -267,34 +299,17 @@ public class Events implements Listener {
     public void onProjectileFire(ProjectileLaunchEvent e) {
         Projectile entity = e.getEntity();
         ProjectileSource shooter = entity.getShooter();
-        if (!(shooter instanceof Player) &&
-                !((shooter instanceof Entity) && projectileRegisterMap.containsKey(((Entity) shooter).getUniqueId()))
-        ) return;
-        OfflinePlayer ofp = (shooter instanceof Player) ? (Player) shooter : Bukkit.getOfflinePlayer(projectileRegisterMap.get(((LivingEntity) shooter).getUniqueId()));
-        if (!ofp.isOnline()){
-            projectileRpgItem = null;
-            projectilePlayer = null;
-            projectileItemStack = null;
-            projectileRegisterMap.remove(((LivingEntity) shooter).getUniqueId());
+        ProjectileRegistry.Launch launch = shooter instanceof Entity ? ProjectileRegistry.takeLaunch((Entity) shooter) : null;
+        if (!(shooter instanceof Player) && launch == null) return;
+        Player player = launch != null ? launch.player() : (Player) shooter;
+        if (!player.isOnline()) {
             e.setCancelled(true);
             return;
         }
-        Player player = ofp.getPlayer();
-        if (projectilePlayer != null) {
-            if (projectilePlayer != player) {
-                projectileRpgItem = null;
-                projectilePlayer = null;
-                projectileItemStack = null;
-                projectileRegisterMap.remove(((LivingEntity) shooter).getUniqueId());
-                throw new IllegalStateException();
-            }
-            registerLocalItemStack(e.getEntity().getUniqueId(), projectileItemStack);
-            registerRPGProjectile(e.getEntity().getEntityId(), projectileRpgItem.getUid());
-            projectileRpgItem.power(player, projectileItemStack, e, BaseTriggers.LAUNCH_PROJECTILE);
-            projectileRpgItem = null;
-            projectilePlayer = null;
-            projectileItemStack = null;
-            projectileRegisterMap.remove(((LivingEntity) shooter).getUniqueId());
+        if (launch != null) {
+            ProjectileRegistry.setLocalItemStack(entity, launch.stack());
+            registerRPGProjectile(entity, launch.item().getUid());
+            launch.item().power(player, launch.stack(), e, BaseTriggers.LAUNCH_PROJECTILE);
             return;
         }
 
@@ -309,7 +324,7 @@ public class Events implements Listener {
             rItem = ItemManager.toRPGItem(item).orElse(null);
             if (rItem == null) return;
             UUID uuid = entity.getUniqueId();
-            registerLocalItemStack(uuid, item);
+            ProjectileRegistry.setLocalItemStack(entity, item);
             ItemStack fakeItem = rItem.toItemStack(player);
             List<String> fakeLore = new ArrayList<>(1);
             fakeLore.add(uuid.toString());
@@ -339,7 +354,7 @@ public class Events implements Listener {
         if (ItemManager.canUse(player, rItem) == Event.Result.DENY) {
             return;
         }
-        registerRPGProjectile(e.getEntity().getEntityId(), rItem.getUid());
+        registerRPGProjectile(entity, rItem.getUid());
         rItem.power(player, item, e, BaseTriggers.LAUNCH_PROJECTILE);
     }
 
@@ -527,6 +542,108 @@ public class Events implements Listener {
         if (WGSupport.hasSupport() && WGSupport.useWorldGuard) {
             WGHandler.onPlayerJoin(e);
         }
+        EquipmentIndex.markDirty(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        EquipmentIndex.remove(e.getPlayer());
+        WGSupport.invalidate(e.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentHeld(PlayerItemHeldEvent e) {
+        EquipmentIndex.markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentSwap(PlayerSwapHandItemsEvent e) {
+        EquipmentIndex.markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEquipmentArmorChange(PlayerArmorChangeEvent e) {
+        EquipmentIndex.markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentClick(InventoryClickEvent e) {
+        if (e.getWhoClicked() instanceof Player player) {
+            EquipmentIndex.markDirty(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentDrag(InventoryDragEvent e) {
+        if (e.getWhoClicked() instanceof Player player) {
+            EquipmentIndex.markDirty(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentDrop(PlayerDropItemEvent e) {
+        EquipmentIndex.markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentPickup(EntityPickupItemEvent e) {
+        if (e.getEntity() instanceof Player player) {
+            EquipmentIndex.markDirty(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEquipmentRespawn(PlayerRespawnEvent e) {
+        EquipmentIndex.markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityGridSpawn(EntitySpawnEvent e) {
+        EntityGrid.invalidate(e.getLocation().getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityGridTeleport(EntityTeleportEvent e) {
+        EntityGrid.invalidate(e.getFrom().getWorld());
+        if (e.getTo() != null) EntityGrid.invalidate(e.getTo().getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityGridTeleport(PlayerTeleportEvent e) {
+        EntityGrid.invalidate(e.getFrom().getWorld());
+        EntityGrid.invalidate(e.getTo().getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEquipmentBreak(PlayerItemBreakEvent e) {
+        EquipmentIndex.markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentConsume(PlayerItemConsumeEvent e) {
+        EquipmentIndex.markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentPlace(BlockPlaceEvent e) {
+        EquipmentIndex.markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentLaunch(ProjectileLaunchEvent e) {
+        if (e.getEntity().getShooter() instanceof Player player) {
+            EquipmentIndex.markDirty(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEquipmentPickupArrow(PlayerPickupArrowEvent e) {
+        EquipmentIndex.markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEquipmentDeath(PlayerDeathEvent e) {
+        EquipmentIndex.markDirty(e.getEntity());
     }
 
     @SuppressWarnings("deprecation")
@@ -537,12 +654,12 @@ public class Events implements Listener {
         }
         ItemStack tridentItem = e.getItem().getItemStack();
         ItemMeta itemMeta = tridentItem.getItemMeta();
-        if (!rpgProjectiles.containsKey(e.getArrow().getEntityId()) || !itemMeta.hasLore() || itemMeta.getLore() == null || itemMeta.getLore().isEmpty()) {
+        if (!ProjectileRegistry.isTracked(e.getArrow()) || !itemMeta.hasLore() || itemMeta.getLore() == null || itemMeta.getLore().isEmpty()) {
             return;
         }
         try {
             UUID uuid = UUID.fromString(itemMeta.getLore().get(0));
-            ItemStack realItem = removeLocalItemStack(uuid);
+            ItemStack realItem = uuid.equals(e.getArrow().getUniqueId()) ? ProjectileRegistry.removeLocalItemStack(e.getArrow()) : null;
             if (realItem != null) {
                 if (realItem.getType() == Material.AIR) {
                     e.getArrow().setPickupStatus(Arrow.PickupStatus.DISALLOWED);
@@ -677,13 +794,24 @@ public class Events implements Listener {
     @SuppressWarnings({"deprecation"})
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onDamage(EntityDamageByEntityEvent ev) {
-        if (ev.getEntity() instanceof LivingEntity entity) {
-            EntityEquipment equipment = entity.getEquipment();
+        DamageContext ctx = DamageContext.acquire(ev);
+        try {
+            onDamage(ctx);
+        } finally {
+            ctx.release();
+        }
+    }
+
+    private void onDamage(DamageContext ctx) {
+        EntityDamageByEntityEvent ev = ctx.event;
+        // armor
+        if (ctx.isVictimEquipped()) {
             boolean armor = false;
             boolean hardHat = false;
-            if (equipment != null) for (ItemStack item : equipment.getArmorContents()) {
-                RPGItem rpg = ItemManager.toRPGItem(item).orElse(null);
+            for (EquipmentSlot slot : ARMOR_SLOTS) {
+                RPGItem rpg = ctx.victimEquipment.get(slot);
                 if (rpg == null) continue;
+                ItemStack item = ctx.victimEquipment.getStack(slot);
 
                 if (!armor && ev.isApplicable(EntityDamageEvent.DamageModifier.ARMOR)) {
                     ev.setDamage(EntityDamageEvent.DamageModifier.ARMOR, 0);
@@ -696,102 +824,96 @@ public class Events implements Listener {
                 if (armor && hardHat) break;
             }
         }
+        // triggers of the attacker
         double damage;
         if (ev.getDamager() instanceof Player) {
-            damage = playerDamager(ev);
+            damage = playerDamager(ctx);
         } else if (ev.getDamager() instanceof Projectile) {
             damage = projectileDamager(ev);
         } else {
             damage = ev.getDamage();
         }
         // factor
-        if (damage >= 0
-                && ev.getDamager() instanceof LivingEntity damager
-                && ev.getEntity() instanceof LivingEntity entity
-        ) {
-            damage = plugin.cfg.factorConfig.getDamage(damager, entity, damage);
+        if (damage >= 0 && ctx.attacker != null && ctx.victim != null) {
+            damage = ctx.applyFactors(plugin.cfg.factorConfig, damage);
         }
         // critical
         double criticalDamage = damage;
         ThreadLocalRandom random = ThreadLocalRandom.current();
-        if (damage >= 0 && ev.getDamager() instanceof LivingEntity damager && damager.getEquipment() != null) {
-            RPGItem rpg = ItemManager.toRPGItem(damager.getEquipment().getItemInMainHand()).orElse(null);
-            if (rpg != null) {
-                if (rpg.getCriticalRate() > 0 && random.nextDouble(100) < rpg.getCriticalRate()) {
-                    criticalDamage += rpg.getCriticalDamage();
-                    criticalDamage *= rpg.getCriticalMultiple();
-                } else if (rpg.getCriticalBackRate() > 0 && random.nextDouble(100) < rpg.getCriticalBackRate()) {
-                    criticalDamage += rpg.getCriticalBackDamage();
-                    criticalDamage *= rpg.getCriticalBackMultiple();
-                }
+        RPGItem hand = ctx.getAttackerItem(EquipmentSlot.HAND);
+        if (damage >= 0 && hand != null) {
+            if (hand.getCriticalRate() > 0 && random.nextDouble(100) < hand.getCriticalRate()) {
+                criticalDamage += hand.getCriticalDamage();
+                criticalDamage *= hand.getCriticalMultiple();
+            } else if (hand.getCriticalBackRate() > 0 && random.nextDouble(100) < hand.getCriticalBackRate()) {
+                criticalDamage += hand.getCriticalBackDamage();
+                criticalDamage *= hand.getCriticalBackMultiple();
             }
         }
         // anti critical
-        if (criticalDamage > damage && ev.getEntity() instanceof LivingEntity entity && entity.getEquipment() != null) {
-            EntityEquipment equipment = entity.getEquipment();
-            Pair<RPGItem, ItemStack> pair;
-            if ((pair = isAntiCriticalSuccess(random, equipment.getItemInMainHand())) != null
-                    || (pair = isAntiCriticalSuccess(random, equipment.getItemInOffHand())) != null
-                    || (pair = isAntiCriticalSuccess(random, equipment.getHelmet())) != null
-                    || (pair = isAntiCriticalSuccess(random, equipment.getChestplate())) != null
-                    || (pair = isAntiCriticalSuccess(random, equipment.getLeggings())) != null
-                    || (pair = isAntiCriticalSuccess(random, equipment.getBoots())) != null) {
+        if (criticalDamage > damage && ctx.isVictimEquipped()) {
+            Pair<RPGItem, ItemStack> pair = null;
+            for (EquipmentSlot slot : DEFENCE_SLOTS) {
+                if ((pair = isAntiCriticalSuccess(random, ctx.victimEquipment, slot)) != null) break;
+            }
+            if (pair != null) {
                 criticalDamage = damage;
-                if (entity instanceof Player p) {
+                if (ctx.victim instanceof Player p) {
                     pair.getKey().getDodgeMessageType().send(p, pair.getKey().getDodgeMessage());
-                    trigger(p, ev, pair.getValue(), BaseTriggers.ANTI_CRITICAL);
+                    pair.getKey().power(p, pair.getValue(), ev, BaseTriggers.ANTI_CRITICAL);
                     if (ev.getDamager() instanceof Player p2) {
-                        trigger(p2, ev, pair.getValue(), BaseTriggers.CRITICAL_FORCE_FAIL);
+                        pair.getKey().power(p2, pair.getValue(), ev, BaseTriggers.CRITICAL_FORCE_FAIL);
                     }
                 }
             }
         }
         ev.setDamage(criticalDamage);
         // dodge
-        if (ev.getEntity() instanceof LivingEntity entity && entity.getEquipment() != null) {
-            EntityEquipment equipment = entity.getEquipment();
-            Pair<RPGItem, ItemStack> pair;
-            if ((pair = isDodgeSuccess(random, equipment.getItemInMainHand())) != null
-                    || (pair = isDodgeSuccess(random, equipment.getItemInOffHand())) != null
-                    || (pair = isDodgeSuccess(random, equipment.getHelmet())) != null
-                    || (pair = isDodgeSuccess(random, equipment.getChestplate())) != null
-                    || (pair = isDodgeSuccess(random, equipment.getLeggings())) != null
-                    || (pair = isDodgeSuccess(random, equipment.getBoots())) != null) {
+        if (ctx.isVictimEquipped()) {
+            Pair<RPGItem, ItemStack> pair = null;
+            for (EquipmentSlot slot : DEFENCE_SLOTS) {
+                if ((pair = isDodgeSuccess(random, ctx.victimEquipment, slot)) != null) break;
+            }
+            if (pair != null) {
                 ev.setCancelled(true);
-                if (entity instanceof Player p) {
+                if (ctx.victim instanceof Player p) {
                     pair.getKey().getDodgeMessageType().send(p, pair.getKey().getDodgeMessage());
-                    trigger(p, ev, pair.getValue(), BaseTriggers.DODGE);
+                    pair.getKey().power(p, pair.getValue(), ev, BaseTriggers.DODGE);
                     return;
                 }
             }
         }
-        if (criticalDamage > damage && ev.getDamager() instanceof Player p) {
-            trigger(p, ev, p.getInventory().getItemInMainHand(), BaseTriggers.CRITICAL);
+        ItemStack handStack = ctx.getAttackerStack(EquipmentSlot.HAND);
+        // the attacker's powers may have used up the stack
+        if (criticalDamage > damage && ev.getDamager() instanceof Player p && !handStack.getType().isAir()) {
+            hand.power(p, handStack, ev, BaseTriggers.CRITICAL);
         }
     }
 
-    private Pair<RPGItem, ItemStack> isDodgeSuccess(ThreadLocalRandom random, ItemStack item) {
-        RPGItem rpg = ItemManager.toRPGItem(item).orElse(null);
+    private Pair<RPGItem, ItemStack> isDodgeSuccess(ThreadLocalRandom random, EquipmentIndex.Snapshot equipment, EquipmentSlot slot) {
+        RPGItem rpg = equipment.get(slot);
         if (rpg == null || rpg.getDodgeRate() <= 0) return null;
         if (random.nextDouble(100) < rpg.getDodgeRate()) {
-            return Pair.of(rpg, item);
+            return Pair.of(rpg, equipment.getStack(slot));
         }
         return null;
     }
 
-    private Pair<RPGItem, ItemStack> isAntiCriticalSuccess(ThreadLocalRandom random, ItemStack item) {
-        RPGItem rpg = ItemManager.toRPGItem(item).orElse(null);
+    private Pair<RPGItem, ItemStack> isAntiCriticalSuccess(ThreadLocalRandom random, EquipmentIndex.Snapshot equipment, EquipmentSlot slot) {
+        RPGItem rpg = equipment.get(slot);
         if (rpg == null || rpg.getCriticalAntiRate() <= 0) return null;
         if (random.nextDouble(100) < rpg.getCriticalAntiRate()) {
-            return Pair.of(rpg, item);
+            return Pair.of(rpg, equipment.getStack(slot));
         }
         return null;
     }
 
-    private double playerDamager(EntityDamageByEntityEvent e) {
+    private double playerDamager(DamageContext ctx) {
+        EntityDamageByEntityEvent e = ctx.event;
         Player player = (Player) e.getDamager();
         Entity entity = e.getEntity();
-        ItemStack item = player.getInventory().getItemInMainHand();
+        ItemStack item = ctx.getAttackerStack(EquipmentSlot.HAND);
+        RPGItem rItem = ctx.getAttackerItem(EquipmentSlot.HAND);
 
         if (e.getCause() == EntityDamageEvent.DamageCause.THORNS)
             return -1;
@@ -824,7 +946,9 @@ public class Events implements Listener {
             }
         }
 
-        RPGItem rItem = ItemManager.toRPGItem(item).orElse(null);
+        if (sourceItem.isPresent()) {
+            rItem = ItemManager.toRPGItem(item).orElse(null);
+        }
 
         if (rItem != null && (e.getCause().equals(EntityDamageEvent.DamageCause.BLOCK_EXPLOSION) || e.getCause().equals(EntityDamageEvent.DamageCause.ENTITY_EXPLOSION))) {
             boolean isMythic = MythicSupport.isMythic(entity);
@@ -854,21 +978,19 @@ public class Events implements Listener {
             Context.instance().putTemp(player.getUniqueId(), DAMAGE_TYPE, damageType);
             damage = rItem.power(player, item, e, BaseTriggers.HIT).orElse(damage);
         }
-        ItemStack[] inventory = player.getInventory().getContents();
-        return runGlobalHitTrigger(e, player, damage, rItem == null ? "" : rItem.getDamageType(), inventory);
+        return runGlobalHitTrigger(e, player, damage, rItem == null ? "" : rItem.getDamageType());
     }
 
     private double projectileDamager(EntityDamageByEntityEvent e) {
         Projectile projectile = (Projectile) e.getDamager();
-        Integer projectileID = rpgProjectiles.get(projectile.getEntityId());
-        if (projectileID == null) {
+        if (!ProjectileRegistry.isTracked(projectile)) {
             if (projectile.hasMetadata("RPGItems.OriginalForce")) {
                 double damage = e.getDamage() * projectile.getMetadata("RPGItems.Force").get(0).asFloat() / projectile.getMetadata("RPGItems.OriginalForce").get(0).asFloat();
                 e.setDamage(damage);
             }
             return -1;
         }
-        RPGItem rItem = ItemManager.getItem(projectileID).orElse(null);
+        RPGItem rItem = ProjectileRegistry.getItem(projectile).orElse(null);
         if (rItem == null || !(projectile.getShooter() instanceof Player player))
             return -1;
         if (!((Player) projectile.getShooter()).isOnline()) {
@@ -876,8 +998,9 @@ public class Events implements Listener {
         }
         ItemStack item = player.getInventory().getItemInMainHand();
 
-        if (hasLocalItemStack(projectile.getUniqueId())) {
-            item = getLocalItemStack(projectile.getUniqueId());
+        ItemStack localItem = ProjectileRegistry.getLocalItemStack(projectile);
+        if (localItem != null) {
+            item = localItem;
             rItem = ItemManager.toRPGItem(item).orElse(null);
             if (rItem == null) throw new IllegalStateException();
         }
@@ -905,22 +1028,20 @@ public class Events implements Listener {
         }
         e.setDamage(damage);
         if (!(e.getEntity() instanceof LivingEntity)) return damage;
-        ItemStack[] armorContents = player.getInventory().getContents();
         String damageType = rItem.getDamageType();
         Context.instance().putTemp(player.getUniqueId(), DAMAGE_TYPE, damageType);
         damage = rItem.power(player, item, e, BaseTriggers.HIT).orElse(damage);
-        return runGlobalHitTrigger(e, player, damage, damageType, armorContents);
+        return runGlobalHitTrigger(e, player, damage, damageType);
     }
 
-    private double runGlobalHitTrigger(EntityDamageByEntityEvent e, Player player, double damage, String damageType, ItemStack[] itemStacks) {
+    private double runGlobalHitTrigger(EntityDamageByEntityEvent e, Player player, double damage, String damageType) {
+        EquipmentIndex.GlobalStacks global = EquipmentIndex.getGlobalHit(player);
         ItemStack itemInMainHand = player.getInventory().getItemInMainHand();
-        for (ItemStack itemStack : itemStacks) {
-            if (itemStack == null) continue;
-            if (itemStack.equals(itemInMainHand))continue;
-            RPGItem rpgItem = ItemManager.toRPGItem(itemStack).orElse(null);
-            if (rpgItem == null) continue;
+        for (int i = 0; i < global.size(); i++) {
+            // stacks equal to the held one are skipped wherever they are, as the held stack already fired HIT
+            if (global.getStack(i).equals(itemInMainHand)) continue;
             Context.instance().putTemp(player.getUniqueId(), DAMAGE_TYPE, damageType);
-            damage = rpgItem.power(player, itemStack, e, BaseTriggers.HIT_GLOBAL).orElse(damage);
+            damage = global.getItem(i).power(player, global.getStack(i), e, BaseTriggers.HIT_GLOBAL).orElse(damage);
         }
         if (damage <= 0) {
             e.setCancelled(true);
@@ -961,6 +1082,7 @@ public class Events implements Listener {
             }
             if (hasRPGItem) {
                 player.getInventory().setArmorContents(armour);
+                EquipmentIndex.markDirty(player);
             }
             ItemStack offHand = player.getInventory().getItemInOffHand();
             {
@@ -968,6 +1090,7 @@ public class Events implements Listener {
                 if (pRItem != null) {
                     damage = pRItem.takeDamage(player, damage, offHand, damager);
                     player.getInventory().setItemInOffHand(offHand);
+                    EquipmentIndex.markDirty(player);
                 }
             }
             e.setDamage(damage);
@@ -30,6 +30,7 @@ import think.rpgitems.power.trigger.BaseTriggers;
 import think.rpgitems.support.MythicSupport;
 import think.rpgitems.support.PlaceholderSupport;
 import think.rpgitems.support.WGSupport;
+import think.rpgitems.utils.CompiledExpression;
 import think.rpgitems.utils.cast.PluginUtils;
 import think.rpgitems.utils.nms.NMS;
 import think.rpgitems.utils.nyaacore.NyaaCoreLoader;
@@ -125,6 +126,7 @@ public final class RPGItems extends JavaPlugin implements PluginMessageListener
         plugin.cfg = new Configuration(plugin);
         plugin.cfg.load();
         plugin.cfg.enabledLanguages.forEach(lang -> new I18n(plugin, lang));
+        CompiledExpression.clear();
         plugin.loadPowers();
         WGSupport.reload();
         plugin.loadExtensions();
@@ -150,6 +152,12 @@ public final class RPGItems extends JavaPlugin implements PluginMessageListener
     public void loadExtensions() {
         cfg.factorConfig.clearDefiner();
         cfg.factorConfig.addDefiner(new IFactorDefiner() {
+            // equipment changes of players invalidate it, see EquipmentIndex, mobs change gear without notice
+            @Override
+            public boolean cacheable(LivingEntity entity) {
+                return entity instanceof Player;
+            }
+
             @Override
             public @Nullable String define(LivingEntity entity) {
                 EntityEquipment equipment = entity.getEquipment();
@@ -297,8 +305,9 @@ public final class RPGItems extends JavaPlugin implements PluginMessageListener
             PlaceholderSupport.init(RPGItems.this);
             logger.info("Loading RPGItems...");
             ItemManager.load(RPGItems.this);
+            TempBlocks.recover();
             logger.info("Done");
-            new Ticker().runTaskTimer(RPGItems.this, 0, 0);
+            new Ticker(cfg.tickerShards).runTaskTimer(RPGItems.this, 0, 0);
         }
     }
 
@@ -308,6 +317,7 @@ public final class RPGItems extends JavaPlugin implements PluginMessageListener
         HandlerList.unregisterAll(plugin);
         unregisterCommand("rpgitem");
         unregisterCommand("rpgitems");
+        TempBlocks.revertAll();
         this.getServer().getScheduler().cancelTasks(plugin);
         ItemManager.unload();
         for (Plugin plugin : managedPlugins) {
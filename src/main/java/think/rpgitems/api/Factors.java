@@ -1,9 +1,30 @@
 package think.rpgitems.api;
 
+import org.bukkit.entity.Entity;
 import think.rpgitems.RPGItems;
 
+import java.util.UUID;
+
 public class Factors {
     public static void registerFactorDefiner(IFactorDefiner definer) {
         RPGItems.plugin.cfg.factorConfig.addDefiner(definer);
     }
+
+    /**
+     * Drops the cached factor of the entity. Cacheable definers call this when their result for the entity changes.
+     */
+    public static void invalidate(Entity entity) {
+        invalidate(entity.getUniqueId());
+    }
+
+    public static void invalidate(UUID entity) {
+        RPGItems.plugin.cfg.factorConfig.invalidate(entity);
+    }
+
+    /**
+     * Drops the cached factors of every entity
+     */
+    public static void invalidateAll() {
+        RPGItems.plugin.cfg.factorConfig.invalidateAll();
+    }
 }
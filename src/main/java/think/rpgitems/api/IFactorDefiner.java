@@ -11,6 +11,21 @@ public interface IFactorDefiner {
         return 50;
     }
 
+    /**
+     * Whether the result for an entity may be cached for a short time, until invalidated with {@link Factors#invalidate}.
+     * Definers whose result can change without notice, such as on a timer, should keep the default.
+     */
+    default boolean cacheable() {
+        return false;
+    }
+
+    /**
+     * Same as {@link #cacheable()}, for definers whose result can only be kept for some entities
+     */
+    default boolean cacheable(LivingEntity entity) {
+        return cacheable();
+    }
+
     /**
      * Define the factor id of entity. Return null means the definer has no result and then run the next definer.
      */
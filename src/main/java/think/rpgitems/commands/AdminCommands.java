@@ -28,11 +28,15 @@ import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.scheduler.BukkitRunnable;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.ItemGroup;
 import think.rpgitems.item.ItemManager;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.*;
+import think.rpgitems.power.proxy.Interceptor;
+import think.rpgitems.power.impl.Beam;
 import think.rpgitems.support.WGSupport;
+import think.rpgitems.utils.CompiledExpression;
 import think.rpgitems.utils.IOUtils;
 import think.rpgitems.utils.MaterialUtils;
 import think.rpgitems.utils.MessageType;
@@ -216,10 +220,21 @@ public class AdminCommands extends RPGCommandReceiver {
         }
     }
 
+    @SubCommand("stats")
+    public void stats(CommandSender sender, Arguments args) {
+        msgs(sender, "message.stats.proxy_classes", Interceptor.getProxyClassCount());
+        msgs(sender, "message.stats.proxy_instances", Interceptor.getProxyInstanceCount());
+        msgs(sender, "message.stats.compiled_expressions", CompiledExpression.getCachedCount());
+        msgs(sender, "message.stats.equipped_players", EquipmentIndex.getEquippedCount());
+        msgs(sender, "message.stats.active_beams", Beam.getActiveCount());
+        msgs(sender, "message.stats.temporary_blocks", TempBlocks.getCount());
+        msgs(sender, "message.stats.tracked_projectiles", ProjectileRegistry.getCount());
+    }
+
     @SubCommand("save-all")
     public void save(CommandSender sender, Arguments args) {
         if (readOnly(sender)) return;
-        ItemManager.save();
+        ItemManager.save(sender);
     }
 
     @SubCommand("reload")
@@ -454,7 +469,7 @@ public class AdminCommands extends RPGCommandReceiver {
         } else {
             msgs(sender, "message.worldguard.override.disabled");
         }
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
     }
 
     @SubCommand("create")
@@ -464,7 +479,7 @@ public class AdminCommands extends RPGCommandReceiver {
         RPGItem newItem = ItemManager.newItem(itemName.toLowerCase(), sender);
         if (newItem != null) {
             msgs(sender, "message.create.ok", itemName);
-            ItemManager.save(newItem);
+            ItemManager.save(newItem, sender);
         } else {
             msgs(sender, "message.create.fail");
         }
@@ -563,7 +578,7 @@ public class AdminCommands extends RPGCommandReceiver {
             item.setDisplayName(value);
             msgs(sender, "message.display.set", item.getName(), item.getDisplayName());
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } else {
             msgs(sender, "message.display.get", item.getName(), item.getDisplayName());
         }
@@ -579,7 +594,7 @@ public class AdminCommands extends RPGCommandReceiver {
             if (rate != null) {
                 item.setDodgeRate(rate);
                 msgs(sender, "message.dodge.rate.set", item.getName(), item.getDodgeRate());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         } else if (type.equalsIgnoreCase("msgType")) {
@@ -587,14 +602,14 @@ public class AdminCommands extends RPGCommandReceiver {
             if (msgType != null) {
                 item.setDodgeMessageType(msgType);
                 msgs(sender, "message.dodge.msg-type.set", item.getName(), item.getDodgeMessageType().name().toUpperCase());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         } else if (type.equalsIgnoreCase("msg")) {
             String msg = consumeString(arguments);
             item.setDodgeMessage(msg.replace("\\n", "\n"));
             msgs(sender, "message.dodge.msg.set", item.getName(), item.getDodgeMessage().replace("\n", "\\n"));
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             return;
         }
         msgs(sender, "message.dodge.get", item.getName(), item.getDodgeRate(), item.getDodgeMessageType().name().toUpperCase(), item.getDodgeMessage());
@@ -621,7 +636,7 @@ public class AdminCommands extends RPGCommandReceiver {
         int customModelData = args.nextInt();
         item.setCustomModelData(customModelData);
         ItemManager.refreshItem();
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
         msgs(sender, "message.custom_model_data.set", customModelData);
     }
 
@@ -648,7 +663,7 @@ public class AdminCommands extends RPGCommandReceiver {
                 msgs(sender, "message.damage.set.value", item.getName(), item.getDamageMin());
             }
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } catch (BadCommandException e) {
             msgs(sender, "message.damage.get", item.getName(), item.getDamageMin(), item.getDamageMax());
         }
@@ -677,7 +692,7 @@ public class AdminCommands extends RPGCommandReceiver {
                 msgs(sender, "message.damage.set.value", item.getName(), item.getDamageMin());
             }
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } catch (BadCommandException e) {
             msgs(sender, "message.damage.get", item.getName(), item.getDamageMin(), item.getDamageMax());
         }
@@ -707,7 +722,7 @@ public class AdminCommands extends RPGCommandReceiver {
                 }
             }
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } catch (BadCommandException e) {
             msgs(sender, "message.damage.get", item.getName(), item.getDamageMin(), item.getDamageMax());
         }
@@ -723,7 +738,7 @@ public class AdminCommands extends RPGCommandReceiver {
             item.setArmour(armour);
             msgs(sender, "message.armour.set", item.getName(), item.getArmour());
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } catch (BadCommandException e) {
             msgs(sender, "message.armour.get", item.getName(), item.getArmour());
         }
@@ -767,7 +782,7 @@ public class AdminCommands extends RPGCommandReceiver {
             new Message("")
                     .append(I18n.getInstance(sender).format("message.item.set", item.getName(), item.getItem().name(), item.getDataValue()), new ItemStack(item.getItem()))
                     .send(sender);
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         }
     }
 
@@ -796,7 +811,7 @@ public class AdminCommands extends RPGCommandReceiver {
         new Message("")
                 .append(I18n.getInstance(sender).format("message.item.set-inHand", item.getName(), item.getItem().name(), item.getCustomModelData()), new ItemStack(item.getItem()))
                 .send(sender);
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
     }
 
     @SubCommand(value = "ia", tabCompleter = "itemsAdderCompleter")
@@ -822,7 +837,7 @@ public class AdminCommands extends RPGCommandReceiver {
         new Message("")
                 .append(I18n.getInstance(sender).format("message.item.set-ia", rpg.getName(), rpg.getItem().name(), rpg.getCustomModelData()), new ItemStack(rpg.getItem()))
                 .send(sender);
-        ItemManager.save(rpg);
+        ItemManager.save(rpg, sender);
     }
 
     @SubCommand(value = "print", tabCompleter = "itemCompleter")
@@ -869,7 +884,7 @@ public class AdminCommands extends RPGCommandReceiver {
                         }
                         item.rebuild();
                         ItemManager.refreshItem();
-                        ItemManager.save(item);
+                        ItemManager.save(item, sender);
                         msgs(sender, "message.enchantment.success");
                     }
                 } else {
@@ -880,7 +895,7 @@ public class AdminCommands extends RPGCommandReceiver {
                 item.setEnchantMap(null);
                 item.rebuild();
                 ItemManager.refreshItem();
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 msgs(sender, "message.enchantment.removed");
             }
             default ->
@@ -907,7 +922,7 @@ public class AdminCommands extends RPGCommandReceiver {
             }
             default -> throw new BadCommandException("accepted value: FULL_UPDATE,PARTIAL_UPDATE");
         }
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
     }
 
     @SubCommand(value = "description", tabCompleter = "itemCompleter")
@@ -922,7 +937,7 @@ public class AdminCommands extends RPGCommandReceiver {
                 item.addDescription(ChatColor.WHITE + line);
                 msgs(sender, "message.description.ok");
                 ItemManager.refreshItem();
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
             }
             case "insert" -> {
                 int lineNo = args.nextInt();
@@ -936,7 +951,7 @@ public class AdminCommands extends RPGCommandReceiver {
                 item.rebuild();
                 ItemManager.refreshItem();
                 msgs(sender, "message.description.ok");
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
             }
             case "set" -> {
                 int lineNo = args.nextInt();
@@ -949,7 +964,7 @@ public class AdminCommands extends RPGCommandReceiver {
                 item.rebuild();
                 ItemManager.refreshItem();
                 msgs(sender, "message.description.change");
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
             }
             case "remove" -> {
                 int lineNo = args.nextInt();
@@ -961,7 +976,7 @@ public class AdminCommands extends RPGCommandReceiver {
                 item.rebuild();
                 ItemManager.refreshItem();
                 msgs(sender, "message.description.remove");
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
             }
             default ->
                     throw new BadCommandException("message.error.invalid_option", command, "description", "add,set,remove");
@@ -981,7 +996,7 @@ public class AdminCommands extends RPGCommandReceiver {
                 case "hit" -> msgs(sender, "message.cost.get", item.getHitCost());
                 case "toggle" -> {
                     item.setHitCostByDamage(!item.isHitCostByDamage());
-                    ItemManager.save(item);
+                    ItemManager.save(item, sender);
                     msgs(sender, "message.cost.hit_toggle." + (item.isHitCostByDamage() ? "enable" : "disable"));
                 }
                 default ->
@@ -997,7 +1012,7 @@ public class AdminCommands extends RPGCommandReceiver {
                         throw new BadCommandException("message.error.invalid_option", type, "cost", "breaking,hitting,hit");
             }
 
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.cost.change");
         }
     }
@@ -1016,14 +1031,14 @@ public class AdminCommands extends RPGCommandReceiver {
             int durability = Integer.parseInt(arg);
             item.setMaxDurability(durability);
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.durability.max_and_default", String.valueOf(durability));
         } catch (NumberFormatException e) {
             switch (arg) {
                 case "infinite" -> {
                     item.setMaxDurability(-1);
                     ItemManager.refreshItem();
-                    ItemManager.save(item);
+                    ItemManager.save(item, sender);
                     msgs(sender, "message.durability.max_and_default", "infinite");
                 }
                 case "default" -> {
@@ -1034,7 +1049,7 @@ public class AdminCommands extends RPGCommandReceiver {
                     }
                     item.setDefaultDurability(durability);
                     ItemManager.refreshItem();
-                    ItemManager.save(item);
+                    ItemManager.save(item, sender);
                     msgs(sender, "message.durability.default", String.valueOf(durability));
                 }
                 case "bound" -> {
@@ -1042,20 +1057,20 @@ public class AdminCommands extends RPGCommandReceiver {
                     int max = args.nextInt();
                     item.setDurabilityBound(min, max);
                     ItemManager.refreshItem();
-                    ItemManager.save(item);
+                    ItemManager.save(item, sender);
                     msgs(sender, "message.durability.bound", String.valueOf(min), String.valueOf(max));
                 }
                 case "togglebar" -> {
                     item.toggleBar();
                     ItemManager.refreshItem();
-                    ItemManager.save(item);
+                    ItemManager.save(item, sender);
                     msgs(sender, "message.durability.toggle");
                 }
                 case "barformat" -> {
                     item.setBarFormat(args.nextEnum(BarFormat.class));
                     item.rebuild();
                     ItemManager.refreshItem();
-                    ItemManager.save(item);
+                    ItemManager.save(item, sender);
                     msgs(sender, "message.barformat." + item.getBarFormat().name());
                 }
                 default ->
@@ -1072,7 +1087,7 @@ public class AdminCommands extends RPGCommandReceiver {
         boolean enabled = args.nextBoolean();
         item.setPermission(permission);
         item.setHasPermission(enabled);
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
         msgs(sender, "message.permission.success");
     }
 
@@ -1083,7 +1098,7 @@ public class AdminCommands extends RPGCommandReceiver {
         item.setShowPowerText(!item.isShowPowerText());
         item.rebuild();
         ItemManager.refreshItem();
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
         msgs(sender, "message.toggleLore." + (item.isShowPowerText() ? "show" : "hide"));
     }
 
@@ -1094,7 +1109,7 @@ public class AdminCommands extends RPGCommandReceiver {
         item.setShowArmourLore(!item.isShowArmourLore());
         item.rebuild();
         ItemManager.refreshItem();
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
         msgs(sender, "message.toggleLore." + (item.isShowArmourLore() ? "show" : "hide"));
     }
 
@@ -1106,7 +1121,7 @@ public class AdminCommands extends RPGCommandReceiver {
         item.getItemFlags().add(ItemFlag.valueOf(flag.name()));
         item.rebuild();
         ItemManager.refreshItem();
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
         msgs(sender, "message.itemflag.add", flag.name());
     }
 
@@ -1120,7 +1135,7 @@ public class AdminCommands extends RPGCommandReceiver {
             item.getItemFlags().remove(itemFlag);
             item.rebuild();
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.itemflag.remove", flag.name());
         } else {
             msgs(sender, "message.itemflag.notfound", flag.name());
@@ -1134,7 +1149,7 @@ public class AdminCommands extends RPGCommandReceiver {
         item.setCustomItemModel(!item.isCustomItemModel());
         item.rebuild();
         ItemManager.refreshItem();
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
         msgs(sender, "message.customitemmodel." + (item.isCustomItemModel() ? "enable" : "disable"));
     }
 
@@ -1152,7 +1167,7 @@ public class AdminCommands extends RPGCommandReceiver {
             item.setEnchantMode(args.nextEnum(RPGItem.EnchantMode.class));
             item.rebuild();
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         }
         msgs(sender, "message.enchantmode." + item.getEnchantMode().name(), item.getName());
     }
@@ -1166,7 +1181,7 @@ public class AdminCommands extends RPGCommandReceiver {
             item.setDamageMode(args.nextEnum(RPGItem.DamageMode.class));
             item.rebuild();
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         }
         msgs(sender, "message.damagemode." + item.getDamageMode().name(), item.getName());
     }
@@ -1212,7 +1227,7 @@ public class AdminCommands extends RPGCommandReceiver {
         String name = args.nextString();
         RPGItem i = ItemManager.cloneItem(item, name);
         if (i != null) {
-            ItemManager.save(i);
+            ItemManager.save(i, sender);
             msgs(sender, "message.cloneitem.success", item.getName(), i.getName());
         } else {
             msgs(sender, "message.cloneitem.fail", item.getName(), name);
@@ -1265,7 +1280,7 @@ public class AdminCommands extends RPGCommandReceiver {
             }
             item.setAuthor(author);
             msgs(sender, "message.item.author.set", Collections.singletonMap("{author}", authorComponent), item.getName());
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } else {
             String authorText = item.getAuthor();
             if (Strings.isNullOrEmpty(authorText)) {
@@ -1305,7 +1320,7 @@ public class AdminCommands extends RPGCommandReceiver {
         if (note != null) {
             item.setNote(note);
             msgs(sender, "message.item.note.set", item.getName(), note);
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } else {
             msgs(sender, "message.item.note.get", item.getName(), item.getNote());
         }
@@ -1319,7 +1334,7 @@ public class AdminCommands extends RPGCommandReceiver {
         if (license != null) {
             item.setLicense(license);
             msgs(sender, "message.item.license.set", item.getName(), license);
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } else {
             msgs(sender, "message.item.license.get", item.getName(), item.getLicense());
         }
@@ -1457,7 +1472,7 @@ public class AdminCommands extends RPGCommandReceiver {
             msgs(sender, "message.damagetype.set", rpgItem.getDamageType());
         }
         rpgItem.setDamageType(damageType);
-        ItemManager.save(rpgItem);
+        ItemManager.save(rpgItem, sender);
         rpgItem.rebuild();
         msgs(sender, "message.damagetype.set", damageType);
     }
@@ -1494,7 +1509,7 @@ public class AdminCommands extends RPGCommandReceiver {
         }
         if (testExpr(expr)) {
             rpgItem.setArmourExpression(expr);
-            ItemManager.save(rpgItem);
+            ItemManager.save(rpgItem, sender);
             rpgItem.rebuild();
             msgs(sender, "message.armor_expression.set", expr);
         } else {
@@ -1709,7 +1724,7 @@ public class AdminCommands extends RPGCommandReceiver {
             ItemManager.addItem(item);
             msgs(sender, "message.import.success", item.getName(), item.getUid());
         }
-        ItemManager.save();
+        ItemManager.save(sender);
     }
 
     public static class CommandException extends BadCommandException {
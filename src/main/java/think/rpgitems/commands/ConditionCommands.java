@@ -89,7 +89,7 @@ public class ConditionCommands extends RPGCommandReceiver {
             condition = initPropertyHolder(sender, args, item, cls);
             item.addCondition(key, condition);
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msg(sender, "message.condition.ok", conditionStr, condition.getName());
         } catch (Exception e) {
             if (e instanceof BadCommandException) {
@@ -181,7 +181,7 @@ public class ConditionCommands extends RPGCommandReceiver {
             setPropertyHolder(sender, args, condition.getClass(), condition, false);
             item.rebuild();
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.condition.change");
         } catch (UnknownExtensionException e) {
             msgs(sender, "message.error.unknown.extension", e.getName());
@@ -229,7 +229,7 @@ public class ConditionCommands extends RPGCommandReceiver {
             item.getConditions().remove(nth);
             msgs(sender, "message.condition.removed", String.valueOf(nth));
             item.rebuild();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } catch (UnknownExtensionException e) {
             msgs(sender, "message.error.unknown.extension", e.getName());
         }
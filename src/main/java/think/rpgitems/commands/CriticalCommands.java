@@ -34,7 +34,7 @@ public class CriticalCommands extends RPGCommandReceiver {
             if (rate != null) {
                 item.setCriticalRate(rate);
                 msgs(sender, "message.critical.normal.rate.set", item.getName(), item.getCriticalRate());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         } else if (type.equalsIgnoreCase("damage")) {
@@ -42,7 +42,7 @@ public class CriticalCommands extends RPGCommandReceiver {
             if (damage != null) {
                 item.setCriticalDamage(damage);
                 msgs(sender, "message.critical.normal.damage.set", item.getName(), item.getCriticalDamage());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         } else if (type.equalsIgnoreCase("multiple")) {
@@ -50,7 +50,7 @@ public class CriticalCommands extends RPGCommandReceiver {
             if (multiple != null) {
                 item.setCriticalMultiple(multiple);
                 msgs(sender, "message.critical.normal.multiple.set", item.getName(), item.getCriticalMultiple());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         }
@@ -81,7 +81,7 @@ public class CriticalCommands extends RPGCommandReceiver {
             if (rate != null) {
                 item.setCriticalBackRate(rate);
                 msgs(sender, "message.critical.back.rate.set", item.getName(), item.getCriticalBackRate());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         } else if (type.equalsIgnoreCase("damage")) {
@@ -89,7 +89,7 @@ public class CriticalCommands extends RPGCommandReceiver {
             if (damage != null) {
                 item.setCriticalBackDamage(damage);
                 msgs(sender, "message.critical.back.damage.set", item.getName(), item.getCriticalBackDamage());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         } else if (type.equalsIgnoreCase("multiple")) {
@@ -97,7 +97,7 @@ public class CriticalCommands extends RPGCommandReceiver {
             if (multiple != null) {
                 item.setCriticalBackMultiple(multiple);
                 msgs(sender, "message.critical.back.multiple.set", item.getName(), item.getCriticalBackMultiple());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         }
@@ -114,7 +114,7 @@ public class CriticalCommands extends RPGCommandReceiver {
             if (rate != null) {
                 item.setCriticalAntiRate(rate);
                 msgs(sender, "message.critical.anti.rate.set", item.getName(), item.getCriticalAntiRate());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         }
@@ -42,7 +42,7 @@ public class FactorCommands extends RPGCommandReceiver {
             item.setFactor(value);
             msgs(sender, "message.factor.set", item.getName(), item.getFactor());
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
         } else {
             msgs(sender, "message.factor.get", item.getName(), item.getFactor());
         }
@@ -88,7 +88,7 @@ public class MarkerCommands extends RPGCommandReceiver {
             marker = initPropertyHolder(sender, args, item, cls);
             item.addMarker(key, marker);
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msg(sender, "message.marker.ok", markerStr);
         } catch (Exception e) {
             if (e instanceof BadCommandException) {
@@ -190,7 +190,7 @@ public class MarkerCommands extends RPGCommandReceiver {
             setPropertyHolder(sender, args, marker.getClass(), marker, false);
             item.rebuild();
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.marker.change");
         } catch (UnknownExtensionException e) {
             msgs(sender, "message.error.unknown.extension", e.getName());
@@ -239,7 +239,7 @@ public class MarkerCommands extends RPGCommandReceiver {
             }
             item.getMarkers().remove(nth);
             item.rebuild();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.marker.removed", String.valueOf(nth));
         } catch (UnknownExtensionException e) {
             msgs(sender, "message.error.unknown.extension", e.getName());
@@ -40,7 +40,7 @@ public class MetaCommands extends RPGCommandReceiver {
         if (!plugin.cfg.qualityPrefixes.containsKey(quality)){
             new Message("").append(I18n.formatDefault("command.meta.quality.warn_quality_not_exists", quality));
         }
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
     }
 
     @Completion("")
@@ -59,7 +59,7 @@ public class MetaCommands extends RPGCommandReceiver {
         RPGItem item = getItem(arguments.nextString(), sender);
         String type = arguments.nextString();
         item.setType(type);
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
     }
 
     @Completion("")
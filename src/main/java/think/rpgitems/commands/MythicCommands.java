@@ -34,7 +34,7 @@ public class MythicCommands extends RPGCommandReceiver {
             if (damage != null) {
                 item.setMythicSkillDamage(damage);
                 msgs(sender, "message.mythic.skill-damage.damage.set", item.getName(), item.getMythicSkillDamage());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         } else if (type.equalsIgnoreCase("multiple")) {
@@ -42,7 +42,7 @@ public class MythicCommands extends RPGCommandReceiver {
             if (multiple != null) {
                 item.setMythicSkillDamageMultiple(multiple);
                 msgs(sender, "message.mythic.skill-damage.multiple.set", item.getName(), item.getMythicSkillDamageMultiple());
-                ItemManager.save(item);
+                ItemManager.save(item, sender);
                 return;
             }
         } else if (type.equalsIgnoreCase("critical")) {
@@ -52,7 +52,7 @@ public class MythicCommands extends RPGCommandReceiver {
                 if (rate != null) {
                     item.setMythicSkillCriticalRate(rate);
                     msgs(sender, "message.mythic.skill-critical-damage.rate.set", item.getName(), item.getMythicSkillCriticalRate());
-                    ItemManager.save(item);
+                    ItemManager.save(item, sender);
                     return;
                 }
             } else if (subType.equalsIgnoreCase("damage")) {
@@ -60,7 +60,7 @@ public class MythicCommands extends RPGCommandReceiver {
                 if (damage != null) {
                     item.setMythicSkillCriticalDamage(damage);
                     msgs(sender, "message.mythic.skill-critical-damage.damage.set", item.getName(), item.getMythicSkillCriticalDamage());
-                    ItemManager.save(item);
+                    ItemManager.save(item, sender);
                     return;
                 }
             } else if (subType.equalsIgnoreCase("multiple")) {
@@ -68,7 +68,7 @@ public class MythicCommands extends RPGCommandReceiver {
                 if (multiple != null) {
                     item.setMythicSkillCriticalDamageMultiple(multiple);
                     msgs(sender, "message.mythic.skill-critical-damage.multiple.set", item.getName(), item.getMythicSkillCriticalDamageMultiple());
-                    ItemManager.save(item);
+                    ItemManager.save(item, sender);
                     return;
                 }
             }
@@ -90,7 +90,7 @@ public class PowerCommands extends RPGCommandReceiver {
             power = initPropertyHolder(sender, args, item, cls);
             item.addPower(key, power);
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msg(sender, "message.power.ok", powerStr, item.getPowers().size() - 1);
         } catch (Exception e) {
             if (e instanceof BadCommandException) {
@@ -182,7 +182,7 @@ public class PowerCommands extends RPGCommandReceiver {
             setPropertyHolder(sender, args, power.getClass(), power, false);
             item.rebuild();
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.power.change");
         } catch (UnknownExtensionException e) {
             msgs(sender, "message.error.unknown.extension", e.getName());
@@ -282,7 +282,7 @@ public class PowerCommands extends RPGCommandReceiver {
             item.getPowers().remove(nth);
             NamespacedKey key = item.removePropertyHolderKey(power);
             item.rebuild();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.power.removed", key.toString(), nth);
         } catch (UnknownExtensionException e) {
             msgs(sender, "message.error.unknown.extension", e.getName());
@@ -320,8 +320,9 @@ public class PowerCommands extends RPGCommandReceiver {
         }
         Power remove = item.getPowers().remove(origin);
         item.getPowers().add(next, remove);
+        item.rebuild();
         ItemManager.refreshItem();
-        ItemManager.save(item);
+        ItemManager.save(item, sender);
         msg(sender, "message.power.reorder", remove.getName(), next);
     }
 
@@ -54,7 +54,7 @@ public class TemplateCommands extends RPGCommandReceiver {
         }
         rpgItem.setTemplate(true);
         rpgItem.setTemplatePlaceHolders(placeHolder);
-        ItemManager.save(rpgItem);
+        ItemManager.save(rpgItem, sender);
         new Message("").append(I18n.getInstance(sender).format("command.template.create.success", itemName)).send(sender);
     }
 
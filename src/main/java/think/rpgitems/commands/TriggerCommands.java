@@ -82,7 +82,7 @@ public class TriggerCommands extends RPGCommandReceiver {
         try {
             item.addTrigger(name, setPropertyHolder(sender, args, base.getClass(), trigger, true));
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.trigger.ok");
         } catch (Exception e) {
             if (e instanceof CommandException) {
@@ -136,7 +136,7 @@ public class TriggerCommands extends RPGCommandReceiver {
             setPropertyHolder(sender, args, trigger.getClass(), trigger, false);
             item.rebuild();
             ItemManager.refreshItem();
-            ItemManager.save(item);
+            ItemManager.save(item, sender);
             msgs(sender, "message.trigger.change");
         } catch (UnknownExtensionException e) {
             msgs(sender, "message.error.unknown.extension", e.getName());
@@ -173,7 +173,7 @@ public class TriggerCommands extends RPGCommandReceiver {
             msgs(sender, "message.trigger.unknown", name);
             return;
         }
-        item.getTriggers().remove(name);
+        item.removeTrigger(name);
         msgs(sender, "message.trigger.removed");
     }
 
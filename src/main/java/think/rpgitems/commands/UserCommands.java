@@ -5,6 +5,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.persistence.PersistentDataContainer;
 import think.rpgitems.RPGItems;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.ItemManager;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.Completion;
@@ -54,6 +55,7 @@ public class UserCommands extends RPGCommandReceiver {
         ItemStack itemStack = p.getInventory().getItemInMainHand();
         item.toModel(p, itemStack);
         p.getInventory().setItemInMainHand(itemStack);
+        EquipmentIndex.markDirty(p);
         msg(p, "message.model.to");
     }
 
@@ -1,6 +1,5 @@
 package think.rpgitems.data;
 
-import think.rpgitems.utils.nyaacore.Pair;
 import org.bukkit.Location;
 import org.bukkit.entity.LivingEntity;
 
@@ -8,11 +7,17 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public class Context {
     private static final Context instance = new Context();
+    /**
+     * Value returned by {@link #getCooldown(UUID, String)} when there is no running cooldown
+     */
+    public static final long NO_COOLDOWN = Long.MIN_VALUE;
+    private static final int COOLDOWN_SWEEP_TICKS = 20;
     private final HashMap<UUID, ExpiringMap<String, Object>> storage = new HashMap<>();
+    private final HashMap<UUID, Map<String, long[]>> cooldowns = new HashMap<>();
+    private int ticks = 0;
 
     public static Context instance() {
         return instance;
@@ -67,8 +72,15 @@ public class Context {
 
     public Object get(UUID context, String key) {
         ExpiringMap<String, Object> local = storage.get(context);
-        if (local == null) return null;
-        return local.get(key);
+        Object obj = local == null ? null : local.get(key);
+        if (obj == null) {
+            // cooldowns used to live in this map, keep them visible to expressions
+            long cooldown = getCooldown(context, key);
+            if (cooldown != NO_COOLDOWN) {
+                return cooldown;
+            }
+        }
+        return obj;
     }
 
     public void put(UUID context, String key, Object obj) {
@@ -80,7 +92,9 @@ public class Context {
     }
 
     public void removeTemp(UUID context, String key){
-        storage.computeIfAbsent(context, uuid -> new ExpiringMap<>()).remove(key);
+        ExpiringMap<String, Object> local = storage.get(context);
+        if (local == null) return;
+        local.remove(key);
     }
 
     public void put(UUID context, String key, Object obj, long expire) {
@@ -91,6 +105,25 @@ public class Context {
         put(context, key, obj, getCurrentMillis() + expiringSeconds * 10L);
     }
 
+    /**
+     * @return The millis the cooldown ends at, or {@link #NO_COOLDOWN} if it is not cooling down
+     */
+    public long getCooldown(UUID context, String key) {
+        Map<String, long[]> local = cooldowns.get(context);
+        if (local == null) return NO_COOLDOWN;
+        long[] until = local.get(key);
+        if (until == null || until[0] < getCurrentMillis()) return NO_COOLDOWN;
+        return until[0];
+    }
+
+    /**
+     * @param until The millis the cooldown ends at, see {@link #getCurrentMillis()}
+     */
+    public void setCooldown(UUID context, String key, long until) {
+        long[] holder = cooldowns.computeIfAbsent(context, (ignored) -> new HashMap<>()).computeIfAbsent(key, (ignored) -> new long[1]);
+        holder[0] = until;
+    }
+
     public void cleanTemp(UUID context) {
         ExpiringMap<String, Object> local = storage.get(context);
         if (local == null) return;
@@ -98,17 +131,36 @@ public class Context {
     }
 
     public void cleanTick() {
-        for (ExpiringMap<String, Object> local : storage.values()) {
-            local.cleanup(null, null, ExpiringMap.TICK);
+        long currentMillis = getCurrentMillis();
+        Iterator<ExpiringMap<String, Object>> iterator = storage.values().iterator();
+        while (iterator.hasNext()) {
+            ExpiringMap<String, Object> local = iterator.next();
+            local.sweep(currentMillis);
+            if (local.inner.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        if (++ticks % COOLDOWN_SWEEP_TICKS == 0) {
+            cooldowns.values().removeIf(local -> {
+                local.values().removeIf(until -> until[0] < currentMillis);
+                return local.isEmpty();
+            });
         }
     }
 
+    /**
+     * A hash map whose entries expire at a given millis.
+     * <p>
+     * Expiry is checked lazily on lookup, and {@link #sweep(long)} drops expired entries in deadline order,
+     * so neither has to scan the whole map.
+     */
     public static class ExpiringMap<K, V> implements Map<K, V> {
         private static final long TEMP = Long.MAX_VALUE;
-        private static final long TICK = Long.MAX_VALUE - 1;
         private final int aliveAge;
         private final HashMap<K, Long> birth = new HashMap<>();
         private final HashMap<K, V> inner;
+        private final PriorityQueue<Deadline<K>> deadlines = new PriorityQueue<>(Comparator.comparingLong(Deadline::at));
+        private final List<K> temps = new ArrayList<>();
 
         public ExpiringMap() {
             this(0);
@@ -125,8 +177,12 @@ public class Context {
         }
 
         private void rec(K i, long birth) {
-            this.birth.put(i, birth);
-            this.cleanup();
+            Long old = this.birth.put(i, birth);
+            if (birth == TEMP) {
+                if (old == null || old != TEMP) temps.add(i);
+            } else {
+                deadlines.add(new Deadline<>(birth + aliveAge, birth, i));
+            }
         }
 
         private void rec(K key) {
@@ -134,40 +190,49 @@ public class Context {
             rec(key, currentMillis);
         }
 
+        private boolean alive(long birth, long currentMillis) {
+            return currentMillis - birth <= (long) this.aliveAge;
+        }
+
+        /**
+         * Drops all expired entries
+         */
         public void cleanup() {
-            cleanup(null, null, null);
+            sweep(getCurrentMillis());
         }
 
+        /**
+         * Drops all entries put by {@link #putTemp(Object, Object)}
+         */
         public void cleanupTemp() {
-            cleanup(null, null, TEMP);
+            if (temps.isEmpty()) return;
+            for (K key : temps) {
+                Long b = birth.get(key);
+                if (b != null && b == TEMP) {
+                    birth.remove(key);
+                    inner.remove(key);
+                }
+            }
+            temps.clear();
         }
 
-        @Nullable
-        public Pair<K, V> cleanup(Object findKey, Object findValue, Long removing) {
-            long currentMillis = getCurrentMillis();
-            Iterator<Map.Entry<K, Long>> expireIter = this.birth.entrySet().iterator();
-
-            while (expireIter.hasNext()) {
-                Map.Entry<K, Long> entry = expireIter.next();
-                K key = entry.getKey();
-                V value = inner.get(key);
-                Long birth = entry.getValue();
-
-                if ((currentMillis - birth <= (long) this.aliveAge)
-                            && !Objects.equals(birth, removing)) {
-                    if (Objects.equals(findKey, key)) {
-                        return Pair.of(key, value);
-                    }
-                    if (value != null && Objects.equals(findValue, value)) {
-                        return Pair.of(key, value);
-                    }
-                    continue;
+        /**
+         * Drops entries expired before {@code currentMillis}, in deadline order
+         */
+        public void sweep(long currentMillis) {
+            Deadline<K> head;
+            while ((head = deadlines.peek()) != null && !alive(head.birth(), currentMillis)) {
+                deadlines.poll();
+                Long b = birth.get(head.key());
+                // the key may have been put again since
+                if (b != null && b == head.birth()) {
+                    birth.remove(head.key());
+                    inner.remove(head.key());
                 }
-
-                inner.remove(key);
-                expireIter.remove();
             }
-            return null;
+            if (birth.isEmpty() && !deadlines.isEmpty()) {
+                deadlines.clear();
+            }
         }
 
         @Override
@@ -184,21 +249,26 @@ public class Context {
 
         @Override
         public boolean containsKey(Object key) {
-            return this.cleanup(key, null, null) == null;
+            Long b = birth.get(key);
+            if (b == null) return false;
+            if (alive(b, getCurrentMillis())) return true;
+            remove(key);
+            return false;
         }
 
         @Override
         public boolean containsValue(Object value) {
-            return this.cleanup(null, value, null) == null;
+            this.cleanup();
+            return inner.containsValue(value);
         }
 
         @Override
         public V get(Object key) {
-            Pair<K, V> cleanup = this.cleanup(key, null, null);
-            if (cleanup == null) {
-                return null;
-            }
-            return cleanup.getValue();
+            Long b = birth.get(key);
+            if (b == null) return null;
+            if (alive(b, getCurrentMillis())) return inner.get(key);
+            remove(key);
+            return null;
         }
 
         @Override
@@ -226,15 +296,16 @@ public class Context {
         @Override
         public void putAll(@Nonnull Map<? extends K, ? extends V> map) {
             long currentMillis = getCurrentMillis();
-            birth.putAll(map.keySet().stream().collect(Collectors.toMap(e -> e, e -> currentMillis)));
+            map.keySet().forEach(k -> rec(k, currentMillis));
             inner.putAll(map);
-            cleanup();
         }
 
         @Override
         public void clear() {
             birth.clear();
             inner.clear();
+            deadlines.clear();
+            temps.clear();
         }
 
         @Override
@@ -246,8 +317,11 @@ public class Context {
 
         @Override
         public V computeIfAbsent(K key, Function<? super K, ? extends V> value) {
-            this.birth.put(key, getCurrentMillis());
-            return inner.computeIfAbsent(key, value);
+            V v = get(key);
+            if (v != null) return v;
+            v = value.apply(key);
+            if (v != null) put(key, v);
+            return v;
         }
 
         @Override
@@ -263,5 +337,8 @@ public class Context {
             this.cleanup();
             return inner.entrySet();
         }
+
+        private record Deadline<K>(long at, long birth, K key) {
+        }
     }
 }
@@ -1,9 +1,8 @@
 package think.rpgitems.data;
 
-import com.udojava.evalex.Expression;
 import think.rpgitems.RPGItems;
+import think.rpgitems.utils.CompiledExpression;
 
-import java.math.BigDecimal;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.logging.Level;
@@ -23,11 +22,11 @@ public class Factor {
 
     public void updateCompare() {
         damageToCompare.clear();
-        BigDecimal compareNumber = BigDecimal.valueOf(10.0);
+        double compareNumber = 10.0;
         for (Map.Entry<String, String> entry : damageTo.entrySet()) {
             try {
-                BigDecimal damage = new Expression(entry.getValue()).with("damage", compareNumber).eval();
-                damageToCompare.put(entry.getKey(), damage.compareTo(compareNumber));
+                double damage = CompiledExpression.compile(entry.getValue(), "damage").eval(compareNumber);
+                damageToCompare.put(entry.getKey(), Double.compare(damage, compareNumber));
 
             } catch (Throwable t) {
                 RPGItems.logger.log(Level.WARNING, "Eval damage expression `" + entry.getValue() + "` failed! damage=" + compareNumber, t);
@@ -1,43 +1,70 @@
 package think.rpgitems.data;
 
-import com.udojava.evalex.Expression;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.LivingEntity;
+import org.bukkit.inventory.EquipmentSlot;
 import org.jetbrains.annotations.Nullable;
 import think.rpgitems.api.IFactorDefiner;
-import think.rpgitems.item.ItemManager;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.RPGItem;
+import think.rpgitems.utils.CompiledExpression;
 import think.rpgitems.utils.nyaacore.Pair;
 import think.rpgitems.utils.nyaacore.configuration.ISerializable;
 
-import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import static think.rpgitems.RPGItems.plugin;
 
 public class FactorConfig implements ISerializable {
+    private static final int SWEEP_PERIOD = 200;
+    // slot order modifiers are applied in
+    private static final EquipmentSlot[] MODIFIER_ORDER = {EquipmentSlot.HAND, EquipmentSlot.OFF_HAND, EquipmentSlot.FEET, EquipmentSlot.LEGS, EquipmentSlot.CHEST, EquipmentSlot.HEAD};
     List<IFactorDefiner> definerList = new ArrayList<>();
     Map<String, Factor> factors = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
     List<Pair<Set<String>, String>> conflictOverrides = new ArrayList<>();
+    // factor of each entity as defined by cacheable definers, null factors included
+    private final Map<UUID, CachedFactor> cache = new ConcurrentHashMap<>();
+    private volatile int nextSweep = 0;
+    // compiled damage_to expressions by attacker and victim factor index, built on first use
+    private CompiledExpression[][] damageTable;
+    private Map<Factor, Integer> factorIndex;
 
     public void addFactor(Factor factor) {
         factors.put(factor.id, factor);
+        damageTable = null;
+        invalidateAll();
     }
 
     public void addConflictOverride(Collection<String> conflictFactors, String override) {
         Set<String> factors = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
         factors.addAll(conflictFactors);
         conflictOverrides.add(Pair.of(factors, override));
+        invalidateAll();
     }
 
     public void clearDefiner() {
         definerList.clear();
+        invalidateAll();
     }
 
     public void addDefiner(IFactorDefiner definer) {
         definerList.add(definer);
         definerList.sort(Comparator.comparingInt(IFactorDefiner::priority));
+        invalidateAll();
+    }
+
+    /**
+     * Drops the cached factor of the entity, so it is defined again on next use
+     */
+    public void invalidate(UUID entity) {
+        cache.remove(entity);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
     }
 
     /**
@@ -47,6 +74,8 @@ public class FactorConfig implements ISerializable {
     public void deserialize(ConfigurationSection config) {
         factors.clear();
         conflictOverrides.clear();
+        damageTable = null;
+        invalidateAll();
         ConfigurationSection section = config.getConfigurationSection("factors");
         if (section != null) for (String factorId : section.getKeys(false)) {
             String name = section.getString(factorId + ".name", factorId);
@@ -87,14 +116,39 @@ public class FactorConfig implements ISerializable {
         return factors.get(id);
     }
 
+    /**
+     * Defines the factor of the entity by the first definer with a result.
+     * The result is cached for {@code general.factor.cache_ttl} ticks if every definer consulted for it is cacheable.
+     */
     @Nullable
     public Factor getFactor(LivingEntity entity) {
+        int now = Bukkit.getCurrentTick();
+        UUID uuid = entity.getUniqueId();
+        CachedFactor cached = cache.get(uuid);
+        if (cached != null && cached.expires() > now) return cached.factor();
+        boolean cacheable = true;
+        Factor result = null;
         for (IFactorDefiner definer : definerList) {
+            cacheable &= definer.cacheable(entity);
             String id = definer.define(entity);
             Factor factor = id == null ? null : getFactor(id);
-            if (factor != null) return factor;
+            if (factor != null) {
+                result = factor;
+                break;
+            }
         }
-        return null;
+        int ttl = plugin.cfg.factorCacheTtl;
+        if (cacheable && ttl > 0) {
+            cache.put(uuid, new CachedFactor(result, now + ttl));
+            if (now >= nextSweep) {
+                // drop entries of entities gone since
+                cache.values().removeIf(c -> c.expires() <= now);
+                nextSweep = now + SWEEP_PERIOD;
+            }
+        } else if (cached != null) {
+            cache.remove(uuid);
+        }
+        return result;
     }
 
     public List<String> getFactorList() {
@@ -121,41 +175,45 @@ public class FactorConfig implements ISerializable {
     }
 
     public double getDamage(LivingEntity damager, LivingEntity entity, double damage) {
+        return getDamage(getFactor(damager), getFactor(entity), EquipmentIndex.of(damager), EquipmentIndex.of(entity), damage);
+    }
+
+    /**
+     * Applies the factor damage and the factor modifiers of equipped items, from factors and equipment already resolved
+     */
+    public double getDamage(@Nullable Factor factorDamager, @Nullable Factor factorEntity, @Nullable EquipmentIndex.Snapshot damagerEquipment, @Nullable EquipmentIndex.Snapshot entityEquipment, double damage) {
         double finDamage = damage;
-        Factor factorDamager = getFactor(damager);
-        Factor factorEntity = getFactor(entity);
         if (factorEntity != null && factorDamager != null) {
 
-            String expression = factorDamager.damageTo.get(factorEntity.id);
+            CompiledExpression expression = getDamageTo(factorDamager, factorEntity);
             if (expression != null) try {
 
-                Expression exp = new Expression(expression)
-                        .with("damage", BigDecimal.valueOf(damage));
-                finDamage = exp.eval().doubleValue();
+                finDamage = expression.eval(damage);
 
             } catch (Throwable t) {
                 plugin.getLogger().log(Level.WARNING,
                         "There are something wrong while processing factor damage. " +
                                 "originalDamage=" + damage + ", " +
-                                "expression=`" + expression + "`", t);
+                                "expression=`" + expression.getSource() + "`", t);
             }
         }
 
-        Collection<RPGItem> items;
-        if (factorEntity != null) {
+        if (factorEntity != null && damagerEquipment != null && !damagerEquipment.isEmpty()) {
             // attack damage override
-            items = ItemManager.getEquipments(damager).values();
-            for (RPGItem rpg : items) {
+            for (EquipmentSlot slot : MODIFIER_ORDER) {
+                RPGItem rpg = damagerEquipment.get(slot);
+                if (rpg == null) continue;
                 FactorModifier modifier = rpg.getFactorModifiers().get(factorEntity.id);
                 if (modifier != null) {
                     finDamage = modifier.attack(factorEntity.id, finDamage);
                 }
             }
         }
-        if (factorDamager != null) {
+        if (factorDamager != null && entityEquipment != null && !entityEquipment.isEmpty()) {
             // defend damage override
-            items = ItemManager.getEquipments(entity).values();
-            for (RPGItem rpg : items) {
+            for (EquipmentSlot slot : MODIFIER_ORDER) {
+                RPGItem rpg = entityEquipment.get(slot);
+                if (rpg == null) continue;
                 FactorModifier modifier = rpg.getFactorModifiers().get(factorDamager.id);
                 if (modifier != null) {
                     finDamage = modifier.defend(factorDamager.id, finDamage);
@@ -165,4 +223,49 @@ public class FactorConfig implements ISerializable {
 
         return finDamage;
     }
+
+    /**
+     * @return Compiled damage_to expression of the attacker factor against the victim factor, or null if it has none
+     */
+    @Nullable
+    private CompiledExpression getDamageTo(Factor attacker, Factor victim) {
+        CompiledExpression[][] table = damageTable;
+        if (table == null) {
+            table = buildDamageTable();
+        }
+        Integer a = factorIndex.get(attacker);
+        Integer v = factorIndex.get(victim);
+        if (a == null || v == null) {
+            // factor not from this config
+            String expression = attacker.damageTo.get(victim.id);
+            return expression == null ? null : CompiledExpression.compile(expression, "damage");
+        }
+        return table[a][v];
+    }
+
+    private CompiledExpression[][] buildDamageTable() {
+        List<Factor> list = new ArrayList<>(factors.values());
+        Map<Factor, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            index.put(list.get(i), i);
+        }
+        CompiledExpression[][] table = new CompiledExpression[list.size()][list.size()];
+        for (int a = 0; a < list.size(); a++) {
+            for (int v = 0; v < list.size(); v++) {
+                String expression = list.get(a).damageTo.get(list.get(v).id);
+                if (expression == null) continue;
+                try {
+                    table[a][v] = CompiledExpression.compile(expression, "damage");
+                } catch (Throwable t) {
+                    plugin.getLogger().log(Level.WARNING, "Invalid factor damage expression `" + expression + "` of " + list.get(a).id + " to " + list.get(v).id, t);
+                }
+            }
+        }
+        factorIndex = index;
+        damageTable = table;
+        return table;
+    }
+
+    private record CachedFactor(@Nullable Factor factor, int expires) {
+    }
 }
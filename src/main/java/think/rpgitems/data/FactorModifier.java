@@ -1,11 +1,10 @@
 package think.rpgitems.data;
 
-import com.udojava.evalex.Expression;
 import lombok.Getter;
 import lombok.Setter;
 import org.bukkit.configuration.ConfigurationSection;
+import think.rpgitems.utils.CompiledExpression;
 
-import java.math.BigDecimal;
 import java.util.logging.Level;
 
 import static think.rpgitems.RPGItems.plugin;
@@ -47,9 +46,7 @@ public class FactorModifier {
 
     public double attack(double damage) {
         try {
-            Expression exp = new Expression(attack)
-                    .with("damage", BigDecimal.valueOf(damage));
-            return exp.eval().doubleValue();
+            return CompiledExpression.compile(attack, "damage").eval(damage);
         } catch (Throwable t) {
             plugin.getLogger().log(Level.WARNING,
                     "There are something wrong while processing factor modifier damage (attack). " +
@@ -61,9 +58,7 @@ public class FactorModifier {
 
     public double defend(double damage) {
         try {
-            Expression exp = new Expression(attack)
-                    .with("damage", BigDecimal.valueOf(damage));
-            return exp.eval().doubleValue();
+            return CompiledExpression.compile(attack, "damage").eval(damage);
         } catch (Throwable t) {
             plugin.getLogger().log(Level.WARNING,
                     "There are something wrong while processing factor modifier damage (defend). " +
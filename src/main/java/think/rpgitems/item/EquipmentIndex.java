@@ -0,0 +1,304 @@
+package think.rpgitems.item;
+
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.EntityEquipment;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import think.rpgitems.api.Factors;
+import think.rpgitems.power.trigger.BaseTriggers;
+import think.rpgitems.utils.nms.NMS;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-player index of the RPG items in armour and hands, and of the inventory stacks whose items have
+ * {@link BaseTriggers#HIT_GLOBAL} powers.
+ * <p>
+ * Equipment events mark a player dirty, and the player's slots are read again on every lookup until the
+ * tick after the event, when the change has been applied. Indexed stacks used up in place are noticed on lookup, stacks
+ * replaced without an event are noticed by {@link #verify(Player)} when the player is ticked, and every player is also
+ * reconciled once per {@link #RECONCILE_PERIOD} ticks, to catch other changes made without an event.
+ * The inventory is only scanned when its index is looked up after such a change.
+ */
+public final class EquipmentIndex {
+    /**
+     * Indexed slots, in the order of {@link Snapshot#getItems()}
+     */
+    public static final EquipmentSlot[] SLOTS = {EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET, EquipmentSlot.HAND, EquipmentSlot.OFF_HAND};
+    private static final int RECONCILE_PERIOD = 20;
+    private static final Map<UUID, Snapshot> index = new HashMap<>();
+    private static long currentTick = 0;
+
+    private EquipmentIndex() {
+    }
+
+    /**
+     * @return Up-to-date equipment of the player
+     */
+    public static Snapshot get(Player player) {
+        Snapshot snapshot = index.computeIfAbsent(player.getUniqueId(), k -> new Snapshot());
+        if (snapshot.refreshed < 0 || currentTick <= snapshot.dirtyUntil || !snapshot.isValid()) {
+            snapshot.refresh(player.getInventory());
+            snapshot.refreshed = currentTick;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return Up-to-date equipment of the entity, read from the index for players. Null if the entity has no equipment.
+     */
+    public static Snapshot of(LivingEntity entity) {
+        if (entity instanceof Player player) {
+            return get(player);
+        }
+        EntityEquipment equipment = entity.getEquipment();
+        if (equipment == null) return null;
+        Snapshot snapshot = new Snapshot();
+        snapshot.refresh(equipment);
+        return snapshot;
+    }
+
+    /**
+     * @return Up-to-date inventory stacks of the player whose items have {@link BaseTriggers#HIT_GLOBAL} powers
+     */
+    public static GlobalStacks getGlobalHit(Player player) {
+        Snapshot snapshot = index.computeIfAbsent(player.getUniqueId(), k -> new Snapshot());
+        GlobalStacks global = snapshot.globalHit;
+        if (global.refreshed < 0 || currentTick <= snapshot.dirtyUntil || !global.isValid()) {
+            global.refresh(player.getInventory());
+            global.refreshed = currentTick;
+        }
+        return global;
+    }
+
+    /**
+     * Checks that the indexed stacks are still the ones in the slots, comparing the backing NMS stacks by identity,
+     * and marks the player dirty if a slot was written without an event.
+     *
+     * @return Up-to-date equipment of the player
+     */
+    public static Snapshot verify(Player player) {
+        Snapshot snapshot = get(player);
+        if (snapshot.isEmpty() || snapshot.refreshed == currentTick) return snapshot;
+        PlayerInventory inventory = player.getInventory();
+        for (int i = 0; i < SLOTS.length; i++) {
+            if (handleOf(inventory.getItem(SLOTS[i])) != handleOf(snapshot.stacks[i])) {
+                markDirty(player);
+                return get(player);
+            }
+        }
+        return snapshot;
+    }
+
+    private static Object handleOf(ItemStack stack) {
+        // empty slots may be read as null or as an air stack
+        return stack == null || stack.getType().isAir() ? null : NMS.stackTools().getHandle(stack);
+    }
+
+    /**
+     * Marks the player's equipment as possibly changed by the event being handled
+     */
+    public static void markDirty(Player player) {
+        index.computeIfAbsent(player.getUniqueId(), k -> new Snapshot()).dirtyUntil = currentTick + 1;
+        // the built-in factor definer reads equipment
+        Factors.invalidate(player);
+    }
+
+    public static void remove(Player player) {
+        index.remove(player.getUniqueId());
+        Factors.invalidate(player);
+    }
+
+    /**
+     * Drop all snapshots, since the items they refer to may be reloaded
+     */
+    public static void clear() {
+        index.clear();
+        Factors.invalidateAll();
+    }
+
+    /**
+     * @return Count of indexed players having any RPG item equipped
+     */
+    public static int getEquippedCount() {
+        int count = 0;
+        for (Snapshot snapshot : index.values()) {
+            if (!snapshot.isEmpty()) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Advances the index by one tick and schedules the reconcile of a share of the players
+     */
+    public static void tick() {
+        long tick = ++currentTick;
+        for (Map.Entry<UUID, Snapshot> entry : index.entrySet()) {
+            if (entry.getValue().dirtyUntil == tick - 1) {
+                // factors cached while the change was being applied
+                Factors.invalidate(entry.getKey());
+            }
+            if (((entry.getKey().hashCode() & Integer.MAX_VALUE) + tick) % RECONCILE_PERIOD == 0) {
+                entry.getValue().refreshed = -1;
+                entry.getValue().globalHit.refreshed = -1;
+            }
+        }
+    }
+
+    /**
+     * @return Index of the slot in {@link #SLOTS}, or -1 if it is not indexed
+     */
+    public static int indexOf(EquipmentSlot slot) {
+        return switch (slot) {
+            case HEAD -> 0;
+            case CHEST -> 1;
+            case LEGS -> 2;
+            case FEET -> 3;
+            case HAND -> 4;
+            case OFF_HAND -> 5;
+            default -> -1;
+        };
+    }
+
+    public static final class Snapshot {
+        private final RPGItem[] items = new RPGItem[SLOTS.length];
+        private final ItemStack[] stacks = new ItemStack[SLOTS.length];
+        private boolean empty = true;
+        private final GlobalStacks globalHit = new GlobalStacks();
+        private long refreshed = -1;
+        private long dirtyUntil = -1;
+
+        private void refresh(EntityEquipment equipment) {
+            stacks[0] = equipment.getHelmet();
+            stacks[1] = equipment.getChestplate();
+            stacks[2] = equipment.getLeggings();
+            stacks[3] = equipment.getBoots();
+            stacks[4] = equipment.getItemInMainHand();
+            stacks[5] = equipment.getItemInOffHand();
+            empty = true;
+            for (int i = 0; i < SLOTS.length; i++) {
+                items[i] = ItemManager.toRPGItem(stacks[i]).orElse(null);
+                if (items[i] != null) empty = false;
+            }
+        }
+
+        /**
+         * @return Whether every indexed RPG item stack is still there, they are emptied in place when used up
+         */
+        private boolean isValid() {
+            for (int i = 0; i < SLOTS.length; i++) {
+                if (items[i] == null) continue;
+                ItemStack stack = stacks[i];
+                if (stack == null || stack.getType().isAir() || stack.getAmount() <= 0) return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return Whether no slot holds an RPG item
+         */
+        public boolean isEmpty() {
+            return empty;
+        }
+
+        /**
+         * @return RPG items by slot in {@link EquipmentIndex#SLOTS} order, null for slots without one. Must not be modified.
+         */
+        public RPGItem[] getItems() {
+            return items;
+        }
+
+        /**
+         * @return Stacks by slot in {@link EquipmentIndex#SLOTS} order. Must not be modified.
+         */
+        public ItemStack[] getStacks() {
+            return stacks;
+        }
+
+        public RPGItem get(EquipmentSlot slot) {
+            int i = indexOf(slot);
+            return i < 0 ? null : items[i];
+        }
+
+        public ItemStack getStack(EquipmentSlot slot) {
+            int i = indexOf(slot);
+            return i < 0 ? null : stacks[i];
+        }
+
+        public Map<EquipmentSlot, RPGItem> toMap() {
+            Map<EquipmentSlot, RPGItem> map = new EnumMap<>(EquipmentSlot.class);
+            for (int i = 0; i < SLOTS.length; i++) {
+                if (items[i] != null) map.put(SLOTS[i], items[i]);
+            }
+            return map;
+        }
+
+    }
+
+    /**
+     * Inventory stacks of a player whose items have {@link BaseTriggers#HIT_GLOBAL} powers, in slot order
+     */
+    public static final class GlobalStacks {
+        private static final int[] NO_SLOTS = new int[0];
+        private int[] slots = NO_SLOTS;
+        private ItemStack[] stacks = new ItemStack[0];
+        private RPGItem[] items = new RPGItem[0];
+        private long refreshed = -1;
+
+        private void refresh(PlayerInventory inventory) {
+            ItemStack[] contents = inventory.getContents();
+            int count = 0;
+            int[] found = new int[contents.length];
+            RPGItem[] foundItems = new RPGItem[contents.length];
+            for (int slot = 0; slot < contents.length; slot++) {
+                ItemStack stack = contents[slot];
+                if (stack == null || stack.getType().isAir()) continue;
+                RPGItem item = ItemManager.toRPGItem(stack).orElse(null);
+                if (item == null || !item.hasTrigger(BaseTriggers.HIT_GLOBAL)) continue;
+                found[count] = slot;
+                foundItems[count++] = item;
+            }
+            slots = count == 0 ? NO_SLOTS : Arrays.copyOf(found, count);
+            items = Arrays.copyOf(foundItems, count);
+            stacks = new ItemStack[count];
+            for (int i = 0; i < count; i++) {
+                stacks[i] = contents[slots[i]];
+            }
+        }
+
+        /**
+         * @return Whether every indexed stack is still there, they are emptied in place when used up
+         */
+        private boolean isValid() {
+            for (ItemStack stack : stacks) {
+                if (stack.getType().isAir() || stack.getAmount() <= 0) return false;
+            }
+            return true;
+        }
+
+        public int size() {
+            return slots.length;
+        }
+
+        /**
+         * @return Inventory slot of the i-th stack, as in {@link PlayerInventory#getItem(int)}
+         */
+        public int getSlot(int i) {
+            return slots[i];
+        }
+
+        public ItemStack getStack(int i) {
+            return stacks[i];
+        }
+
+        public RPGItem getItem(int i) {
+            return items[i];
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import think.rpgitems.RPGItems;
+import think.rpgitems.support.WGSupport;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -83,11 +84,13 @@ public class ItemGroup {
             itemUids.remove(uid);
             throw e;
         }
+        WGSupport.invalidateItems();
     }
 
     public void removeItem(RPGItem item) {
         itemUids.remove(item.getUid());
         items.remove(item);
+        WGSupport.invalidateItems();
     }
 
     public void save(ConfigurationSection s) {
@@ -160,6 +163,7 @@ public class ItemGroup {
 
     private void setItems(Set<RPGItem> items) {
         this.items = items;
+        WGSupport.invalidateItems();
     }
 
     public void setLicense(String license) {
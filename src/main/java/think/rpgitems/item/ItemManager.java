@@ -1,7 +1,6 @@
 package think.rpgitems.item;
 
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.inventory.EntityEquipment;
 import org.bukkit.inventory.EquipmentSlot;
 import think.rpgitems.utils.nyaacore.Message;
 import think.rpgitems.utils.nyaacore.Pair;
@@ -13,6 +12,7 @@ import org.bukkit.Material;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.ConsoleCommandSender;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
@@ -28,6 +28,7 @@ import think.rpgitems.event.ItemsLoadedEvent;
 import think.rpgitems.power.UnknownExtensionException;
 import think.rpgitems.power.UnknownPowerException;
 import think.rpgitems.support.WGSupport;
+import think.rpgitems.utils.nms.ItemIdentity;
 import think.rpgitems.utils.nyaacore.utils.ItemTagUtils;
 
 import java.io.File;
@@ -35,13 +36,14 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import static think.rpgitems.item.RPGItem.*;
@@ -124,15 +126,20 @@ public class ItemManager {
     }
 
     public static void unload() {
+        ItemWatcher.stop();
+        SaveQueue.flushAll();
         itemByName.values().forEach(RPGItem::deinit);
         itemById = new HashMap<>();
         itemByName = new HashMap<>();
         groupById = new HashMap<>();
         groupByName = new HashMap<>();
+        WGSupport.invalidateItems();
+        EquipmentIndex.clear();
         resetLock();
     }
 
     public static void refreshItem() {
+        itemByName.values().forEach(RPGItem::invalidateRendered);
         for (Player player : Bukkit.getOnlinePlayers()) {
             for (ItemStack item : player.getInventory()) {
                 Optional<RPGItem> rpgItem = ItemManager.toRPGItemByMeta(item);
@@ -171,6 +178,9 @@ public class ItemManager {
         setBackupsDir(mkbkdir());
         load(getItemsDir(), plugin.cfg.itemShowLoaded ? Bukkit.getConsoleSender() : null);
         groupById.values().forEach(ItemGroup::refresh);
+        if (plugin.cfg.itemHotReload) {
+            ItemWatcher.start(getItemsDir());
+        }
         Bukkit.getScheduler().runTask(plugin, () -> Bukkit.getPluginManager().callEvent(new ItemsLoadedEvent()));
     }
 
@@ -186,21 +196,146 @@ public class ItemManager {
                 throw new IllegalStateException("Trying to load " + file + " that does not exist.");
             }
             if (file.isDirectory()) {
-                File[] subFiles = file.listFiles(f -> !f.getName().startsWith(".") && ((f.isFile() && f.getName().endsWith("yml")) || f.isDirectory()));
-                if (Objects.requireNonNull(subFiles).length == 0) {
-                    if (sender != null) {
-                        new Message(I18n.formatDefault("message.item.empty_dir", file.getPath())).send(sender);
-                    } else {
-                        new Message(I18n.formatDefault("message.item.empty_dir", file.getPath())).send(Bukkit.getConsoleSender());
+                List<File> files = new ArrayList<>();
+                collect(file, sender, files);
+                boolean useSnapshot = plugin.cfg.itemSnapshotCache && file.getCanonicalFile().equals(getItemsDir().getCanonicalFile());
+                loadAll(files, sender, useSnapshot ? ItemSnapshot.read(getSnapshotFile()) : null);
+                return false;
+            }
+            return publish(file, null, sender);
+        } catch (Exception e) {
+            reportError(file, e, sender);
+        }
+        return false;
+    }
+
+    private static void collect(File dir, CommandSender sender, List<File> files) {
+        File[] subFiles = dir.listFiles(f -> !f.getName().startsWith(".") && ((f.isFile() && f.getName().endsWith("yml")) || f.isDirectory()));
+        if (Objects.requireNonNull(subFiles).length == 0) {
+            if (sender != null) {
+                new Message(I18n.formatDefault("message.item.empty_dir", dir.getPath())).send(sender);
+            } else {
+                new Message(I18n.formatDefault("message.item.empty_dir", dir.getPath())).send(Bukkit.getConsoleSender());
+            }
+            return;
+        }
+        for (File subFile : subFiles) {
+            if (subFile.isDirectory()) {
+                collect(subFile, sender, files);
+            } else {
+                files.add(subFile);
+            }
+        }
+    }
+
+    private static File getSnapshotFile() {
+        return new File(plugin.getDataFolder(), "items.snapshot");
+    }
+
+    /**
+     * Parses the files in parallel off the main thread, then builds and registers the items one by one in file order
+     *
+     * @param snapshot Snapshot to restore unchanged files from and record parsed ones to, null to parse every file
+     */
+    private static void loadAll(List<File> files, CommandSender sender, ItemSnapshot snapshot) {
+        if (files.isEmpty()) return;
+        long start = System.nanoTime();
+        int threads = Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "RPGItems-Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger parsed = new AtomicInteger();
+        AtomicInteger restored = new AtomicInteger();
+        Path base = getItemsDir().toPath();
+        List<CompletableFuture<YamlConfiguration>> futures = new ArrayList<>(files.size());
+        try {
+            for (File file : files) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        if (snapshot != null) {
+                            return parse(file, snapshot, base.relativize(file.toPath()).toString(), restored);
+                        }
+                        return parse(file);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    } finally {
+                        parsed.incrementAndGet();
                     }
-                    return false;
-                }
-                for (File subFile : subFiles) {
-                    load(subFile, sender);
+                }, executor));
+            }
+            CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+            while (true) {
+                try {
+                    all.get(1, TimeUnit.SECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    plugin.getLogger().info("Parsing items: " + parsed.get() + "/" + files.size());
+                } catch (ExecutionException e) {
+                    // reported per file below
+                    break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 }
-                return false;
             }
-            RPGItem item = load(file);
+            if (snapshot != null) {
+                executor.execute(() -> {
+                    try {
+                        snapshot.write(getSnapshotFile());
+                    } catch (IOException e) {
+                        plugin.getLogger().log(Level.WARNING, "Error writing item snapshot.", e);
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long parsedTime = System.nanoTime();
+        int loaded = 0;
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            YamlConfiguration storage;
+            try {
+                storage = futures.get(i).join();
+            } catch (CompletionException e) {
+                reportError(file, e.getCause() instanceof Exception ex ? ex : e, sender);
+                continue;
+            }
+            if (publish(file, storage, sender)) loaded++;
+        }
+        long end = System.nanoTime();
+        plugin.getLogger().info(String.format("Loaded %d/%d files in %d ms (parsing %d ms on %d threads, %d from snapshot, registering %d ms)",
+                loaded, files.size(), TimeUnit.NANOSECONDS.toMillis(end - start), TimeUnit.NANOSECONDS.toMillis(parsedTime - start),
+                threads, restored.get(), TimeUnit.NANOSECONDS.toMillis(end - parsedTime)));
+    }
+
+    private static YamlConfiguration parse(File file, ItemSnapshot snapshot, String key, AtomicInteger restored) throws IOException, InvalidConfigurationException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        long modified = file.lastModified();
+        long hash = ItemSnapshot.hash(content);
+        ItemWatcher.record(file, hash);
+        YamlConfiguration itemStorage = snapshot.restore(key, content.length, modified, hash);
+        if (itemStorage != null) {
+            restored.incrementAndGet();
+            return itemStorage;
+        }
+        itemStorage = new YamlConfiguration();
+        itemStorage.loadFromString(new String(content, StandardCharsets.UTF_8));
+        snapshot.put(key, content.length, modified, hash, itemStorage);
+        return itemStorage;
+    }
+
+    private static YamlConfiguration parse(File file) throws IOException, InvalidConfigurationException {
+        YamlConfiguration itemStorage = new YamlConfiguration();
+        itemStorage.load(file);
+        return itemStorage;
+    }
+
+    private static boolean publish(File file, YamlConfiguration storage, CommandSender sender) {
+        try {
+            RPGItem item = load(file, storage);
             if (sender != null) {
                 new Message("")
                         .append(I18n.formatDefault("message.item.load", Objects.requireNonNull(item).getName()), Collections.singletonMap("{item}", item.getComponent(sender)))
@@ -208,28 +343,35 @@ public class ItemManager {
             }
             return true;
         } catch (Exception e) {
-            if (e instanceof UnknownExtensionException || e instanceof UnknownPowerException) {
-                plugin.getLogger().log(Level.WARNING, "Missing dependency when loading " + file + ". ", e);
-            } else {
-                plugin.getLogger().log(Level.SEVERE, "Error loading " + file + ".", e);
-            }
+            reportError(file, e, sender);
+        }
+        return false;
+    }
 
-            Message message = new Message(I18n.formatDefault("message.error.loading", file.getPath(), e.getLocalizedMessage()));
-            if (sender == null) {
-                Bukkit.getOperators().forEach(t -> message.send(t.getPlayer()));
-                message.send(Bukkit.getConsoleSender());
-            } else {
-                message.send(sender);
-            }
+    private static void reportError(File file, Exception e, CommandSender sender) {
+        if (e instanceof UnknownExtensionException || e instanceof UnknownPowerException) {
+            plugin.getLogger().log(Level.WARNING, "Missing dependency when loading " + file + ". ", e);
+        } else {
+            plugin.getLogger().log(Level.SEVERE, "Error loading " + file + ".", e);
+        }
 
-            if (sender == null || sender instanceof ConsoleCommandSender) {
-                Bukkit.getOperators().forEach(message::sendTo);
-            }
+        Message message = new Message(I18n.formatDefault("message.error.loading", file.getPath(), e.getLocalizedMessage()));
+        if (sender == null) {
+            Bukkit.getOperators().forEach(t -> message.send(t.getPlayer()));
+            message.send(Bukkit.getConsoleSender());
+        } else {
+            message.send(sender);
+        }
+
+        if (sender == null || sender instanceof ConsoleCommandSender) {
+            Bukkit.getOperators().forEach(message::sendTo);
         }
-        return false;
     }
 
-    private static RPGItem load(File file) throws Exception {
+    /**
+     * @param storage Content of the file if already parsed, null to parse it now
+     */
+    private static RPGItem load(File file, YamlConfiguration storage) throws Exception {
         String canonicalPath = file.getCanonicalPath();
         if (itemFileLocks.containsKey(canonicalPath) && itemFileLocks.get(canonicalPath).isValid()) {
             plugin.getLogger().severe("Trying to load " + file + " that already loaded.");
@@ -244,8 +386,7 @@ public class ItemManager {
             Files.copy(file.toPath(), newFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
             file = newFile;
         }
-        YamlConfiguration itemStorage = new YamlConfiguration();
-        itemStorage.load(file);
+        YamlConfiguration itemStorage = storage != null ? storage : parse(file);
         if (file.getName().endsWith("-group.yml")) {
             ItemGroup group = new ItemGroup(itemStorage, file);
             addGroup(group);
@@ -270,6 +411,8 @@ public class ItemManager {
             itemByName.remove(item.getName(), item);
             throw e;
         }
+        WGSupport.invalidateItems();
+        EquipmentIndex.clear();
     }
 
     public static void addGroup(ItemGroup group) {
@@ -285,13 +428,20 @@ public class ItemManager {
             groupByName.remove(group.getName(), group);
             throw e;
         }
+        WGSupport.invalidateItems();
     }
 
-    public static void save() {
-        if (plugin.cfg.readonly) return;
-        for (RPGItem item : itemByName.values()) {
-            save(item);
-        }
+    public static CompletableFuture<Void> save() {
+        if (plugin.cfg.readonly) return CompletableFuture.completedFuture(null);
+        return CompletableFuture.allOf(itemByName.values().stream().map(ItemManager::save).toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Saves every item, reporting each failure to the sender instead of the console and online operators
+     */
+    public static CompletableFuture<Void> save(CommandSender sender) {
+        if (plugin.cfg.readonly) return CompletableFuture.completedFuture(null);
+        return CompletableFuture.allOf(itemByName.values().stream().map(item -> save(item, sender)).toArray(CompletableFuture[]::new));
     }
 
     private static File mkdir() {
@@ -322,57 +472,43 @@ public class ItemManager {
         return backup;
     }
 
-    public static void save(RPGItem item) {
-        if (plugin.cfg.readonly) return;
-        String itemName = item.getName();
-        File itemFile = item.getFile() == null ? createFile(getItemsDir(), item.getName(), "-item", true) : item.getFile();
-        boolean exist = itemFile.exists();
-        String cfgStr = "";
-        File backup = null;
-        item.setPluginVersion(RPGItems.getVersion());
-        item.setPluginSerial(RPGItems.getSerial());
-        try {
-            YamlConfiguration configuration = new YamlConfiguration();
-            item.save(configuration);
-            cfgStr = configuration.saveToString();
-            if (exist) {
-                backup = unlockAndBackup(item, false);
-            }
-            configuration.save(itemFile);
+    /**
+     * Saves the item to its file. The write happens off the main thread, and saves of the same item within a tick are coalesced.
+     *
+     * @return Future completed when the file is written and verified, or exceptionally with a
+     * {@link AdminCommands.CommandException} describing the failure
+     */
+    public static CompletableFuture<Void> save(RPGItem item) {
+        item.invalidateRendered();
+        if (plugin.cfg.readonly) return CompletableFuture.completedFuture(null);
+        return SaveQueue.enqueue(item, false);
+    }
 
-            try {
-                String canonicalPath = itemFile.getCanonicalPath();
-                YamlConfiguration test = new YamlConfiguration();
-                test.load(canonicalPath);
-                RPGItem testItem = new RPGItem(test, null);
-                testItem.deinit();
-                if (backup != null && backup.exists()) {
-                    backup.deleteOnExit();
-                }
-                item.setFile(itemFile);
-                lock(itemFile);
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE, "Error verifying integrity for " + itemName + ".", e);
-                throw new AdminCommands.CommandException("message.error.verifying", e, itemName, e.getLocalizedMessage());
-            }
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "Error saving " + itemName + ".", e);
-            plugin.getLogger().severe("Dumping current item");
-            plugin.getLogger().severe("===============");
-            plugin.getLogger().severe(cfgStr);
-            plugin.getLogger().severe("===============");
-            if (exist && backup != null && backup.exists()) {
-                try {
-                    plugin.getLogger().severe("Recovering backup: " + backup);
-                    Files.copy(backup.toPath(), itemFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                    lock(itemFile);
-                } catch (Exception exRec) {
-                    plugin.getLogger().log(Level.SEVERE, "Error recovering backup: " + backup, exRec);
-                    throw new AdminCommands.CommandException("message.error.recovering", exRec, itemName, backup.getPath(), exRec.getLocalizedMessage());
-                }
-            }
-            rethrow(e);
-        }
+    /**
+     * Saves the item like {@link #save(RPGItem)}, reporting a failure to the sender instead of the console and online operators
+     */
+    public static CompletableFuture<Void> save(RPGItem item, CommandSender sender) {
+        item.invalidateRendered();
+        if (plugin.cfg.readonly) return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> future = SaveQueue.enqueue(item, true);
+        future.whenComplete((v, e) -> {
+            if (e != null) reportSaveError(e, sender);
+        });
+        return future;
+    }
+
+    /**
+     * Completes any pending save of the item, so its file is up to date
+     */
+    public static void flush(RPGItem item) {
+        SaveQueue.flush(item);
+    }
+
+    /**
+     * Reports a failed save to the sender
+     */
+    public static void reportSaveError(Throwable e, CommandSender sender) {
+        SaveQueue.report(e, sender);
     }
 
     public static void save(ItemGroup itemGroup) {
@@ -435,7 +571,7 @@ public class ItemManager {
         }
     }
 
-    private static void unlock(File itemFile, boolean remove) throws IOException {
+    static void unlock(File itemFile, boolean remove) throws IOException {
         if (!plugin.cfg.itemFsLock) return;
         FileLock fileLock = remove ? itemFileLocks.remove(itemFile.getCanonicalPath()) : itemFileLocks.get(itemFile.getCanonicalPath());
         if (fileLock != null) {
@@ -457,7 +593,7 @@ public class ItemManager {
         return ItemManager.unlockedItem.remove(item);
     }
 
-    private static File createFile(File items, String itemName, String postfix, boolean tran) {
+    static File createFile(File items, String itemName, String postfix, boolean tran) {
         String filename = tran ? getItemFilename(itemName, postfix) + ".yml" : itemName;
         File file = new File(items, filename);
         while (file.exists()) {
@@ -498,14 +634,19 @@ public class ItemManager {
     }
 
     public static File unlockAndBackup(RPGItem item, boolean remove) throws IOException {
+        SaveQueue.flush(item);
         File itemFile = item.getFile();
-        File backup = new File(getBackupsDir(), itemFile.getName().replaceAll("\\.yml$", "") + "." + System.currentTimeMillis() + ".bak");
         unlock(itemFile, remove);
+        return backup(itemFile, item.getName());
+    }
+
+    static File backup(File itemFile, String itemName) {
+        File backup = new File(getBackupsDir(), itemFile.getName().replaceAll("\\.yml$", "") + "." + System.currentTimeMillis() + ".bak");
         try {
             if (!backup.createNewFile()) throw new IllegalStateException();
             Files.copy(itemFile.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
         } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "Cannot create backup for" + item.getName() + ".", e);
+            plugin.getLogger().log(Level.SEVERE, "Cannot create backup for" + itemName + ".", e);
         }
         return backup;
     }
@@ -514,17 +655,8 @@ public class ItemManager {
      * Get equipments in slots of helmet, chestplate, leggings, boots, off hand, main hand.
      */
     public static Map<EquipmentSlot, RPGItem> getEquipments(LivingEntity entity) {
-        Map<EquipmentSlot, RPGItem> items = new HashMap<>();
-        EntityEquipment equipment = entity.getEquipment();
-        if (equipment != null) {
-            toRPGItem(equipment.getHelmet()).ifPresent(it -> items.put(EquipmentSlot.HEAD, it));
-            toRPGItem(equipment.getChestplate()).ifPresent(it -> items.put(EquipmentSlot.CHEST, it));
-            toRPGItem(equipment.getLeggings()).ifPresent(it -> items.put(EquipmentSlot.LEGS, it));
-            toRPGItem(equipment.getBoots()).ifPresent(it -> items.put(EquipmentSlot.FEET, it));
-            toRPGItem(equipment.getItemInMainHand()).ifPresent(it -> items.put(EquipmentSlot.HAND, it));
-            toRPGItem(equipment.getItemInOffHand()).ifPresent(it -> items.put(EquipmentSlot.OFF_HAND, it));
-        }
-        return items;
+        EquipmentIndex.Snapshot equipment = EquipmentIndex.of(entity);
+        return equipment == null ? new HashMap<>() : equipment.toMap();
     }
 
     public static Optional<RPGItem> toRPGItem(ItemStack item) {
@@ -537,17 +669,15 @@ public class ItemManager {
         if (!item.hasItemMeta())
             return Optional.empty();
 
-        Optional<Integer> uid = ItemTagUtils.getInt(item, NBT_UID);
-        Optional<Integer> itemUuid = ItemTagUtils.getInt(item, NBT_ITEM_UUID);
-        Optional<Boolean> isModel = ItemTagUtils.getBoolean(item, NBT_IS_MODEL);
+        long identity = ItemTagUtils.getIdentity(item, NBT_UID, NBT_ITEM_UUID, NBT_IS_MODEL);
 
-        if (uid.isEmpty()) {
+        if (!ItemIdentity.hasUid(identity)) {
             return Optional.empty();
         }
-        if (ignoreModel && isModel.orElse(false)) {
+        if (ignoreModel && ItemIdentity.isModel(identity)) {
             return Optional.empty();
         }
-        return ItemManager.getItem(uid.get());
+        return ItemManager.getItem(ItemIdentity.getUid(identity));
     }
 
     public static Optional<RPGItem> toRPGItemByMeta(ItemStack item) {
@@ -705,9 +835,12 @@ public class ItemManager {
     }
 
     public static void remove(RPGItem item, boolean delete) {
+        SaveQueue.flush(item);
         item.deinit();
         itemByName.remove(item.getName());
         itemById.remove(item.getUid());
+        WGSupport.invalidateItems();
+        EquipmentIndex.clear();
         if (delete) {
             try {
                 File backup = unlockAndBackup(item, true);
@@ -722,6 +855,7 @@ public class ItemManager {
     public static void remove(ItemGroup group, boolean delete) {
         groupByName.remove(group.getName());
         groupById.remove(group.getUid());
+        WGSupport.invalidateItems();
         if (delete) {
             try {
                 File itemFile = group.getFile();
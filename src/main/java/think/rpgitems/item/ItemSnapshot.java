@@ -0,0 +1,227 @@
+package think.rpgitems.item;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of the parsed item files, so files unchanged since the last load are restored without YAML parsing.
+ * <p>
+ * Entries are keyed by path relative to the items directory and validated by size, modification time and a
+ * CRC32C of the content. Files holding values other than strings, numbers, booleans, lists and sections are not cached.
+ */
+final class ItemSnapshot {
+    private static final int MAGIC = 0x52474953; // RGIS
+    private static final int VERSION = 1;
+    private static final byte NULL = 0, STRING = 1, INT = 2, LONG = 3, DOUBLE = 4, BOOLEAN = 5, LIST = 6, MAP = 7, SECTION = 8;
+
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+
+    private ItemSnapshot(Map<String, Entry> previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * @return Snapshot read from the file, empty if it is missing or unreadable
+     */
+    static ItemSnapshot read(File file) {
+        Map<String, Entry> entries = new HashMap<>();
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String key = readString(in);
+                        long size = in.readLong();
+                        long modified = in.readLong();
+                        long hash = in.readLong();
+                        byte[] data = new byte[in.readInt()];
+                        in.readFully(data);
+                        entries.put(key, new Entry(size, modified, hash, data));
+                    }
+                }
+            } catch (IOException e) {
+                entries.clear();
+            }
+        }
+        return new ItemSnapshot(entries);
+    }
+
+    static long hash(byte[] content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    /**
+     * @return The parsed file if it is unchanged since the snapshot, otherwise null. Keeps the entry for the next snapshot.
+     */
+    YamlConfiguration restore(String key, long size, long modified, long hash) {
+        Entry entry = previous.get(key);
+        if (entry == null || entry.size != size || entry.modified != modified || entry.hash != hash) return null;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.data))) {
+            YamlConfiguration configuration = new YamlConfiguration();
+            readSection(in, configuration);
+            current.put(key, entry);
+            return configuration;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Records a freshly parsed file for the next snapshot
+     */
+    void put(String key, long size, long modified, long hash, YamlConfiguration configuration) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                writeSection(out, configuration);
+            }
+            current.put(key, new Entry(size, modified, hash, bytes.toByteArray()));
+        } catch (IOException | UnsupportedOperationException ignored) {
+            // not cacheable, parsed again next time
+        }
+    }
+
+    /**
+     * Writes the entries restored or put since {@link #read}, replacing the file atomically
+     */
+    void write(File file) throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(current.size());
+            for (Map.Entry<String, Entry> e : current.entrySet()) {
+                Entry entry = e.getValue();
+                writeString(out, e.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+                out.writeLong(entry.hash);
+                out.writeInt(entry.data.length);
+                out.write(entry.data);
+            }
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeSection(DataOutputStream out, ConfigurationSection section) throws IOException {
+        Set<String> keys = section.getKeys(false);
+        out.writeInt(keys.size());
+        for (String key : keys) {
+            writeString(out, key);
+            writeValue(out, section.get(key));
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INT);
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof ConfigurationSection section) {
+            out.writeByte(SECTION);
+            writeSection(out, section);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object o : list) {
+                writeValue(out, o);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (!(e.getKey() instanceof String key)) throw new UnsupportedOperationException();
+                writeString(out, key);
+                writeValue(out, e.getValue());
+            }
+        } else {
+            throw new UnsupportedOperationException(value.getClass().getName());
+        }
+    }
+
+    private static void readSection(DataInputStream in, ConfigurationSection section) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = readString(in);
+            byte type = in.readByte();
+            if (type == SECTION) {
+                readSection(in, section.createSection(key));
+            } else {
+                section.set(key, readValue(in, type));
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream in, byte type) throws IOException {
+        return switch (type) {
+            case NULL -> null;
+            case STRING -> readString(in);
+            case INT -> in.readInt();
+            case LONG -> in.readLong();
+            case DOUBLE -> in.readDouble();
+            case BOOLEAN -> in.readBoolean();
+            case LIST -> {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, in.readByte()));
+                }
+                yield list;
+            }
+            case MAP, SECTION -> {
+                int size = in.readInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    map.put(key, readValue(in, in.readByte()));
+                }
+                yield map;
+            }
+            default -> throw new IOException("Unknown type " + type);
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record Entry(long size, long modified, long hash, byte[] data) {
+    }
+}
@@ -0,0 +1,293 @@
+package think.rpgitems.item;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import think.rpgitems.RPGItems;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the items directory and reloads only the item files that changed, were added or were removed.
+ * <p>
+ * Events are debounced and the changed files are read and parsed on the watcher thread. Items are then replaced on
+ * the main thread. The replaced version is written to the backups directory, and the file lock is released and taken again.
+ * Items unlocked by {@code backupitem} are left alone. Changes to items with a save in progress are applied once the
+ * save is done if the file still holds them, otherwise the save won and the changed content is kept in the backups directory.
+ * Files whose content matches what the plugin last read, wrote or applied are ignored, so the plugin's own saves do not
+ * trigger a reload. The content of a changed file is only recorded once it is applied.
+ * Stacks of reloaded items are refreshed lazily, the next time they are updated.
+ */
+final class ItemWatcher implements Runnable {
+    private static final long DEBOUNCE_MILLIS = 1000;
+    private static final Map<Path, Long> known = new ConcurrentHashMap<>();
+    private static ItemWatcher instance;
+
+    private final WatchService service;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Set<Path> changed = new LinkedHashSet<>();
+    private long lastEvent;
+
+    private ItemWatcher(Path base) throws IOException {
+        this.service = base.getFileSystem().newWatchService();
+        registerAll(base);
+    }
+
+    static void start(File itemsDir) {
+        stop();
+        try {
+            instance = new ItemWatcher(itemsDir.toPath().toAbsolutePath().normalize());
+        } catch (IOException e) {
+            RPGItems.plugin.getLogger().log(Level.WARNING, "Error watching " + itemsDir + ", hot reload disabled.", e);
+            return;
+        }
+        Thread thread = new Thread(instance, "RPGItems-Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static void stop() {
+        if (instance == null) return;
+        try {
+            instance.service.close();
+        } catch (IOException e) {
+            RPGItems.plugin.getLogger().log(Level.WARNING, "Error closing item watcher.", e);
+        }
+        instance = null;
+    }
+
+    /**
+     * Records the content hash of an item file the plugin read or wrote
+     */
+    static void record(File file, long hash) {
+        known.put(file.toPath().toAbsolutePath().normalize(), hash);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key = service.poll(changed.isEmpty() ? 1000 : DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    collect(key);
+                }
+                if (!changed.isEmpty() && System.currentTimeMillis() - lastEvent >= DEBOUNCE_MILLIS) {
+                    List<Change> batch = read(new ArrayList<>(changed));
+                    changed.clear();
+                    if (!batch.isEmpty()) {
+                        Bukkit.getScheduler().runTask(RPGItems.plugin, () -> apply(batch));
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ignored) {
+            // stopped
+        } catch (IllegalPluginAccessException ignored) {
+            // plugin disabled before the watcher was stopped
+        }
+    }
+
+    private void registerAll(Path dir) throws IOException {
+        try (Stream<Path> dirs = Files.walk(dir)) {
+            for (Path d : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                keys.put(d.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), d);
+            }
+        }
+    }
+
+    private void collect(WatchKey key) {
+        Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || dir == null) continue;
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerAll(path);
+                    try (Stream<Path> files = Files.walk(path)) {
+                        files.filter(ItemWatcher::isItemFile).forEach(changed::add);
+                    }
+                } catch (IOException e) {
+                    RPGItems.plugin.getLogger().log(Level.WARNING, "Error watching " + path + ".", e);
+                }
+            } else if (isItemFile(path)) {
+                changed.add(path);
+            }
+            lastEvent = System.currentTimeMillis();
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+    }
+
+    private static boolean isItemFile(Path path) {
+        String name = path.getFileName().toString();
+        return !name.startsWith(".") && name.endsWith("yml") && !Files.isDirectory(path);
+    }
+
+    private static List<Change> read(List<Path> paths) {
+        List<Change> batch = new ArrayList<>();
+        for (Path path : paths) {
+            if (!Files.exists(path)) {
+                known.remove(path);
+                batch.add(new Change(path.toFile(), 0, null, null));
+                continue;
+            }
+            try {
+                byte[] content = Files.readAllBytes(path);
+                long hash = ItemSnapshot.hash(content);
+                Long previous = known.get(path);
+                if (previous != null && previous == hash) continue;
+                YamlConfiguration storage = new YamlConfiguration();
+                storage.loadFromString(new String(content, StandardCharsets.UTF_8));
+                batch.add(new Change(path.toFile(), hash, storage, null));
+            } catch (Exception e) {
+                known.remove(path);
+                batch.add(new Change(path.toFile(), 0, null, e));
+            }
+        }
+        return batch;
+    }
+
+    private static void apply(List<Change> batch) {
+        Map<Path, RPGItem> byFile = new HashMap<>();
+        for (RPGItem item : ItemManager.items()) {
+            if (item.getFile() != null) {
+                byFile.put(item.getFile().toPath().toAbsolutePath().normalize(), item);
+            }
+        }
+        for (Change change : batch) {
+            Path path = change.file.toPath().toAbsolutePath().normalize();
+            RPGItem old = byFile.get(path);
+            try {
+                apply(change, old);
+            } catch (Exception e) {
+                RPGItems.plugin.getLogger().log(Level.SEVERE, "Error hot reloading " + change.file + ".", e);
+            }
+        }
+    }
+
+    private static void apply(Change change, RPGItem old) throws Exception {
+        if (change.file.getName().endsWith("-group.yml")) {
+            RPGItems.plugin.getLogger().info("Group file " + change.file + " changed, use /rpgitem reload to apply it.");
+            record(change.file, change.hash);
+            return;
+        }
+        if (change.error != null) {
+            RPGItems.plugin.getLogger().log(Level.WARNING, "Error reading changed " + change.file + ", keeping the loaded version.", change.error);
+            return;
+        }
+        if (old != null) {
+            if (ItemManager.isUnlocked(old)) {
+                RPGItems.plugin.getLogger().info("Skipping hot reload of unlocked " + old.getName() + ", use /rpgitem reloaditem.");
+                return;
+            }
+            CompletableFuture<Void> saved = SaveQueue.whenSaved(old);
+            if (saved != null) {
+                saved.handle((v, e) -> {
+                    Bukkit.getScheduler().runTask(RPGItems.plugin, () -> retry(change));
+                    return null;
+                });
+                return;
+            }
+        }
+        if (change.storage == null) {
+            if (old == null) return;
+            backup(old);
+            ItemManager.remove(old, false);
+            ItemManager.unlock(change.file, true);
+            RPGItems.plugin.getLogger().info("Unloaded removed item " + old.getName() + ".");
+            return;
+        }
+        // build and check first, so a broken file keeps the loaded version
+        RPGItem item = new RPGItem(change.storage, change.file);
+        try {
+            checkConflicts(item, old);
+        } catch (RuntimeException e) {
+            item.deinit();
+            throw e;
+        }
+        YamlConfiguration previous = null;
+        if (old != null) {
+            previous = backup(old);
+            ItemManager.remove(old, false);
+            ItemManager.unlock(change.file, true);
+        }
+        try {
+            ItemManager.addItem(item);
+        } catch (RuntimeException e) {
+            item.deinit();
+            if (previous != null) {
+                // old was deinitialized when removed, so it is rebuilt from its saved state
+                try {
+                    ItemManager.addItem(new RPGItem(previous, change.file));
+                    ItemManager.lock(change.file);
+                } catch (Exception ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            throw e;
+        }
+        ItemManager.lock(change.file);
+        record(change.file, change.hash);
+        RPGItems.plugin.getLogger().info((old == null ? "Loaded new item " : "Reloaded item ") + item.getName() + ".");
+    }
+
+    /**
+     * Applies a change deferred by a save of its item if the file still holds it, otherwise keeps it in the backups directory
+     */
+    private static void retry(Change change) {
+        Path path = change.file.toPath().toAbsolutePath().normalize();
+        try {
+            if (Files.exists(path) && ItemSnapshot.hash(Files.readAllBytes(path)) == change.hash) {
+                apply(List.of(change));
+                return;
+            }
+            String name = change.file.getName().replaceAll("\\.yml$", "");
+            File conflict = new File(ItemManager.getBackupsDir(), name + ".external." + System.currentTimeMillis() + ".bak");
+            change.storage.save(conflict);
+            RPGItems.plugin.getLogger().warning(change.file + " changed while its item was being saved, the in-game version was kept and the changed file was saved to " + conflict + ".");
+        } catch (Exception e) {
+            RPGItems.plugin.getLogger().log(Level.SEVERE, "Error hot reloading " + change.file + ".", e);
+        }
+    }
+
+    /**
+     * Fails if the item would clash with a loaded item other than {@code old}, or with a group
+     */
+    private static void checkConflicts(RPGItem item, RPGItem old) {
+        RPGItem byUid = ItemManager.getItemById(item.getUid());
+        if ((byUid != null && byUid != old) || ItemManager.getGroup(item.getUid()).isPresent()) {
+            throw new IllegalArgumentException("Duplicated item uid:" + item.getUid());
+        }
+        RPGItem byName = ItemManager.getItemByName(item.getName());
+        if ((byName != null && byName != old) || ItemManager.getGroup(item.getName()).isPresent()) {
+            throw new IllegalArgumentException("Duplicated item name:" + item.getName());
+        }
+    }
+
+    /**
+     * Writes the loaded version of the item to the backups directory, since its file already holds the new content
+     *
+     * @return The written version
+     */
+    private static YamlConfiguration backup(RPGItem item) throws IOException {
+        YamlConfiguration configuration = new YamlConfiguration();
+        item.save(configuration);
+        String name = item.getFile().getName().replaceAll("\\.yml$", "");
+        configuration.save(new File(ItemManager.getBackupsDir(), name + "." + System.currentTimeMillis() + ".bak"));
+        return configuration;
+    }
+
+    private record Change(File file, long hash, YamlConfiguration storage, Exception error) {
+    }
+}
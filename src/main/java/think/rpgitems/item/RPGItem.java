@@ -27,6 +27,7 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.Damageable;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.LeatherArmorMeta;
+import org.bukkit.plugin.RegisteredListener;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.potion.PotionEffect;
@@ -58,6 +59,7 @@ import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutionException;
@@ -85,12 +87,17 @@ public class RPGItem {
     public static final NamespacedKey TAG_STACK_ID = new NamespacedKey(RPGItems.plugin, "stack_id");
     public static final NamespacedKey TAG_MODIFIER = new NamespacedKey(RPGItems.plugin, "property_modifier");
     public static final NamespacedKey TAG_VERSION = new NamespacedKey(RPGItems.plugin, "version");
+    public static final NamespacedKey TAG_RENDERED = new NamespacedKey(RPGItems.plugin, "rendered");
     public static final String DAMAGE_TYPE = "RGI_DAMAGE_TYPE";
     public static final String NBT_UID = "rpgitem_uid";
     public static final String NBT_ITEM_UUID = "rpgitem_item_uuid";
     public static final String NBT_IS_MODEL = "rpgitem_is_model";
 
     private static final Cache<UUID, List<Modifier>> modifierCache = CacheBuilder.newBuilder().concurrencyLevel(1).expireAfterAccess(1, TimeUnit.MINUTES).build();
+    private static final Cache<MergedModifierKey, List<Modifier>> mergedModifierCache = CacheBuilder.newBuilder().concurrencyLevel(1).expireAfterAccess(1, TimeUnit.MINUTES).build();
+    private static int modifierRevision = 0;
+    private static final int DURABILITY_BAR_TABLE_LIMIT = 1024;
+    private static final char BAR_CHAR = '■';
 
     private final static NamespacedKey RGI_UNIQUE_MARK = new NamespacedKey(RPGItems.plugin, "RGI_UNIQUE_MARK");
     private final static NamespacedKey RGI_UNIQUE_ID = new NamespacedKey(RPGItems.plugin, "RGI_UNIQUE_ID");
@@ -112,6 +119,19 @@ public class RPGItem {
     @SuppressWarnings("rawtypes")
     @Getter private final Map<String, Trigger> triggers = new HashMap<>();
     private final HashMap<PropertyHolder, NamespacedKey> keys = new HashMap<>();
+    private TriggerDispatch dispatch = TriggerDispatch.EMPTY;
+    private Map<String, List<Selector>> selectorIndex;
+    private int renderRevision;
+    private boolean renderRevisionStale = true;
+    // bumped on every invalidation, for the caches that only live in memory
+    private int revision;
+    private boolean dynamicLore;
+    private List<String> tooltipLines;
+    private int tooltipRevision;
+    private String tooltipLanguage;
+    // bars by durability, or by filled boxes for the default format, built lazily for the current revision
+    private String[] durabilityBars;
+    private int durabilityBarsRevision;
     @Getter private File file;
 
     @Getter @Setter private NamespacedKey namespacedKey;
@@ -280,6 +300,48 @@ public class RPGItem {
 
     public static void invalidateModifierCache() {
         modifierCache.invalidateAll();
+        mergedModifierCache.invalidateAll();
+        modifierRevision++;
+    }
+
+    /**
+     * @return Counter bumped every time modifiers are invalidated, for callers holding their own copies
+     */
+    public static int getModifierRevision() {
+        return modifierRevision;
+    }
+
+    /**
+     * @return Modifiers of the player and the stack, merged and sorted by priority
+     */
+    public static List<Modifier> getMergedModifiers(Player player, ItemStack stack) {
+        Optional<String> opt = ItemTagUtils.getString(stack, NBT_ITEM_UUID);
+        if (opt.isEmpty()) {
+            return mergeModifiers(player, stack);
+        }
+        MergedModifierKey key = new MergedModifierKey(player.getUniqueId(), UUID.fromString(opt.get()));
+        List<Modifier> modifiers = mergedModifierCache.getIfPresent(key);
+        if (modifiers == null) {
+            modifiers = mergeModifiers(player, stack);
+            mergedModifierCache.put(key, modifiers);
+        }
+        return modifiers;
+    }
+
+    private static List<Modifier> mergeModifiers(Player player, ItemStack stack) {
+        List<Modifier> playerModifiers = getModifiers(player);
+        List<Modifier> stackModifiers = getModifiers(player, stack);
+        if (playerModifiers.isEmpty() && stackModifiers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Modifier> merged = new ArrayList<>(playerModifiers.size() + stackModifiers.size());
+        merged.addAll(playerModifiers);
+        merged.addAll(stackModifiers);
+        merged.sort(Comparator.comparing(Modifier::priority));
+        return Collections.unmodifiableList(merged);
+    }
+
+    private record MergedModifierKey(UUID player, UUID item) {
     }
 
     public static List<Modifier> getModifiers(SubItemTagContainer tag, UUID key) {
@@ -787,9 +849,30 @@ public class RPGItem {
         updateItem(player, item, false);
     }
 
+    /**
+     * Renders the item onto the stack. Stacks already rendered from the current config, with the same durability and
+     * modifiers and with their meta unchanged since, are left untouched, and stacks where only the durability changed
+     * get their lore updated only. {@link LoreUpdateEvent} is not fired for skipped stacks, so items with placeholders
+     * in their lore, and every item while another plugin listens to the event, are rendered every time.
+     */
     public void updateItem(@Nullable Player player, ItemStack item, boolean loreOnly) {
         if (item == null) return;
-        List<String> oldLore = item.getItemMeta() == null || item.getItemMeta().getLore() == null ? new ArrayList<>() : new ArrayList<>(item.getItemMeta().getLore());
+        ItemMeta current = item.getItemMeta();
+        boolean rendered = false;
+        if (current != null && item.getType() == getItem() && !dynamicLore && !hasForeignLoreListeners()) {
+            PersistentDataContainer container = current.getPersistentDataContainer();
+            PersistentDataContainer tag = getTag(container, TAG_META);
+            int[] previous = tag == null ? null : getIntArray(tag, TAG_RENDERED);
+            if (previous != null && previous.length == 4) {
+                int[] stamp = renderStamp(container, tag, current);
+                if (previous[0] == stamp[0] && previous[1] == stamp[1] && previous[3] == stamp[3]) {
+                    if (previous[2] == stamp[2]) return;
+                    rendered = true;
+                    loreOnly = true;
+                }
+            }
+        }
+        List<String> oldLore = current == null || current.getLore() == null ? new ArrayList<>() : new ArrayList<>(current.getLore());
         List<String> reservedLores = this.filterLores(item);
         item.setType(getItem());
         ItemMeta meta = item.getItemMeta();
@@ -860,6 +943,9 @@ public class RPGItem {
         }
 
         if (loreOnly) {
+            if (rendered) {
+                set(rpgitemsTagContainer, TAG_RENDERED, renderStamp(itemTagContainer, rpgitemsTagContainer, meta));
+            }
             rpgitemsTagContainer.commit();
             item.setItemMeta(meta);
             return;
@@ -889,8 +975,14 @@ public class RPGItem {
             }
         }
         checkAndMakeUnique(rpgitemsTagContainer);
+        refreshAttributeModifiers(meta);
+        if (dynamicLore) {
+            rpgitemsTagContainer.remove(TAG_RENDERED);
+        } else {
+            set(rpgitemsTagContainer, TAG_RENDERED, renderStamp(itemTagContainer, rpgitemsTagContainer, meta));
+        }
         rpgitemsTagContainer.commit();
-        item.setItemMeta(refreshAttributeModifiers(meta));
+        item.setItemMeta(meta);
         try {
             ItemTagUtils.setInt(item, NBT_UID, uid);
             if (RPGItems.plugin.cfg.itemStackUuid) {
@@ -910,6 +1002,85 @@ public class RPGItem {
         }
     }
 
+    /**
+     * @return Config revision, modifier hash, durability and meta hash of the stack
+     */
+    private int[] renderStamp(PersistentDataContainer itemTag, PersistentDataContainer rpgitemsTag, ItemMeta meta) {
+        PersistentDataContainer modifiers = getTag(itemTag, TAG_MODIFIER);
+        Integer durability = getInt(rpgitemsTag, TAG_DURABILITY);
+        return new int[]{getRenderRevision(), modifiers == null ? 0 : modifiers.hashCode(), durability == null ? -1 : durability, metaHash(meta)};
+    }
+
+    /**
+     * @return Hash of the parts of the meta written by {@link #updateItem} besides its tags, to notice stacks changed
+     * since they were rendered, such as by an anvil or another plugin. Stable across restarts, as it is stored in the stack.
+     */
+    private static int metaHash(ItemMeta meta) {
+        int hash = Objects.hash(meta.hasDisplayName() ? meta.getDisplayName() : null, meta.getLore(), meta.hasCustomModelData() ? meta.getCustomModelData() : null, meta.isUnbreakable());
+        int flags = 0;
+        for (ItemFlag flag : meta.getItemFlags()) {
+            flags |= 1 << flag.ordinal();
+        }
+        hash = 31 * hash + flags;
+        // summed, so the iteration order does not matter
+        int enchants = 0;
+        for (Entry<Enchantment, Integer> e : meta.getEnchants().entrySet()) {
+            enchants += e.getKey().getKey().hashCode() ^ e.getValue();
+        }
+        hash = 31 * hash + enchants;
+        int attributes = 0;
+        if (meta.hasAttributeModifiers()) {
+            for (Entry<Attribute, org.bukkit.attribute.AttributeModifier> e : Objects.requireNonNull(meta.getAttributeModifiers()).entries()) {
+                org.bukkit.attribute.AttributeModifier modifier = e.getValue();
+                attributes += Objects.hash(e.getKey().ordinal(), modifier.getUniqueId(), modifier.getName(), modifier.getAmount(), modifier.getOperation().ordinal(), modifier.getSlot() == null ? -1 : modifier.getSlot().ordinal());
+            }
+        }
+        hash = 31 * hash + attributes;
+        if (meta instanceof Damageable damageable) {
+            hash = 31 * hash + damageable.getDamage();
+        }
+        if (meta instanceof LeatherArmorMeta leather) {
+            hash = 31 * hash + leather.getColor().asRGB();
+        }
+        return hash;
+    }
+
+    /**
+     * @return Whether another plugin listens to {@link LoreUpdateEvent}, and may change the lore on every update
+     */
+    private static boolean hasForeignLoreListeners() {
+        for (RegisteredListener listener : LoreUpdateEvent.getHandlerList().getRegisteredListeners()) {
+            if (listener.getPlugin() != plugin) return true;
+        }
+        for (RegisteredListener listener : LoreUpdateEvent.Post.getHandlerList().getRegisteredListeners()) {
+            if (listener.getPlugin() != plugin) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Makes the next {@link #updateItem} check the config again, stacks are re-rendered only if it changed
+     */
+    public void invalidateRendered() {
+        renderRevisionStale = true;
+        revision++;
+    }
+
+    /**
+     * @return Hash of the saved config of the item and the settings its stacks are rendered with, stable across restarts
+     * so identical stacks keep stacking. Computed on the first update of a stack after the item changed.
+     */
+    private int getRenderRevision() {
+        if (renderRevisionStale) {
+            YamlConfiguration configuration = new YamlConfiguration();
+            save(configuration);
+            String inputs = configuration.saveToString() + '\0' + RPGItems.getSerial() + '\0' + plugin.cfg.qualityPrefixes.get(getQuality()) + '\0' + plugin.cfg.itemStackUuid;
+            renderRevision = (int) ItemSnapshot.hash(inputs.getBytes(StandardCharsets.UTF_8));
+            renderRevisionStale = false;
+        }
+        return renderRevision;
+    }
+
     private void checkAndMakeUnique(SubItemTagContainer meta) {
         List<Unique> markers = getMarker(Unique.class);
         List<SlotCondition> conditions = getConditions(SlotCondition.class);
@@ -939,36 +1110,58 @@ public class RPGItem {
         if (maxDurability > 0) {
             int durability = computeIfAbsent(meta, TAG_DURABILITY, PersistentDataType.INTEGER, this::getDefaultDurability);
             if (isHasDurabilityBar()) {
-                StringBuilder out = new StringBuilder();
-                char boxChar = '■';
-                double ratio = (double) durability / (double) maxDurability;
-                BarFormat barFormat = getBarFormat();
-                switch (barFormat) {
-                    case NUMERIC_BIN, NUMERIC_BIN_MINUS_ONE, NUMERIC_HEX, NUMERIC_HEX_MINUS_ONE, NUMERIC, NUMERIC_MINUS_ONE -> {
-                        out.append(ChatColor.GREEN).append(boxChar).append(" ");
-                        out.append(ratio < 0.1 ? ChatColor.RED : ratio < 0.3 ? ChatColor.YELLOW : ChatColor.GREEN);
-                        out.append(formatBar(durability, maxDurability, barFormat));
-                        out.append(ChatColor.RESET).append(" / ").append(ChatColor.AQUA);
-                        out.append(formatBar(maxDurability, maxDurability, barFormat));
-                        out.append(ChatColor.GREEN).append(boxChar);
-                    }
-                    case DEFAULT -> {
-                        int boxCount = tooltipWidth / 7;
-                        int mid = (int) ((double) boxCount * (ratio));
-                        for (int i = 0; i < boxCount; i++) {
-                            out.append(i < mid ? ChatColor.GREEN : i == mid ? ChatColor.YELLOW : ChatColor.RED);
-                            out.append(boxChar);
-                        }
-                    }
-                }
-                if (lore.isEmpty() || !lore.get(lore.size() - 1).contains(boxChar + ""))
-                    lore.add(out.toString());
+                String bar = getDurabilityBar(durability, maxDurability);
+                if (lore.isEmpty() || lore.get(lore.size() - 1).indexOf(BAR_CHAR) < 0)
+                    lore.add(bar);
                 else
-                    lore.set(lore.size() - 1, out.toString());
+                    lore.set(lore.size() - 1, bar);
             }
         }
     }
 
+    private String getDurabilityBar(int durability, int maxDurability) {
+        BarFormat barFormat = getBarFormat();
+        int bucket = barFormat == BarFormat.DEFAULT ? (int) ((double) (tooltipWidth / 7) * ((double) durability / (double) maxDurability)) : durability;
+        if (durabilityBars == null || durabilityBarsRevision != revision) {
+            int size = barFormat == BarFormat.DEFAULT ? tooltipWidth / 7 + 1 : maxDurability + 1;
+            durabilityBars = new String[Math.min(size, DURABILITY_BAR_TABLE_LIMIT)];
+            durabilityBarsRevision = revision;
+        }
+        if (bucket < 0 || bucket >= durabilityBars.length) {
+            return renderDurabilityBar(durability, maxDurability, barFormat);
+        }
+        String bar = durabilityBars[bucket];
+        if (bar == null) {
+            bar = renderDurabilityBar(durability, maxDurability, barFormat);
+            durabilityBars[bucket] = bar;
+        }
+        return bar;
+    }
+
+    private String renderDurabilityBar(int durability, int maxDurability, BarFormat barFormat) {
+        StringBuilder out = new StringBuilder();
+        double ratio = (double) durability / (double) maxDurability;
+        switch (barFormat) {
+            case NUMERIC_BIN, NUMERIC_BIN_MINUS_ONE, NUMERIC_HEX, NUMERIC_HEX_MINUS_ONE, NUMERIC, NUMERIC_MINUS_ONE -> {
+                out.append(ChatColor.GREEN).append(BAR_CHAR).append(" ");
+                out.append(ratio < 0.1 ? ChatColor.RED : ratio < 0.3 ? ChatColor.YELLOW : ChatColor.GREEN);
+                out.append(formatBar(durability, maxDurability, barFormat));
+                out.append(ChatColor.RESET).append(" / ").append(ChatColor.AQUA);
+                out.append(formatBar(maxDurability, maxDurability, barFormat));
+                out.append(ChatColor.GREEN).append(BAR_CHAR);
+            }
+            case DEFAULT -> {
+                int boxCount = tooltipWidth / 7;
+                int mid = (int) ((double) boxCount * (ratio));
+                for (int i = 0; i < boxCount; i++) {
+                    out.append(i < mid ? ChatColor.GREEN : i == mid ? ChatColor.YELLOW : ChatColor.RED);
+                    out.append(BAR_CHAR);
+                }
+            }
+        }
+        return out.toString();
+    }
+
     private String formatBar(int durability, int maxDurability, BarFormat barFormat) {
         switch (barFormat) {
             case NUMERIC -> {
@@ -1223,36 +1416,59 @@ public class RPGItem {
         return !preFire.isCancelled();
     }
 
-    private <T> PowerResult<T> checkConditions(Player player, ItemStack i, Pimpl pimpl, List<Condition<?>> conds, Map<PropertyHolder, PowerResult<?>> context) {
+    private <T> PowerResult<T> checkConditions(Player player, ItemStack i, Condition<?>[] conditions, Map<PropertyHolder, PowerResult<?>> context) {
+        boolean failed = false;
+        boolean critical = false;
+        for (Condition<?> p : conditions) {
+            if (p.isStatic() ? !context.get(p).isOK() : !p.check(player, i, context).isOK()) {
+                failed = true;
+                critical |= p.isCritical();
+            }
+        }
+        if (!failed) return null;
+        return critical ? PowerResult.abort() : PowerResult.condition();
+    }
+
+    private Condition<?>[] getRequiredConditions(Pimpl pimpl) {
         Set<String> ids = pimpl.getPower().getConditions();
-        List<Condition<?>> conditions = conds.stream().filter(p -> ids.contains(p.id())).toList();
-        List<Condition<?>> failed = conditions.stream().filter(p -> p.isStatic() ? !context.get(p).isOK() : !p.check(player, i, context).isOK()).toList();
-        if (failed.isEmpty()) return null;
-        return failed.stream().anyMatch(Condition::isCritical) ? PowerResult.abort() : PowerResult.condition();
+        return conditions.stream().filter(p -> ids.contains(p.id())).toArray(Condition<?>[]::new);
     }
 
-    private Map<Condition<?>, PowerResult<?>> checkStaticCondition(Player player, ItemStack i, List<Condition<?>> conds) {
-        Set<String> ids = powers.stream().flatMap(p -> p.getConditions().stream()).collect(Collectors.toSet());
-        List<Condition<?>> statics = conds.stream().filter(Condition::isStatic).filter(p -> ids.contains(p.id())).toList();
+    private Map<Condition<?>, PowerResult<?>> checkStaticCondition(Player player, ItemStack i) {
         Map<Condition<?>, PowerResult<?>> result = new LinkedHashMap<>();
-        for (Condition<?> c : statics) {
+        for (Condition<?> c : dispatch.getStaticConditions()) {
             result.put(c, c.check(player, i, Collections.unmodifiableMap(result)));
         }
         return result;
     }
 
+    /**
+     * @return Whether firing the trigger may run any power or custom trigger of this item
+     */
+    public boolean hasTrigger(Trigger<?, ?, ?, ?> trigger) {
+        return dispatch.get(trigger).length > 0 || dispatch.getCustomTriggers(trigger).length > 0;
+    }
+
     public <TEvent extends Event, TPower extends Pimpl, TResult, TReturn> TReturn power(Player player, ItemStack i, TEvent event, Trigger<TEvent, TPower, TResult, TReturn> trigger, Object context) {
         powerCustomTrigger(player, i, event, trigger, context);
 
-        List<TPower> powers = this.getPower(trigger, player, i);
+        TriggerDispatch.Entry[] entries = dispatch.get(trigger);
+        if (trigger.getPowerClass() == PowerTick.class) {
+            entries = TriggerDispatch.due(entries, player);
+        }
         TReturn ret = trigger.def(player, i, event);
+        if (entries.length == 0) return ret;
+        List<TPower> powers = this.getPower(entries, trigger, player, i);
+        Object[] dispatched = powers.toArray();
         if (!triggerPreCheck(player, i, event, trigger, powers)) return ret;
         try {
-            List<Condition<?>> conds = getConditions();
-            Map<Condition<?>, PowerResult<?>> staticCond = checkStaticCondition(player, i, conds);
+            Map<Condition<?>, PowerResult<?>> staticCond = checkStaticCondition(player, i);
             Map<PropertyHolder, PowerResult<?>> resultMap = new LinkedHashMap<>(staticCond);
-            for (TPower power : powers) {
-                PowerResult<TResult> result = checkConditions(player, i, power, conds, resultMap);
+            for (int k = 0; k < powers.size(); k++) {
+                TPower power = powers.get(k);
+                // pre-fire listeners may have changed the list, only trust the prebuilt conditions if it still lines up
+                Condition<?>[] required = k < dispatched.length && dispatched[k] == power ? entries[k].conditions() : getRequiredConditions(power);
+                PowerResult<TResult> result = checkConditions(player, i, required, resultMap);
                 if (result != null) {
                     resultMap.put(power.getPower(), result);
                 } else {
@@ -1275,11 +1491,11 @@ public class RPGItem {
 
     @SuppressWarnings("unchecked")
     public <TEvent extends Event, TPower extends Pimpl, TResult, TReturn> void powerCustomTrigger(Player player, ItemStack i, TEvent event, Trigger<TEvent, TPower, TResult, TReturn> trigger, Object context) {
-        this.triggers.entrySet()
-                .parallelStream()
-                .filter(e -> trigger.getClass().isInstance(e.getValue()))
-                .sorted(Comparator.comparing(en -> en.getValue().getPriority()))
-                .filter(e -> e.getValue().check(player, i, event)).forEachOrdered(e -> this.power(player, i, event, e.getValue(), context));
+        for (Trigger customTrigger : dispatch.getCustomTriggers(trigger)) {
+            if (customTrigger.check(player, i, event)) {
+                this.power(player, i, event, customTrigger, context);
+            }
+        }
     }
 
     public <TEvent extends Event, TPower extends Pimpl, TResult, TReturn> TReturn power(Player player, ItemStack i, TEvent event, Trigger<TEvent, TPower, TResult, TReturn> trigger) {
@@ -1325,13 +1541,29 @@ public class RPGItem {
     }
 
     public void rebuild() {
+        invalidateRendered();
         List<String> lines = getTooltipLines();
         lines.remove(0);
         setLore(lines);
+        dynamicLore = lines.stream().anyMatch(line -> line.indexOf('%') >= 0);
+        rebuildDispatch();
     }
 
-    @SuppressWarnings("deprecation")
+    /**
+     * @return Display name and lore of the item, cached until the item changes or the default language does
+     */
     public List<String> getTooltipLines() {
+        String language = plugin.cfg.language;
+        if (tooltipLines == null || tooltipRevision != revision || !Objects.equals(language, tooltipLanguage)) {
+            tooltipLines = renderTooltipLines();
+            tooltipRevision = revision;
+            tooltipLanguage = language;
+        }
+        return new ArrayList<>(tooltipLines);
+    }
+
+    @SuppressWarnings("deprecation")
+    private List<String> renderTooltipLines() {
         ArrayList<String> output = new ArrayList<>();
         output.add(getDisplayName());
 
@@ -1386,6 +1618,7 @@ public class RPGItem {
             }
         }
         tooltipWidth = Math.max(width, armorMinLen);
+        durabilityBars = null;
 
         if (isShowArmourLore()) {
             if (mythicSkillStr2 != null) output.add(1, ChatColor.WHITE + mythicSkillStr2);
@@ -1628,6 +1861,7 @@ public class RPGItem {
     public void give(Player player, int count, boolean wear) {
         ItemStack itemStack = toItemStack(player);
         itemStack.setAmount(count);
+        EquipmentIndex.markDirty(player);
         if (wear) {
             if (
                     item.equals(CHAINMAIL_HELMET) ||
@@ -1699,6 +1933,32 @@ public class RPGItem {
         return list;
     }
 
+    /**
+     * @return Selectors with any of the ids. Selectors are indexed by id on first use, until the markers change.
+     */
+    public List<Selector> getSelectors(Set<String> ids) {
+        if (ids.isEmpty()) return Collections.emptyList();
+        Map<String, List<Selector>> index = selectorIndex;
+        if (index == null) {
+            index = new HashMap<>();
+            for (Marker p : markers) {
+                if (p instanceof Selector selector) {
+                    index.computeIfAbsent(selector.id(), k -> new ArrayList<>(1)).add(selector);
+                }
+            }
+            selectorIndex = index;
+        }
+        if (ids.size() == 1) {
+            return index.getOrDefault(ids.iterator().next(), Collections.emptyList());
+        }
+        List<Selector> list = new ArrayList<>();
+        for (String id : ids) {
+            List<Selector> selectors = index.get(id);
+            if (selectors != null) list.addAll(selectors);
+        }
+        return list;
+    }
+
     public <T extends Condition<?>> List<T> getConditions(Class<T> condition) {
         return conditions.stream().filter(p -> p.getClass().equals(condition)).map(condition::cast).collect(Collectors.toList());
     }
@@ -1818,6 +2078,7 @@ public class RPGItem {
             marker.setPlaceholderId(placeholderId);
         }
         markers.add(marker);
+        selectorIndex = null;
         keys.put(marker, key);
         String placeholderId = marker.getPlaceholderId();
         placeholders.put(placeholderId, marker);
@@ -1899,16 +2160,18 @@ public class RPGItem {
         return msg;
     }
 
-    private <TEvent extends Event, T extends Pimpl, TResult, TReturn> List<T> getPower(Trigger<TEvent, T, TResult, TReturn> trigger, Player player, ItemStack stack) {
-        return powers.stream()
-                .filter(p -> p.getTriggers().contains(trigger))
-                .map(p -> {
-                    Class<? extends Power> cls = p.getClass();
-                    Power proxy = Interceptor.create(p, player, stack, trigger);
-                    return PowerManager.createImpl(cls, proxy);
-                })
-                .map(p -> p.cast(trigger.getPowerClass()))
-                .collect(Collectors.toList());
+    private <TEvent extends Event, T extends Pimpl, TResult, TReturn> List<T> getPower(TriggerDispatch.Entry[] entries, Trigger<TEvent, T, TResult, TReturn> trigger, Player player, ItemStack stack) {
+        List<T> list = new ArrayList<>(entries.length);
+        for (TriggerDispatch.Entry entry : entries) {
+            Power proxy = Interceptor.create(entry.power(), player, stack, trigger);
+            list.add(entry.create(proxy, trigger.getPowerClass()));
+        }
+        return list;
+    }
+
+    private void rebuildDispatch() {
+        selectorIndex = null;
+        dispatch = TriggerDispatch.build(powers, conditions, triggers.values());
     }
 
     public PlaceholderHolder getPlaceholderHolder(String placeholderId) {
@@ -1964,6 +2227,7 @@ public class RPGItem {
         NamespacedKey remove = keys.remove(oldPh);
         keys.put(newPh, remove);
         placeholders.put(powerId, newPh);
+        rebuildDispatch();
         return newPh;
     }
 
@@ -2074,6 +2338,7 @@ public class RPGItem {
         this.isTemplate = isTemplate;
         this.templates = templates;
         this.rebuildPlaceholder();
+        this.rebuildDispatch();
     }
 
     private void rebuildPlaceholder() {
@@ -2089,6 +2354,12 @@ public class RPGItem {
 
     public void addTrigger(String name, Trigger trigger) {
         triggers.put(name, trigger);
+        rebuildDispatch();
+    }
+
+    public void removeTrigger(String name) {
+        triggers.remove(name);
+        rebuildDispatch();
     }
 
     public void deinit() {
@@ -0,0 +1,302 @@
+package think.rpgitems.item;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import think.rpgitems.RPGItems;
+import think.rpgitems.commands.AdminCommands;
+import think.rpgitems.utils.nyaacore.cmdreceiver.BadCommandException;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * Write-behind persistence of {@link RPGItem}s.
+ * <p>
+ * Saves requested during a tick are coalesced per item and flushed on the next tick. Each item is serialized on the
+ * main thread, then backed up, written to a temporary file and atomically renamed over the item file on a writer
+ * thread, which then reads the file back from disk. Back on the main thread the content read back is verified by building a
+ * throwaway item, and the file is locked again.
+ * At most one write per item is in flight; saves requested meanwhile wait for it.
+ */
+final class SaveQueue {
+    private static final Map<RPGItem, CompletableFuture<Void>> pending = new LinkedHashMap<>();
+    private static final Map<RPGItem, Write> inFlight = new HashMap<>();
+    // pending saves whose failure is reported by a caller
+    private static final Set<RPGItem> reported = new HashSet<>();
+    private static ExecutorService writer;
+    private static BukkitTask flushTask;
+    private static int generation = 0;
+
+    private SaveQueue() {
+    }
+
+    /**
+     * @param report Whether the caller reports a failure itself, otherwise it is reported to the console and online operators
+     * @return Future completed when the item is written and verified, shared with other saves of the item in the same tick
+     */
+    static CompletableFuture<Void> enqueue(RPGItem item, boolean report) {
+        if (report) reported.add(item);
+        CompletableFuture<Void> future = pending.get(item);
+        if (future != null) return future;
+        future = new CompletableFuture<>();
+        pending.put(item, future);
+        scheduleFlush();
+        return future;
+    }
+
+    /**
+     * Completes any pending or in flight save of the item on the calling thread, so its file can be read
+     */
+    static void flush(RPGItem item) {
+        Write write = inFlight.get(item);
+        if (write != null) {
+            write.await();
+            finish(write);
+        }
+        CompletableFuture<Void> future = pending.remove(item);
+        if (future != null) {
+            write = prepare(item, future);
+            if (write != null) {
+                write.run();
+                finish(write);
+            }
+        }
+    }
+
+    /**
+     * Completes every pending and in flight save on the calling thread, and forgets the files they lock
+     */
+    static void flushAll() {
+        for (Write write : new ArrayList<>(inFlight.values())) {
+            write.await();
+            finish(write);
+        }
+        for (RPGItem item : new ArrayList<>(pending.keySet())) {
+            flush(item);
+        }
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        generation++;
+    }
+
+    /**
+     * @return Whether a save of the item is pending or in flight
+     */
+    static boolean isBusy(RPGItem item) {
+        return pending.containsKey(item) || inFlight.containsKey(item);
+    }
+
+    /**
+     * @return Future completed when the last requested save of the item is done, or null if no save is pending or in flight
+     */
+    static CompletableFuture<Void> whenSaved(RPGItem item) {
+        CompletableFuture<Void> future = pending.get(item);
+        if (future != null) return future;
+        Write write = inFlight.get(item);
+        return write == null ? null : write.future;
+    }
+
+    /**
+     * Reports a failed save to the sender, or to the console and online operators if there is no sender
+     */
+    static void report(Throwable e, CommandSender sender) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (!(e instanceof BadCommandException ex) || ex.getMessage() == null) return;
+        List<CommandSender> targets = new ArrayList<>();
+        if (sender != null) {
+            targets.add(sender);
+        } else {
+            targets.add(Bukkit.getConsoleSender());
+            Bukkit.getOnlinePlayers().stream().filter(Player::isOp).forEach(targets::add);
+        }
+        for (CommandSender target : targets) {
+            AdminCommands.msgs(target, ex.getMessage(), ex.objs == null ? new Object[0] : ex.objs);
+        }
+    }
+
+    private static void scheduleFlush() {
+        if (flushTask != null) return;
+        flushTask = Bukkit.getScheduler().runTaskLater(RPGItems.plugin, SaveQueue::flushPending, 1L);
+    }
+
+    private static void flushPending() {
+        flushTask = null;
+        Iterator<Map.Entry<RPGItem, CompletableFuture<Void>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<RPGItem, CompletableFuture<Void>> entry = it.next();
+            RPGItem item = entry.getKey();
+            if (inFlight.containsKey(item)) continue;
+            it.remove();
+            Write write = prepare(item, entry.getValue());
+            if (write == null) continue;
+            inFlight.put(item, write);
+            write.io = CompletableFuture.runAsync(write, getWriter());
+            write.io.whenComplete((v, e) -> Bukkit.getScheduler().runTask(RPGItems.plugin, () -> finish(write)));
+        }
+    }
+
+    private static synchronized ExecutorService getWriter() {
+        if (writer == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "RPGItems-Writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            writer = executor;
+        }
+        return writer;
+    }
+
+    private static Write prepare(RPGItem item, CompletableFuture<Void> future) {
+        Write write = new Write(item, future);
+        write.reported = reported.remove(item);
+        try {
+            YamlConfiguration configuration = new YamlConfiguration();
+            item.setPluginVersion(RPGItems.getVersion());
+            item.setPluginSerial(RPGItems.getSerial());
+            item.save(configuration);
+            write.content = configuration.saveToString();
+            if (write.exist) {
+                ItemManager.unlock(write.itemFile, false);
+            }
+            return write;
+        } catch (Exception e) {
+            fail(write, e);
+            return null;
+        }
+    }
+
+    private static void finish(Write write) {
+        if (write.finished) return;
+        write.finished = true;
+        inFlight.remove(write.item);
+        RPGItem item = write.item;
+        String itemName = item.getName();
+        try {
+            if (write.error != null) throw write.error;
+            if (write.generation == generation) {
+                try {
+                    RPGItem testItem = new RPGItem(write.written, null);
+                    testItem.deinit();
+                    if (write.backup != null && write.backup.exists()) {
+                        write.backup.deleteOnExit();
+                    }
+                    item.setFile(write.itemFile);
+                    ItemManager.lock(write.itemFile);
+                } catch (Exception e) {
+                    RPGItems.plugin.getLogger().log(Level.SEVERE, "Error verifying integrity for " + itemName + ".", e);
+                    throw new AdminCommands.CommandException("message.error.verifying", e, itemName, e.getLocalizedMessage());
+                }
+            }
+            write.future.complete(null);
+        } catch (Exception e) {
+            fail(write, e);
+        }
+        if (pending.containsKey(item)) {
+            scheduleFlush();
+        }
+    }
+
+    private static void fail(Write write, Exception e) {
+        String itemName = write.item.getName();
+        RPGItems.plugin.getLogger().log(Level.SEVERE, "Error saving " + itemName + ".", e);
+        RPGItems.plugin.getLogger().severe("Dumping current item");
+        RPGItems.plugin.getLogger().severe("===============");
+        RPGItems.plugin.getLogger().severe(write.content);
+        RPGItems.plugin.getLogger().severe("===============");
+        Exception result = e;
+        if (write.exist && write.backup != null && write.backup.exists()) {
+            try {
+                RPGItems.plugin.getLogger().severe("Recovering backup: " + write.backup);
+                Files.copy(write.backup.toPath(), write.itemFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                if (write.generation == generation) {
+                    ItemManager.lock(write.itemFile);
+                }
+            } catch (Exception exRec) {
+                RPGItems.plugin.getLogger().log(Level.SEVERE, "Error recovering backup: " + write.backup, exRec);
+                result = new AdminCommands.CommandException("message.error.recovering", exRec, itemName, write.backup.getPath(), exRec.getLocalizedMessage());
+            }
+        }
+        if (!write.reported) {
+            report(result, null);
+        }
+        write.future.completeExceptionally(result);
+    }
+
+    /**
+     * A single save of an item. {@link #run()} does the file work and may run off the main thread.
+     */
+    private static final class Write implements Runnable {
+        final RPGItem item;
+        final CompletableFuture<Void> future;
+        final File itemFile;
+        final boolean exist;
+        final int generation = SaveQueue.generation;
+        String content = "";
+        CompletableFuture<Void> io;
+        File backup;
+        YamlConfiguration written;
+        Exception error;
+        boolean finished = false;
+        boolean reported;
+
+        Write(RPGItem item, CompletableFuture<Void> future) {
+            this.item = item;
+            this.future = future;
+            this.itemFile = item.getFile() == null ? ItemManager.createFile(ItemManager.getItemsDir(), item.getName(), "-item", true) : item.getFile();
+            this.exist = itemFile.exists();
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (exist) {
+                    backup = ItemManager.backup(itemFile, item.getName());
+                }
+                // refuse to replace the file with content that cannot be read back
+                new YamlConfiguration().loadFromString(content);
+                Path target = itemFile.toPath();
+                Path temp = target.resolveSibling("." + itemFile.getName() + ".tmp");
+                byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                Files.write(temp, bytes);
+                ItemWatcher.record(itemFile, ItemSnapshot.hash(bytes));
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                // verify what actually reached the disk, not the content in memory
+                YamlConfiguration loaded = new YamlConfiguration();
+                loaded.load(itemFile);
+                written = loaded;
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+
+        void await() {
+            if (io == null) return;
+            try {
+                io.join();
+            } catch (CompletionException | CancellationException ignored) {
+                // recorded in error
+            }
+        }
+    }
+}
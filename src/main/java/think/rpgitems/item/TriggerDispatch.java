@@ -0,0 +1,149 @@
+package think.rpgitems.item;
+
+import org.bukkit.entity.Player;
+import think.rpgitems.power.Condition;
+import think.rpgitems.power.Pimpl;
+import think.rpgitems.power.Power;
+import think.rpgitems.power.PowerManager;
+import think.rpgitems.power.TickIntervalHolder;
+import think.rpgitems.power.Ticker;
+import think.rpgitems.power.trigger.Trigger;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Prebuilt table of the powers and custom triggers an {@link RPGItem} fires for each trigger.
+ * Rebuilt whenever the item is loaded or changed, so firing a trigger does not scan the power list.
+ */
+@SuppressWarnings("rawtypes")
+final class TriggerDispatch {
+    static final TriggerDispatch EMPTY = new TriggerDispatch(new Entry[0][], new Condition<?>[0], Collections.emptyMap());
+    private static final Entry[] NONE = new Entry[0];
+    private static final Trigger[] NO_TRIGGERS = new Trigger[0];
+
+    private final Entry[][] byTrigger;
+    private final Condition<?>[] staticConditions;
+    private final Map<Class<?>, Trigger[]> customTriggers;
+
+    private TriggerDispatch(Entry[][] byTrigger, Condition<?>[] staticConditions, Map<Class<?>, Trigger[]> customTriggers) {
+        this.byTrigger = byTrigger;
+        this.staticConditions = staticConditions;
+        this.customTriggers = customTriggers;
+    }
+
+    static TriggerDispatch build(List<Power> powers, List<Condition<?>> conditions, Collection<Trigger> triggers) {
+        int size = Trigger.indexCount();
+        List<List<Entry>> lists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lists.add(null);
+        }
+        Set<String> required = new HashSet<>();
+        for (Power power : powers) {
+            Set<String> ids = power.getConditions();
+            required.addAll(ids);
+            Set<Trigger> triggers = power.getTriggers();
+            if (triggers.isEmpty()) continue;
+            Entry entry = new Entry(power, PowerManager.getImplFactory(power.getClass()), resolve(conditions, ids));
+            for (Trigger trigger : triggers) {
+                int index = trigger.getIndex();
+                if (index < 0 || index >= size) continue;
+                List<Entry> list = lists.get(index);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    lists.set(index, list);
+                }
+                list.add(entry);
+            }
+        }
+        Entry[][] byTrigger = new Entry[size][];
+        for (int i = 0; i < size; i++) {
+            List<Entry> list = lists.get(i);
+            byTrigger[i] = list == null ? NONE : list.toArray(NONE);
+        }
+        Condition<?>[] statics = conditions.stream()
+                .filter(Condition::isStatic)
+                .filter(c -> required.contains(c.id()))
+                .toArray(Condition<?>[]::new);
+        return new TriggerDispatch(byTrigger, statics, groupCustomTriggers(triggers));
+    }
+
+    /**
+     * Groups custom triggers under every trigger class they are an instance of, sorted by priority
+     */
+    private static Map<Class<?>, Trigger[]> groupCustomTriggers(Collection<Trigger> triggers) {
+        if (triggers.isEmpty()) return Collections.emptyMap();
+        Map<Class<?>, List<Trigger>> groups = new HashMap<>();
+        for (Trigger trigger : triggers) {
+            for (Class<?> cls = trigger.getClass(); cls != null && Trigger.class.isAssignableFrom(cls); cls = cls.getSuperclass()) {
+                groups.computeIfAbsent(cls, k -> new ArrayList<>()).add(trigger);
+            }
+        }
+        Map<Class<?>, Trigger[]> result = new HashMap<>(groups.size() * 2);
+        groups.forEach((cls, list) -> {
+            list.sort(Comparator.comparingInt(Trigger::getPriority));
+            result.put(cls, list.toArray(NO_TRIGGERS));
+        });
+        return result;
+    }
+
+    private static Condition<?>[] resolve(List<Condition<?>> conditions, Set<String> ids) {
+        if (ids.isEmpty()) return new Condition<?>[0];
+        return conditions.stream().filter(c -> ids.contains(c.id())).toArray(Condition<?>[]::new);
+    }
+
+    /**
+     * @param trigger Trigger being fired
+     * @return Powers of the item fired by the trigger, in item order. Never null.
+     */
+    Entry[] get(Trigger trigger) {
+        int index = trigger.getIndex();
+        return index >= 0 && index < byTrigger.length ? byTrigger[index] : NONE;
+    }
+
+    /**
+     * @param trigger Trigger being fired
+     * @return Custom triggers of the item that are instances of the trigger's class, by priority. Never null.
+     */
+    Trigger[] getCustomTriggers(Trigger trigger) {
+        if (customTriggers.isEmpty()) return NO_TRIGGERS;
+        return customTriggers.getOrDefault(trigger.getClass(), NO_TRIGGERS);
+    }
+
+    /**
+     * Drops the tick powers that are not due on this tick for the player, before any proxy is created for them
+     *
+     * @param entries Entries fired by a tick trigger
+     * @return Entries that are due, the same array if all of them are
+     */
+    static Entry[] due(Entry[] entries, Player player) {
+        Entry[] due = null;
+        int count = 0;
+        for (int k = 0; k < entries.length; k++) {
+            Entry entry = entries[k];
+            if (!(entry.power() instanceof TickIntervalHolder holder) || Ticker.isDue(player, holder.getTickInterval())) {
+                if (due != null) due[count++] = entry;
+            } else if (due == null) {
+                due = Arrays.copyOf(entries, entries.length);
+                count = k;
+            }
+        }
+        return due == null ? entries : Arrays.copyOf(due, count);
+    }
+
+    /**
+     * @return Static conditions required by any power of the item, in item order
+     */
+    Condition<?>[] getStaticConditions() {
+        return staticConditions;
+    }
+
+    /**
+     * A power together with its impl factory and the conditions it requires
+     */
+    record Entry(Power power, Function<Power, Pimpl> factory, Condition<?>[] conditions) {
+        <T extends Pimpl> T create(Power proxy, Class<T> powerClass) {
+            return factory.apply(proxy).cast(powerClass);
+        }
+    }
+}
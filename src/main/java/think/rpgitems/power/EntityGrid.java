@@ -0,0 +1,233 @@
+package think.rpgitems.power;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.util.BoundingBox;
+import org.bukkit.util.RayTraceResult;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Per-world spatial hash of entity bounding boxes, filled during a tick with the loaded chunks around each query
+ * and shared by every power querying the world during that tick.
+ * <p>
+ * A chunk is read once per tick, the first time a query comes within the half width of the widest entity seen plus
+ * {@link #MOVE_MARGIN} blocks of it, so boxes sticking out of their chunk are still found. Entities are placed with their
+ * box stretched by their velocity and {@link #MOVE_MARGIN}, so they are still found after moving later in the tick, and
+ * are placed again when a query finds their current box outside of the cells they were placed in.
+ * The grid of a world is dropped when an entity spawns or teleports in it, so later queries of the tick see the entity.
+ * Queries test the current box of each candidate, and skip entities removed since their chunk was read.
+ */
+public final class EntityGrid {
+    private static final int CELL_SHIFT = 3; // 8 blocks
+    private static final double MOVE_MARGIN = 1;
+    // half width of the widest vanilla entity, the ender dragon, grown when a wider entity such as a huge slime is seen
+    private static double maxExtent = 8;
+    private static final Map<UUID, EntityGrid> grids = new HashMap<>();
+    private static int currentTick = Integer.MIN_VALUE;
+
+    private final World world;
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    private final Set<Long> chunks = new HashSet<>();
+    private int queryStamp = 0;
+
+    private EntityGrid(World world) {
+        this.world = world;
+    }
+
+    private void fill(BoundingBox area) {
+        double margin = maxExtent + MOVE_MARGIN;
+        int minChunkX = ((int) Math.floor(area.getMinX() - margin)) >> 4, maxChunkX = ((int) Math.floor(area.getMaxX() + margin)) >> 4;
+        int minChunkZ = ((int) Math.floor(area.getMinZ() - margin)) >> 4, maxChunkZ = ((int) Math.floor(area.getMaxZ() + margin)) >> 4;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (!chunks.add(((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL))) continue;
+                if (!world.isChunkLoaded(chunkX, chunkZ)) continue;
+                for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                    BoundingBox box = entity.getBoundingBox();
+                    maxExtent = Math.max(maxExtent, Math.max(box.getWidthX(), box.getWidthZ()) / 2);
+                    Entry entry = new Entry(entity, box);
+                    place(entry, reach(entity, box));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Area the entity may cover until the end of the tick
+     */
+    private static BoundingBox reach(Entity entity, BoundingBox box) {
+        return box.clone().expandDirectional(entity.getVelocity()).expand(MOVE_MARGIN);
+    }
+
+    /**
+     * Adds the entry to the cells of the smallest range covering the area and the cells it is already in
+     */
+    private void place(Entry entry, BoundingBox area) {
+        int minX = cell(area.getMinX()), maxX = cell(area.getMaxX());
+        int minY = cell(area.getMinY()), maxY = cell(area.getMaxY());
+        int minZ = cell(area.getMinZ()), maxZ = cell(area.getMaxZ());
+        if (entry.placed) {
+            minX = Math.min(minX, entry.minX);
+            maxX = Math.max(maxX, entry.maxX);
+            minY = Math.min(minY, entry.minY);
+            maxY = Math.max(maxY, entry.maxY);
+            minZ = Math.min(minZ, entry.minZ);
+            maxZ = Math.max(maxZ, entry.maxZ);
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    if (entry.placed && entry.isPlacedIn(x, y, z)) continue;
+                    cells.computeIfAbsent(key(x, y, z), k -> new ArrayList<>(4)).add(entry);
+                }
+            }
+        }
+        entry.placed = true;
+        entry.minX = minX;
+        entry.maxX = maxX;
+        entry.minY = minY;
+        entry.maxY = maxY;
+        entry.minZ = minZ;
+        entry.maxZ = maxZ;
+    }
+
+    /**
+     * @return Grid of the world for the current tick
+     */
+    public static EntityGrid of(World world) {
+        int tick = Bukkit.getCurrentTick();
+        if (tick != currentTick) {
+            grids.clear();
+            currentTick = tick;
+        }
+        return grids.computeIfAbsent(world.getUID(), k -> new EntityGrid(world));
+    }
+
+    /**
+     * Drops the grid of the world for the rest of the tick, after an entity was added or moved to it
+     */
+    public static void invalidate(World world) {
+        grids.remove(world.getUID());
+    }
+
+    /**
+     * @return Entities of the type whose boxes overlap the area, each once
+     */
+    public List<Entry> query(BoundingBox area, Class<? extends Entity> type) {
+        List<Entry> result = new ArrayList<>();
+        query(area, type, result);
+        return result;
+    }
+
+    /**
+     * Adds the entities of the type whose boxes overlap the area to {@code result}, each once
+     */
+    public void query(BoundingBox area, Class<? extends Entity> type, List<Entry> result) {
+        fill(area);
+        int stamp = ++queryStamp;
+        int minX = cell(area.getMinX()), maxX = cell(area.getMaxX());
+        int minY = cell(area.getMinY()), maxY = cell(area.getMaxY());
+        int minZ = cell(area.getMinZ()), maxZ = cell(area.getMaxZ());
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    List<Entry> cell = cells.get(key(x, y, z));
+                    if (cell == null) continue;
+                    for (Entry entry : cell) {
+                        if (entry.stamp == stamp) continue;
+                        entry.stamp = stamp;
+                        if (!type.isInstance(entry.entity) || !entry.entity.isValid()) continue;
+                        entry.box = entry.entity.getBoundingBox();
+                        if (!entry.isPlacedOver(entry.box)) {
+                            // moved further than expected, later queries of other cells must still find it
+                            place(entry, reach(entry.entity, entry.box));
+                        }
+                        if (entry.box.overlaps(area)) {
+                            result.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as {@link World#getNearbyEntities(Location, double, double, double)}, answered from the grid
+     */
+    public <T extends Entity> List<T> getNearbyEntities(Location location, double x, double y, double z, Class<T> type) {
+        List<Entry> entries = query(BoundingBox.of(location, x, y, z), type);
+        List<T> entities = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            entities.add(type.cast(entry.entity));
+        }
+        return entities;
+    }
+
+    private static int cell(double coordinate) {
+        return ((int) Math.floor(coordinate)) >> CELL_SHIFT;
+    }
+
+    private static long key(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) y & 0xFFF) << 26 | ((long) z & 0x3FFFFFF);
+    }
+
+    /**
+     * An entity and its box when the grid was built
+     */
+    public static final class Entry {
+        private final Entity entity;
+        private BoundingBox box;
+        private int stamp;
+        // range of cells the entry was added to
+        private boolean placed;
+        private int minX, maxX, minY, maxY, minZ, maxZ;
+
+        private Entry(Entity entity, BoundingBox box) {
+            this.entity = entity;
+            this.box = box;
+        }
+
+        public Entity getEntity() {
+            return entity;
+        }
+
+        private boolean isPlacedIn(int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+
+        private boolean isPlacedOver(BoundingBox box) {
+            return isPlacedIn(cell(box.getMinX()), cell(box.getMinY()), cell(box.getMinZ()))
+                    && isPlacedIn(cell(box.getMaxX()), cell(box.getMaxY()), cell(box.getMaxZ()));
+        }
+
+        /**
+         * @return Box of the entity when it was last returned by a query. Must not be modified.
+         */
+        public BoundingBox getBox() {
+            return box;
+        }
+
+        /**
+         * Sweeps a box with the given half extents from {@code start} along {@code direction} against this entity
+         *
+         * @return Distance travelled along {@code direction} until the boxes touch, or -1 if they do not within {@code distance}
+         */
+        public double sweep(Vector start, Vector direction, double distance, double halfX, double halfY, double halfZ) {
+            BoundingBox expanded = box.clone().expand(halfX, halfY, halfZ);
+            if (expanded.contains(start)) return 0;
+            if (distance <= 0) return -1;
+            RayTraceResult hit = expanded.rayTrace(start, direction, distance);
+            return hit == null ? -1 : hit.getHitPosition().distance(start);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package think.rpgitems.power;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import think.rpgitems.Configuration;
+import think.rpgitems.RPGItems;
+
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Collects the particle spawns of powers during a tick and sends them together from one task on the next tick.
+ * <p>
+ * A spawn is sent only to players within {@code general.particle.view_distance} blocks of it, or 512 blocks for
+ * forced particles, as in vanilla. If a player would receive more than {@code general.particle.budget} spawns in a
+ * tick, an evenly spread share of them is sent. While the server runs below {@code general.particle.reduce_below_tps},
+ * the budget and particle counts shrink with the TPS.
+ * Delayed spawns wait in the same task rather than scheduling one task each.
+ */
+public final class ParticleBatcher extends BukkitRunnable {
+    private static final double FORCED_DISTANCE = 512;
+    private static final Map<World, List<Request>> pending = new HashMap<>();
+    private static final Map<Integer, List<Runnable>> delayed = new HashMap<>();
+    private static ParticleBatcher task;
+
+    private ParticleBatcher() {
+    }
+
+    /**
+     * Spawns the particle for the players near the location, like {@link World#spawnParticle}
+     */
+    public static void spawn(World world, Particle particle, Location location, int count, double offsetX, double offsetY, double offsetZ, double extra, Object data, boolean force) {
+        pending.computeIfAbsent(world, k -> new ArrayList<>()).add(new Request(null, particle, location, count, offsetX, offsetY, offsetZ, extra, data, force));
+        start();
+    }
+
+    /**
+     * Spawns the particle for the player only, like {@link Player#spawnParticle}
+     */
+    public static void spawn(Player viewer, Particle particle, Location location, int count, double offsetX, double offsetY, double offsetZ, double extra, Object data) {
+        pending.computeIfAbsent(viewer.getWorld(), k -> new ArrayList<>()).add(new Request(viewer, particle, location, count, offsetX, offsetY, offsetZ, extra, data, false));
+        start();
+    }
+
+    /**
+     * Runs the action after the delay in ticks, at least one. Particles it spawns are sent on the same tick.
+     */
+    public static void later(long delay, Runnable action) {
+        int tick = Bukkit.getCurrentTick() + (int) Math.max(1, delay);
+        delayed.computeIfAbsent(tick, k -> new ArrayList<>()).add(action);
+        start();
+    }
+
+    private static void start() {
+        if (task != null && !task.isCancelled()) return;
+        task = new ParticleBatcher();
+        task.runTaskTimer(RPGItems.plugin, 1, 1);
+    }
+
+    @Override
+    public void run() {
+        if (!delayed.isEmpty()) {
+            int now = Bukkit.getCurrentTick();
+            List<Integer> due = new ArrayList<>();
+            for (Integer tick : delayed.keySet()) {
+                if (tick <= now) due.add(tick);
+            }
+            Collections.sort(due);
+            for (Integer tick : due) {
+                for (Runnable action : delayed.remove(tick)) {
+                    try {
+                        action.run();
+                    } catch (Exception e) {
+                        RPGItems.plugin.getLogger().log(Level.WARNING, "Error running delayed particle", e);
+                    }
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            Configuration cfg = RPGItems.plugin.cfg;
+            double scale = 1;
+            double tps = Bukkit.getTPS()[0];
+            if (tps < cfg.particleReduceBelowTps) {
+                scale = Math.max(0.25, (tps / 20) * (tps / 20));
+            }
+            for (Map.Entry<World, List<Request>> entry : pending.entrySet()) {
+                send(entry.getKey(), entry.getValue(), cfg.particleViewDistance, cfg.particleBudget, scale);
+            }
+            pending.clear();
+        }
+        if (delayed.isEmpty()) {
+            cancel();
+            task = null;
+        }
+    }
+
+    private static void send(World world, List<Request> requests, double viewDistance, int budget, double scale) {
+        List<Player> players = world.getPlayers();
+        int n = players.size();
+        if (n == 0) return;
+        double[][] positions = new double[n][];
+        for (int i = 0; i < n; i++) {
+            Location location = players.get(i).getLocation();
+            positions[i] = new double[]{location.getX(), location.getY(), location.getZ()};
+        }
+        double viewSquared = viewDistance * viewDistance;
+        // share of the visible spawns each player gets, sent evenly by accumulating it
+        double[] share = new double[n];
+        Arrays.fill(share, 1);
+        int limit = budget <= 0 ? Integer.MAX_VALUE : (int) Math.max(1, budget * scale);
+        if (limit != Integer.MAX_VALUE) {
+            int[] visible = new int[n];
+            for (Request request : requests) {
+                for (int i = 0; i < n; i++) {
+                    if (request.isVisible(players.get(i), positions[i], viewSquared)) visible[i]++;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                if (visible[i] > limit) share[i] = (double) limit / visible[i];
+            }
+        }
+        double[] accumulated = new double[n];
+        List<Player> receivers = new ArrayList<>();
+        for (Request request : requests) {
+            receivers.clear();
+            for (int i = 0; i < n; i++) {
+                Player player = players.get(i);
+                if (!request.isVisible(player, positions[i], viewSquared)) continue;
+                accumulated[i] += share[i];
+                if (accumulated[i] >= 1) {
+                    accumulated[i] -= 1;
+                    receivers.add(player);
+                }
+            }
+            if (receivers.isEmpty()) continue;
+            int count = request.count == 0 || scale >= 1 ? request.count : (int) Math.max(1, Math.round(request.count * scale));
+            try {
+                world.spawnParticle(request.particle, receivers, null, request.x, request.y, request.z, count, request.offsetX, request.offsetY, request.offsetZ, request.extra, request.data, request.force);
+            } catch (IllegalArgumentException e) {
+                RPGItems.plugin.getLogger().log(Level.WARNING, "Error spawning particle " + request.particle, e);
+            }
+        }
+    }
+
+    private static final class Request {
+        final Player viewer;
+        final Particle particle;
+        final double x, y, z;
+        final int count;
+        final double offsetX, offsetY, offsetZ, extra;
+        final Object data;
+        final boolean force;
+
+        Request(Player viewer, Particle particle, Location location, int count, double offsetX, double offsetY, double offsetZ, double extra, Object data, boolean force) {
+            this.viewer = viewer;
+            this.particle = particle;
+            // copied, callers may reuse the location
+            this.x = location.getX();
+            this.y = location.getY();
+            this.z = location.getZ();
+            this.count = count;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.offsetZ = offsetZ;
+            this.extra = extra;
+            this.data = data;
+            this.force = force;
+        }
+
+        boolean isVisible(Player player, double[] position, double viewSquared) {
+            if (viewer != null) return viewer == player;
+            double dx = position[0] - x, dy = position[1] - y, dz = position[2] - z;
+            double distanceSquared = dx * dx + dy * dy + dz * dz;
+            return distanceSquared <= (force ? FORCED_DISTANCE * FORCED_DISTANCE : viewSquared);
+        }
+    }
+}
@@ -11,8 +11,12 @@ import org.bukkit.plugin.Plugin;
 import think.rpgitems.commands.AdminCommands;
 import think.rpgitems.RPGItems;
 import think.rpgitems.power.propertymodifier.Modifier;
+import think.rpgitems.power.proxy.Interceptor;
 
 import javax.annotation.CheckForNull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -35,6 +39,7 @@ public class PowerManager {
     private static final HashBasedTable<Plugin, String, BiFunction<NamespacedKey, String, String>> descriptionResolvers = HashBasedTable.create();
     private static final HashMap<NamespacedKey, NamespacedKey> overrides = new HashMap<>();
     private static final HashMap<String, NamespacedKey> keyCache = new HashMap<>();
+    private static final Map<Class<? extends Power>, Function<Power, Pimpl>> implFactories = new HashMap<>();
     /**
      * Power by name, and name by power
      */
@@ -58,6 +63,8 @@ public class PowerManager {
         adapters.clear();
         overrides.clear();
         keyCache.clear();
+        implFactories.clear();
+        Interceptor.clear();
     }
 
     private static void registerPower(Class<? extends Power> clazz) {
@@ -400,14 +407,43 @@ public class PowerManager {
     }
 
     public static Pimpl createImpl(Class<? extends Power> cls, Power p) {
-        if (!cls.isInstance(p)) throw new IllegalArgumentException();
+        return getImplFactory(cls).apply(p);
+    }
+
+    /**
+     * @param cls Class of Power
+     * @return Factory creating the {@link Pimpl} of the power, resolved once per class
+     */
+    public static Function<Power, Pimpl> getImplFactory(Class<? extends Power> cls) {
+        return implFactories.computeIfAbsent(cls, PowerManager::makeImplFactory);
+    }
+
+    private static Function<Power, Pimpl> makeImplFactory(Class<? extends Power> cls) {
         Class<? extends Pimpl> pimpl = getMeta(cls).implClass();
-        if (pimpl.equals(Pimpl.class)) throw new IllegalStateException();
+        if (pimpl.equals(Pimpl.class)) {
+            return p -> {
+                throw new IllegalStateException();
+            };
+        }
+        MethodHandle constructor;
         try {
-            return pimpl.getConstructor(cls).newInstance(p);
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+            constructor = MethodHandles.lookup()
+                    .unreflectConstructor(pimpl.getConstructor(cls))
+                    .asType(MethodType.methodType(Pimpl.class, Power.class));
+        } catch (IllegalAccessException | NoSuchMethodException e) {
             RPGItems.logger.log(Level.SEVERE, "Invalid impl: " + pimpl + " for " + cls, e);
             throw new RuntimeException(e);
         }
+        return p -> {
+            if (!cls.isInstance(p)) throw new IllegalArgumentException();
+            try {
+                return (Pimpl) constructor.invokeExact(p);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                RPGItems.logger.log(Level.SEVERE, "Invalid impl: " + pimpl + " for " + cls, e);
+                throw new RuntimeException(e);
+            }
+        };
     }
 }
@@ -0,0 +1,287 @@
+package think.rpgitems.power;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitRunnable;
+import think.rpgitems.RPGItems;
+import think.rpgitems.item.ItemManager;
+import think.rpgitems.item.RPGItem;
+
+import java.util.*;
+
+/**
+ * Projectiles launched by RPG items, keyed by entity id and cleaned up from one shared task.
+ * <p>
+ * Entries are dropped once per tick in a batch: a tick after their projectile hit something, once the projectile is
+ * no longer valid (dead, despawned or unloaded with its chunk), or once they are older than
+ * {@code general.projectile.max_age} ticks. Entries holding the real item of a thrown trident are kept past that age
+ * while the trident exists, so it can still be picked up.
+ * Launches announced by powers before launching a projectile are kept until the end of the tick at most.
+ */
+public final class ProjectileRegistry extends BukkitRunnable {
+    private static final int NEVER = Integer.MAX_VALUE;
+    // entries registered by entity id only cannot be checked for validity, so they expire whatever max_age says
+    private static final int ID_ONLY_MAX_AGE = 1200;
+    private static final Table table = new Table();
+    private static final Map<UUID, Launch> launches = new HashMap<>();
+    private static int[] dropped = new int[16];
+    private static ProjectileRegistry task;
+
+    private ProjectileRegistry() {
+    }
+
+    /**
+     * Announces that {@code source} is about to launch a projectile for the player with the item, to be claimed by
+     * {@link #takeLaunch} from the launch event
+     */
+    public static void expectLaunch(RPGItem item, ItemStack stack, Player player, Entity source) {
+        launches.put(source.getUniqueId(), new Launch(item, stack, player, Bukkit.getCurrentTick()));
+        start();
+    }
+
+    /**
+     * @return Launch announced for the shooter during this tick, or null
+     */
+    public static Launch takeLaunch(Entity shooter) {
+        if (launches.isEmpty()) return null;
+        Launch launch = launches.remove(shooter.getUniqueId());
+        return launch == null || launch.tick() != Bukkit.getCurrentTick() ? null : launch;
+    }
+
+    /**
+     * Marks the projectile as launched by the item
+     */
+    public static void track(Entity projectile, int itemUid) {
+        Entry entry = entry(projectile);
+        entry.itemUid = itemUid;
+        entry.rpg = true;
+    }
+
+    /**
+     * Marks the projectile with the entity id as launched by the item, for callers not holding the entity.
+     * Until the projectile hits something, its entry only expires by age, after {@link #ID_ONLY_MAX_AGE} ticks at most.
+     */
+    public static void track(int entityId, int itemUid) {
+        Entry entry = entry(entityId, null);
+        entry.itemUid = itemUid;
+        entry.rpg = true;
+    }
+
+    /**
+     * Removes the projectile a tick after it hits something, unless it pierces the entity it hit
+     */
+    public static void autoRemove(Entity projectile) {
+        entry(projectile).autoRemove = true;
+    }
+
+    /**
+     * {@link #autoRemove(Entity)} for callers not holding the entity
+     */
+    public static void autoRemove(int entityId) {
+        entry(entityId, null).autoRemove = true;
+    }
+
+    /**
+     * Keeps the real item of a projectile carrying a stand-in, such as a thrown trident
+     */
+    public static void setLocalItemStack(Entity projectile, ItemStack item) {
+        entry(projectile).localItemStack = item;
+    }
+
+    public static boolean isTracked(Entity projectile) {
+        Entry entry = table.get(projectile.getEntityId());
+        return entry != null && entry.rpg;
+    }
+
+    /**
+     * @return Item the projectile was launched by, if it is tracked and the item is still loaded
+     */
+    public static Optional<RPGItem> getItem(Entity projectile) {
+        Entry entry = table.get(projectile.getEntityId());
+        return entry == null || !entry.rpg ? Optional.empty() : ItemManager.getItem(entry.itemUid);
+    }
+
+    public static ItemStack getLocalItemStack(Entity projectile) {
+        Entry entry = table.get(projectile.getEntityId());
+        return entry == null ? null : entry.localItemStack;
+    }
+
+    public static ItemStack removeLocalItemStack(Entity projectile) {
+        Entry entry = table.get(projectile.getEntityId());
+        if (entry == null) return null;
+        ItemStack item = entry.localItemStack;
+        entry.localItemStack = null;
+        return item;
+    }
+
+    /**
+     * Called when the projectile hits something. Its entry is dropped next tick, and the projectile removed if
+     * marked by {@link #autoRemove}, unless it pierced the entity it hit. The real item is released next tick either way.
+     */
+    public static void hit(Entity projectile, boolean pierced) {
+        Entry entry = table.get(projectile.getEntityId());
+        if (entry == null) return;
+        entry.entity = projectile;
+        int next = Bukkit.getCurrentTick() + 1;
+        entry.stackReleaseAt = Math.min(entry.stackReleaseAt, next);
+        if (!pierced) {
+            entry.releaseAt = Math.min(entry.releaseAt, next);
+        }
+    }
+
+    public static int getCount() {
+        return table.size;
+    }
+
+    private static Entry entry(Entity projectile) {
+        return entry(projectile.getEntityId(), projectile);
+    }
+
+    private static Entry entry(int id, Entity projectile) {
+        Entry entry = table.get(id);
+        if (entry == null) {
+            entry = new Entry(projectile, Bukkit.getCurrentTick());
+            table.put(id, entry);
+        } else if (projectile != null) {
+            entry.entity = projectile;
+        }
+        start();
+        return entry;
+    }
+
+    private static void start() {
+        if (task != null && !task.isCancelled()) return;
+        task = new ProjectileRegistry();
+        task.runTaskTimer(RPGItems.plugin, 1, 1);
+    }
+
+    @Override
+    public void run() {
+        int now = Bukkit.getCurrentTick();
+        int maxAge = RPGItems.plugin.cfg.projectileMaxAge;
+        int count = 0;
+        for (int slot = 0; slot < table.entries.length; slot++) {
+            Entry entry = table.entries[slot];
+            if (entry == null) continue;
+            if (entry.stackReleaseAt <= now) {
+                entry.localItemStack = null;
+                entry.stackReleaseAt = NEVER;
+            }
+            int age = now - entry.registered;
+            boolean expired = (maxAge > 0 && entry.localItemStack == null && age > maxAge)
+                    || (entry.entity == null && age > ID_ONLY_MAX_AGE);
+            if (entry.releaseAt <= now || expired) {
+                if (entry.autoRemove && entry.entity != null) entry.entity.remove();
+            } else if (entry.entity == null || entry.entity.isValid()) {
+                // entries registered by entity id only are kept until they hit something or reach their hard age cap
+                continue;
+            }
+            if (count == dropped.length) dropped = Arrays.copyOf(dropped, count * 2);
+            dropped[count++] = table.keys[slot];
+        }
+        // removing shifts later slots back, so removals wait until the scan is done
+        for (int i = 0; i < count; i++) {
+            table.remove(dropped[i]);
+        }
+        if (!launches.isEmpty()) {
+            launches.values().removeIf(launch -> launch.tick() != now);
+        }
+        if (table.size == 0 && launches.isEmpty()) {
+            cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * A projectile launch announced by a power
+     */
+    public record Launch(RPGItem item, ItemStack stack, Player player, int tick) {
+    }
+
+    private static final class Entry {
+        Entity entity;
+        final int registered;
+        boolean rpg;
+        int itemUid;
+        boolean autoRemove;
+        ItemStack localItemStack;
+        int releaseAt = NEVER;
+        int stackReleaseAt = NEVER;
+
+        Entry(Entity entity, int registered) {
+            this.entity = entity;
+            this.registered = registered;
+        }
+    }
+
+    /**
+     * Open addressing map from entity id to entry, with linear probing and backward shift deletion
+     */
+    private static final class Table {
+        int[] keys = new int[64];
+        Entry[] entries = new Entry[64];
+        int size;
+
+        Entry get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; entries[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return entries[slot];
+            }
+            return null;
+        }
+
+        void put(int key, Entry entry) {
+            if ((size + 1) * 2 > keys.length) resize(keys.length * 2);
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (entries[slot] != null) {
+                if (keys[slot] == key) {
+                    entries[slot] = entry;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            entries[slot] = entry;
+            size++;
+        }
+
+        void remove(int key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (entries[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (entries[slot] == null) return;
+            size--;
+            int gap = slot;
+            for (int i = (slot + 1) & mask; entries[i] != null; i = (i + 1) & mask) {
+                // move back the entries that would no longer be found past the gap
+                if (((i - (hash(keys[i]) & mask)) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    entries[gap] = entries[i];
+                    gap = i;
+                }
+            }
+            entries[gap] = null;
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            Entry[] oldEntries = entries;
+            keys = new int[capacity];
+            entries = new Entry[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldEntries[i] != null) put(oldKeys[i], oldEntries[i]);
+            }
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package think.rpgitems.power;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Effect;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import think.rpgitems.RPGItems;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * Temporary blocks placed by powers, reverted from one shared task.
+ * <p>
+ * Original states are kept per chunk, keyed by the packed position in the chunk. A block is reverted only if it still
+ * holds the material the power placed, as states such as fire age change on their own. Due reverts are applied
+ * chunk by chunk. Blocks are also reverted when their chunk or world unloads and when the plugin disables. Real blocks are journaled to {@code tempblocks.journal}, so they can be
+ * reverted by {@link #recover()} on the next start after a crash. Blocks of worlds not loaded yet stay in the journal until
+ * {@link #recover(World)} replays them. Journal writes are applied in order by one writer thread, each replacing the file atomically.
+ * Client-side blocks sent with {@link #show} are tracked the same way, and reverting them resends the real block.
+ * They are never shown over a real temporary block, so its revert is kept.
+ */
+public final class TempBlocks extends BukkitRunnable {
+    private static final int JOURNAL_PERIOD = 100;
+    private static final Map<UUID, Map<Long, Map<Integer, Entry>>> worlds = new HashMap<>();
+    private static final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(e -> e.expire));
+    private static final List<String> unresolved = new ArrayList<>();
+    private static TempBlocks task;
+    private static boolean journalDirty = false;
+    private static int lastJournal = 0;
+    private static ExecutorService journalWriter;
+    private static CompletableFuture<Void> journalWrite;
+
+    private TempBlocks() {
+    }
+
+    /**
+     * Places the block and reverts it to its current state after {@code ttl} ticks.
+     * Placing over a temporary block keeps its original state and replaces its expiry.
+     *
+     * @param physics Whether to apply physics when placing and reverting
+     * @param effect  Effect played where the block is reverted, or null
+     */
+    public static void place(Block block, BlockData data, int ttl, boolean physics, Effect effect) {
+        Entry previous = get(block);
+        BlockData original = previous != null && !previous.fake ? previous.original : block.getBlockData();
+        block.setBlockData(data, physics);
+        add(block, original, block.getBlockData(), ttl, physics, effect, false);
+    }
+
+    /**
+     * Reverts a block already placed by other means, such as a landed falling block, to {@code original} after {@code ttl} ticks
+     */
+    public static void track(Block block, BlockData original, int ttl, Effect effect) {
+        Entry previous = get(block);
+        if (previous != null && !previous.fake) original = previous.original;
+        add(block, original, block.getBlockData(), ttl, true, effect, false);
+    }
+
+    /**
+     * Shows the block to the players in its world, and shows them the real block again after {@code ttl} ticks
+     */
+    public static void show(Block block, BlockData data, int ttl, Effect effect) {
+        if (isTemp(block)) return;
+        for (Player player : block.getWorld().getPlayers()) {
+            player.sendBlockChange(block.getLocation(), data);
+        }
+        add(block, null, data, ttl, false, effect, true);
+    }
+
+    /**
+     * @return Whether the block was placed by {@link #place} or {@link #track} and is not reverted yet
+     */
+    public static boolean isTemp(Block block) {
+        Entry entry = get(block);
+        return entry != null && !entry.fake;
+    }
+
+    /**
+     * Reverts the block now, if it is temporary
+     */
+    public static void revert(Block block) {
+        Entry entry = get(block);
+        if (entry != null) {
+            remove(entry);
+            entry.revert();
+        }
+    }
+
+    /**
+     * Reverts every temporary block in the chunk
+     */
+    public static void revert(Chunk chunk) {
+        Map<Long, Map<Integer, Entry>> chunks = worlds.get(chunk.getWorld().getUID());
+        if (chunks == null) return;
+        Map<Integer, Entry> entries = chunks.remove(chunkKey(chunk.getX(), chunk.getZ()));
+        if (entries == null) return;
+        for (Entry entry : entries.values()) {
+            entry.removed = true;
+            entry.revert();
+        }
+        journalDirty = true;
+    }
+
+    /**
+     * Reverts every temporary block in the world
+     */
+    public static void revert(World world) {
+        Map<Long, Map<Integer, Entry>> chunks = worlds.remove(world.getUID());
+        if (chunks == null) return;
+        for (Map<Integer, Entry> entries : chunks.values()) {
+            for (Entry entry : entries.values()) {
+                entry.removed = true;
+                entry.revert();
+            }
+        }
+        journalDirty = true;
+    }
+
+    /**
+     * Reverts every temporary block, and removes the journal unless it holds blocks of worlds not loaded yet
+     */
+    public static void revertAll() {
+        for (World world : Bukkit.getWorlds()) {
+            revert(world);
+        }
+        worlds.clear();
+        queue.clear();
+        if (task != null && !task.isCancelled()) {
+            task.cancel();
+        }
+        task = null;
+        writeJournal();
+        try {
+            journalWrite.join();
+        } catch (CompletionException | CancellationException ignored) {
+            // logged by the write
+        }
+        journalWrite = null;
+        unresolved.clear();
+    }
+
+    /**
+     * Reverts the blocks left in the journal by a crash, if they still hold the placed state
+     */
+    public static void recover() {
+        File journal = getJournal();
+        unresolved.clear();
+        if (!journal.isFile()) return;
+        int reverted = 0;
+        try {
+            for (String line : Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t");
+                if (parts.length != 6) continue;
+                World world = Bukkit.getWorld(UUID.fromString(parts[0]));
+                if (world == null) {
+                    unresolved.add(line);
+                } else if (replay(world, parts)) {
+                    reverted++;
+                }
+            }
+            // keeps the blocks of worlds not loaded yet
+            writeJournal();
+        } catch (IOException | IllegalArgumentException e) {
+            RPGItems.plugin.getLogger().log(Level.WARNING, "Error recovering temporary blocks from " + journal, e);
+        }
+        if (reverted > 0) {
+            RPGItems.plugin.getLogger().info("Reverted " + reverted + " temporary blocks left by the last shutdown.");
+        }
+    }
+
+    /**
+     * Reverts the blocks of the world left in the journal by a crash, called when the world loads after {@link #recover()}
+     */
+    public static void recover(World world) {
+        int count = unresolved.size();
+        if (count == 0) return;
+        String prefix = world.getUID() + "\t";
+        int reverted = 0;
+        try {
+            for (Iterator<String> it = unresolved.iterator(); it.hasNext(); ) {
+                String line = it.next();
+                if (!line.startsWith(prefix)) continue;
+                it.remove();
+                if (replay(world, line.split("\t"))) reverted++;
+            }
+        } catch (IllegalArgumentException e) {
+            RPGItems.plugin.getLogger().log(Level.WARNING, "Error recovering temporary blocks of " + world.getName(), e);
+        }
+        if (unresolved.size() != count) writeJournal();
+        if (reverted > 0) {
+            RPGItems.plugin.getLogger().info("Reverted " + reverted + " temporary blocks left in " + world.getName() + " by the last shutdown.");
+        }
+    }
+
+    private static boolean replay(World world, String[] parts) {
+        Block block = world.getBlockAt(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+        if (block.getType() != Bukkit.createBlockData(parts[5]).getMaterial()) return false;
+        block.setBlockData(Bukkit.createBlockData(parts[4]), false);
+        return true;
+    }
+
+    public static int getCount() {
+        int count = 0;
+        for (Map<Long, Map<Integer, Entry>> chunks : worlds.values()) {
+            for (Map<Integer, Entry> entries : chunks.values()) {
+                count += entries.size();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void run() {
+        int now = Bukkit.getCurrentTick();
+        List<Entry> due = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().expire <= now) {
+            Entry entry = queue.poll();
+            if (!entry.removed) due.add(entry);
+        }
+        // chunk by chunk
+        due.sort(Comparator.comparing((Entry e) -> e.world.getUID()).thenComparingInt(e -> e.x >> 4).thenComparingInt(e -> e.z >> 4));
+        for (Entry entry : due) {
+            remove(entry);
+            entry.revert();
+        }
+        if (journalDirty && (queue.isEmpty() || now - lastJournal >= JOURNAL_PERIOD)) {
+            writeJournal();
+            lastJournal = now;
+        }
+        if (queue.isEmpty()) {
+            cancel();
+            task = null;
+        }
+    }
+
+    private static void add(Block block, BlockData original, BlockData placed, int ttl, boolean physics, Effect effect, boolean fake) {
+        Entry previous = get(block);
+        if (previous != null) {
+            previous.removed = true;
+        }
+        Entry entry = new Entry(block, original, placed, Bukkit.getCurrentTick() + Math.max(1, ttl), physics, effect, fake);
+        chunk(block.getWorld(), block.getX(), block.getZ(), true).put(localKey(block.getX(), block.getY(), block.getZ()), entry);
+        queue.add(entry);
+        if (!fake) journalDirty = true;
+        if (task == null || task.isCancelled()) {
+            task = new TempBlocks();
+            task.runTaskTimer(RPGItems.plugin, 1, 1);
+        }
+    }
+
+    private static Entry get(Block block) {
+        Map<Integer, Entry> chunk = chunk(block.getWorld(), block.getX(), block.getZ(), false);
+        return chunk == null ? null : chunk.get(localKey(block.getX(), block.getY(), block.getZ()));
+    }
+
+    private static void remove(Entry entry) {
+        entry.removed = true;
+        Map<Long, Map<Integer, Entry>> chunks = worlds.get(entry.world.getUID());
+        if (chunks == null) return;
+        long key = chunkKey(entry.x >> 4, entry.z >> 4);
+        Map<Integer, Entry> chunk = chunks.get(key);
+        if (chunk == null) return;
+        chunk.remove(localKey(entry.x, entry.y, entry.z), entry);
+        if (chunk.isEmpty()) {
+            chunks.remove(key);
+            if (chunks.isEmpty()) worlds.remove(entry.world.getUID());
+        }
+        if (!entry.fake) journalDirty = true;
+    }
+
+    private static Map<Integer, Entry> chunk(World world, int x, int z, boolean create) {
+        Map<Long, Map<Integer, Entry>> chunks = create ? worlds.computeIfAbsent(world.getUID(), k -> new HashMap<>()) : worlds.get(world.getUID());
+        if (chunks == null) return null;
+        long key = chunkKey(x >> 4, z >> 4);
+        return create ? chunks.computeIfAbsent(key, k -> new HashMap<>()) : chunks.get(key);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int localKey(int x, int y, int z) {
+        return (y << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    private static File getJournal() {
+        return new File(RPGItems.plugin.getDataFolder(), "tempblocks.journal");
+    }
+
+    private static void writeJournal() {
+        journalDirty = false;
+        StringBuilder builder = new StringBuilder();
+        for (Map<Long, Map<Integer, Entry>> chunks : worlds.values()) {
+            for (Map<Integer, Entry> entries : chunks.values()) {
+                for (Entry entry : entries.values()) {
+                    if (entry.fake) continue;
+                    builder.append(entry.world.getUID()).append('\t')
+                           .append(entry.x).append('\t').append(entry.y).append('\t').append(entry.z).append('\t')
+                           .append(entry.original.getAsString()).append('\t').append(entry.placed.getAsString()).append('\n');
+                }
+            }
+        }
+        for (String line : unresolved) {
+            builder.append(line).append('\n');
+        }
+        String content = builder.toString();
+        Path journal = getJournal().toPath();
+        journalWrite = CompletableFuture.runAsync(() -> {
+            try {
+                if (content.isEmpty()) {
+                    Files.deleteIfExists(journal);
+                    return;
+                }
+                Path temp = journal.resolveSibling(journal.getFileName() + ".tmp");
+                Files.writeString(temp, content, StandardCharsets.UTF_8);
+                try {
+                    Files.move(temp, journal, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                RPGItems.plugin.getLogger().log(Level.WARNING, "Error writing temporary block journal", e);
+            }
+        }, getJournalWriter());
+    }
+
+    private static synchronized ExecutorService getJournalWriter() {
+        if (journalWriter == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "RPGItems-TempBlocks");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            journalWriter = executor;
+        }
+        return journalWriter;
+    }
+
+    private static final class Entry {
+        final World world;
+        final int x, y, z;
+        final BlockData original;
+        final BlockData placed;
+        final long expire;
+        final boolean physics;
+        final Effect effect;
+        final boolean fake;
+        boolean removed = false;
+
+        Entry(Block block, BlockData original, BlockData placed, long expire, boolean physics, Effect effect, boolean fake) {
+            this.world = block.getWorld();
+            this.x = block.getX();
+            this.y = block.getY();
+            this.z = block.getZ();
+            this.original = original;
+            this.placed = placed;
+            this.expire = expire;
+            this.physics = physics;
+            this.effect = effect;
+            this.fake = fake;
+        }
+
+        void revert() {
+            Block block = world.getBlockAt(x, y, z);
+            Location location = block.getLocation();
+            if (fake) {
+                BlockData real = block.getBlockData();
+                for (Player player : world.getPlayers()) {
+                    player.sendBlockChange(location, real);
+                }
+            } else {
+                if (block.getType() != placed.getMaterial()) return;
+                block.setBlockData(original, physics);
+            }
+            if (effect != null) {
+                if (effect.getData() == Material.class) {
+                    world.playEffect(location, effect, placed.getMaterial());
+                } else {
+                    world.playEffect(location, effect, 0);
+                }
+            }
+        }
+    }
+}
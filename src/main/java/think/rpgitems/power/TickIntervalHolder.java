@@ -0,0 +1,13 @@
+package think.rpgitems.power;
+
+/**
+ * Power that can be run by {@link PowerTick} triggers, declaring how often it runs
+ */
+public interface TickIntervalHolder {
+    /**
+     * Interval in ticks between two runs of the power by tick triggers. Runs are staggered among players.
+     *
+     * @return Interval in ticks, 1 to run on every tick
+     */
+    int getTickInterval();
+}
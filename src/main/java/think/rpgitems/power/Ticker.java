@@ -3,54 +3,85 @@ package think.rpgitems.power;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitRunnable;
 import think.rpgitems.data.Context;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.ItemManager;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.trigger.BaseTriggers;
 
-import java.util.Optional;
+import java.util.UUID;
 
 /**
  * BukkitRunnable that runs {@link PowerTick#tick(Player, ItemStack)}
+ * <p>
+ * Players are spread over {@code shards} ticks by their UUID, so each player is visited once every {@code shards} ticks.
+ * Players without any RPG item in armour or hands, according to the {@link EquipmentIndex}, are skipped.
+ * The indexed stacks of the other players are verified against their slots on every tick.
  */
 public class Ticker extends BukkitRunnable {
+    private static long currentTick = 0;
+    private static int currentShards = 1;
+
+    private final int shards;
+
+    public Ticker() {
+        this(1);
+    }
+
+    public Ticker(int shards) {
+        this.shards = Math.max(1, shards);
+    }
+
+    /**
+     * @param player   Player being ticked
+     * @param interval Interval in ticks declared by {@link TickIntervalHolder#getTickInterval()}
+     * @return Whether a power with the interval should run for the player on this tick
+     */
+    public static boolean isDue(Player player, int interval) {
+        if (interval <= currentShards) return true;
+        long rounds = (interval + currentShards - 1) / currentShards;
+        long round = currentTick / currentShards;
+        return (round + slot(player.getUniqueId())) % rounds == 0;
+    }
+
+    private static int slot(UUID uuid) {
+        return uuid.hashCode() & Integer.MAX_VALUE;
+    }
 
     @Override
     public void run() {
         Context.instance().cleanTick();
+        EquipmentIndex.tick();
+        currentShards = shards;
+        long tick = ++currentTick;
+        int shard = (int) (tick % shards);
         for (final Player player : Bukkit.getOnlinePlayers()) {
+            // verified every tick, the indexed stacks are also used by events between the player's shard ticks
+            EquipmentIndex.Snapshot equipment = EquipmentIndex.verify(player);
+            if (equipment.isEmpty()) continue;
+            if (shards > 1 && slot(player.getUniqueId()) % shards != shard) continue;
             if (ItemManager.canUse(player, null, false) == Event.Result.DENY) continue;
-            ItemStack[] armour = player.getInventory().getArmorContents();
-            for (ItemStack part : armour) {
-                Optional<RPGItem> item = ItemManager.toRPGItem(part);
-                if (item.isEmpty())
-                    continue;
-                RPGItem rgi = item.get();
-                rgi.power(player, part, null, BaseTriggers.TICK);
-                if (player.isSneaking()) {
-                    rgi.power(player, part, null, BaseTriggers.SNEAKING);
-                }
-            }
-            ItemStack itemInMainHand = player.getInventory().getItemInMainHand();
-            ItemStack itemInOffHand = player.getInventory().getItemInOffHand();
-            Optional<RPGItem> offhand = ItemManager.toRPGItem(itemInOffHand);
-            Optional<RPGItem> mainhand = ItemManager.toRPGItem(itemInMainHand);
-            if (mainhand.isPresent()) {
-                mainhand.get().power(player, itemInMainHand, null, BaseTriggers.TICK);
-
-                if (player.isSneaking()) {
-                    mainhand.get().power(player, itemInMainHand, null, BaseTriggers.SNEAKING);
-                }
-            }
-            if (offhand.isPresent()) {
-                offhand.get().power(player, itemInOffHand, null, BaseTriggers.TICK_OFFHAND);
-                if (player.isSneaking()) {
-                    offhand.get().power(player, itemInOffHand, null, BaseTriggers.SNEAKING);
-                }
-            }
+            tick(player, equipment);
         }
     }
 
+    private static void tick(Player player, EquipmentIndex.Snapshot equipment) {
+        RPGItem[] items = equipment.getItems();
+        ItemStack[] stacks = equipment.getStacks();
+        boolean sneaking = player.isSneaking();
+        for (int i = 0; i < items.length; i++) {
+            RPGItem rgi = items[i];
+            if (rgi == null) continue;
+            EquipmentSlot slot = EquipmentIndex.SLOTS[i];
+            // the indexed stack mirrors the slot, verified against it above
+            ItemStack stack = stacks[i];
+            rgi.power(player, stack, null, slot == EquipmentSlot.OFF_HAND ? BaseTriggers.TICK_OFFHAND : BaseTriggers.TICK);
+            if (sneaking) {
+                rgi.power(player, stack, null, BaseTriggers.SNEAKING);
+            }
+        }
+    }
 }
@@ -40,6 +40,7 @@ import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
@@ -49,6 +50,9 @@ import java.util.stream.Stream;
 public class Utils {
     public static final String INVALID_TARGET = "RGI_INVALID_TARGET";
     private static final Pattern VALID_KEY = Pattern.compile("[a-z0-9/._-]+");
+    // reused by nearby entity queries, which run on the main thread only
+    private static final List<EntityGrid.Entry> nearbyBuffer = new ArrayList<>();
+    private static final Location nearbyLocation = new Location(null, 0, 0, 0);
     private static final LoadingCache<String, List<String>> permissionCache = CacheBuilder
             .newBuilder()
             .concurrencyLevel(1)
@@ -60,23 +64,7 @@ public class Utils {
     }
 
     public static List<Entity> getNearbyEntities(Power power, Location l, Player player, double radius, double dx, double dy, double dz) {
-        List<Entity> entities = new ArrayList<>();
-        Collection<Entity> nearbyEntities = l.getWorld().getNearbyEntities(l, dx, dy, dz);
-        if (!nearbyEntities.isEmpty()) {
-            for (Entity e : nearbyEntities) {
-                if (!Utils.isUtilArmorStand(e) && l.distance(e.getLocation()) <= radius) {
-                    entities.add(e);
-                }
-            }
-        }
-        power.getItem().getMarkers().stream().filter(pow -> pow instanceof Selector).forEach(
-                selector -> {
-                    if (power.getSelectors().contains(((Selector) selector).id())) {
-                        ((Selector) selector).inPlaceFilter(player, entities);
-                    }
-                }
-        );
-        return entities;
+        return getNearbyEntities(power, l, player, radius, 0, dx, dy, dz, Entity.class, null);
     }
 
     /**
@@ -103,21 +91,57 @@ public class Utils {
      * @return nearby living entities ordered by distance
      */
     public static List<LivingEntity> getNearestLivingEntities(Power power, Location l, Player player, double radius, double min) {
-        final List<Map.Entry<LivingEntity, Double>> entities = new ArrayList<>();
-        for (Entity e : getNearbyEntities(power, l, player, radius)) {
-            if (e instanceof LivingEntity && !player.equals(e) && !Utils.isUtilArmorStand(e)) {
-                double d = l.distance(e.getLocation());
-                if (d <= radius && d >= min) {
-                    entities.add(new AbstractMap.SimpleImmutableEntry<>((LivingEntity) e, d));
-                }
-            }
+        List<LivingEntity> nearby = getNearbyEntities(power, l, player, radius, min, radius, radius, radius, LivingEntity.class, player);
+        final List<Map.Entry<LivingEntity, Double>> entities = new ArrayList<>(nearby.size());
+        for (LivingEntity e : nearby) {
+            entities.add(new AbstractMap.SimpleImmutableEntry<>(e, l.distanceSquared(e.getLocation(nearbyLocation))));
         }
-        List<LivingEntity> entity = new ArrayList<>();
         entities.sort(Map.Entry.comparingByValue());
+        List<LivingEntity> entity = new ArrayList<>(entities.size());
         entities.forEach((k) -> entity.add(k.getKey()));
         return entity;
     }
 
+    /**
+     * Collects the entities of the type within the box and between {@code min} and {@code radius} blocks of the location,
+     * that pass every selector of the power, in one pass over the entity grid
+     */
+    private static <T extends Entity> List<T> getNearbyEntities(Power power, Location l, Player player, double radius, double min, double dx, double dy, double dz, Class<T> type, Entity exclude) {
+        List<Selector> selectors = power.getItem().getSelectors(power.getSelectors());
+        List<Predicate<Entity>> predicates = new ArrayList<>(selectors.size());
+        for (Selector selector : selectors) {
+            predicates.add(selector.predicate(player));
+        }
+        double radiusSquared = radius * radius;
+        double minSquared = min * min;
+        double x = l.getX(), y = l.getY(), z = l.getZ();
+        List<T> entities = new ArrayList<>();
+        try {
+            EntityGrid.of(l.getWorld()).query(BoundingBox.of(l, dx, dy, dz), type, nearbyBuffer);
+            for (EntityGrid.Entry entry : nearbyBuffer) {
+                Entity e = entry.getEntity();
+                if (Utils.isUtilArmorStand(e) || e.equals(exclude)) continue;
+                e.getLocation(nearbyLocation);
+                double ex = nearbyLocation.getX() - x, ey = nearbyLocation.getY() - y, ez = nearbyLocation.getZ() - z;
+                double distanceSquared = ex * ex + ey * ey + ez * ez;
+                if (distanceSquared > radiusSquared || distanceSquared < minSquared) continue;
+                if (matchesAll(predicates, e)) {
+                    entities.add(type.cast(e));
+                }
+            }
+        } finally {
+            nearbyBuffer.clear();
+        }
+        return entities;
+    }
+
+    private static boolean matchesAll(List<Predicate<Entity>> predicates, Entity e) {
+        for (int i = 0; i < predicates.size(); i++) {
+            if (!predicates.get(i).test(e)) return false;
+        }
+        return true;
+    }
+
     /**
      * Gets entities in cone.
      *
@@ -188,17 +212,10 @@ public class Utils {
     }
 
     public static boolean checkAndSetCooldown(Power power, Player player, long cooldownTick, boolean showWarn, boolean showPower, String key) {
-        long cooldown;
-        Long value = (Long) Context.instance().get(player.getUniqueId(), key);
+        long cooldown = Context.instance().getCooldown(player.getUniqueId(), key);
         long nowTime = Context.getCurrentMillis();
-        if (value == null) {
-            cooldown = nowTime;
-        } else {
-            cooldown = value;
-        }
         if (cooldown <= nowTime) {
-            long cd = nowTime + cooldownTick * 50;
-            Context.instance().put(player.getUniqueId(), key, cd, cd);
+            Context.instance().setCooldown(player.getUniqueId(), key, nowTime + cooldownTick * 50);
             return true;
         } else {
             if (showWarn) {
@@ -724,6 +741,10 @@ public class Utils {
     }
 
     public static LazyFunction scoreBoard(Player player) {
+        return scoreBoard(() -> player);
+    }
+
+    public static LazyFunction scoreBoard(Supplier<Player> playerSupplier) {
         return new LazyFunction() {
             @Override
             public String getName() {
@@ -747,6 +768,7 @@ public class Utils {
 
             @Override
             public Expression.LazyNumber lazyEval(List<Expression.LazyNumber> lazyParams) {
+                Player player = playerSupplier.get();
                 Objective objective = player.getScoreboard().getObjective(lazyParams.get(0).getString());
                 if (objective == null) {
                     return lazyParams.get(1);
@@ -757,6 +779,10 @@ public class Utils {
     }
 
     public static LazyFunction context(Player player) {
+        return context(() -> player);
+    }
+
+    public static LazyFunction context(Supplier<Player> playerSupplier) {
         return new LazyFunction() {
             @Override
             public String getName() {
@@ -780,7 +806,7 @@ public class Utils {
 
             @Override
             public Expression.LazyNumber lazyEval(List<Expression.LazyNumber> lazyParams) {
-                Object obj = Context.instance().get(player.getUniqueId(), lazyParams.get(0).getString());
+                Object obj = Context.instance().get(playerSupplier.get().getUniqueId(), lazyParams.get(0).getString());
                 if (obj == null) {
                     return lazyParams.get(1);
                 }
@@ -4,6 +4,7 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.ItemManager;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.Meta;
@@ -12,8 +13,6 @@ import think.rpgitems.power.Property;
 import think.rpgitems.power.PropertyHolder;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Meta(marker = true)
 public class EquipmentCondition extends BaseCondition<Void> {
@@ -59,29 +58,22 @@ public class EquipmentCondition extends BaseCondition<Void> {
 
     @Override
     public PowerResult<Void> check(Player player, ItemStack stack, Map<PropertyHolder, PowerResult<?>> context) {
+        EquipmentIndex.Snapshot equipment = EquipmentIndex.get(player);
         if (slots.isEmpty()) {
-            List<ItemStack> itemStacks = Stream.concat(
-                    Arrays.stream(player.getInventory().getArmorContents()),
-                    Stream.of(player.getInventory().getItemInMainHand(), player.getInventory().getItemInOffHand())
-            ).toList();
-            if (matchAllSlot) {
-                return itemStacks.stream().allMatch(this::match) ? PowerResult.ok() : PowerResult.fail();
-            } else {
-                return itemStacks.stream().anyMatch(this::match) ? PowerResult.ok() : PowerResult.fail();
+            ItemStack[] stacks = equipment.getStacks();
+            RPGItem[] items = equipment.getItems();
+            for (int i = 0; i < stacks.length; i++) {
+                boolean match = match(stacks[i], items[i]);
+                if (matchAllSlot && !match) return PowerResult.fail();
+                if (!matchAllSlot && match) return PowerResult.ok();
             }
+            return matchAllSlot ? PowerResult.ok() : PowerResult.fail();
         } else {
             int matches = 0;
             for (EquipmentSlot sl : slots) {
-                ItemStack s = switch (sl) {
-                    case HAND -> player.getInventory().getItemInMainHand();
-                    case OFF_HAND -> player.getInventory().getItemInOffHand();
-                    case FEET -> player.getInventory().getBoots();
-                    case LEGS -> player.getInventory().getLeggings();
-                    case CHEST -> player.getInventory().getChestplate();
-                    case HEAD -> player.getInventory().getHelmet();
-                    default -> throw new IllegalStateException();
-                };
-                if (match(s)) matches += 1;
+                int i = EquipmentIndex.indexOf(sl);
+                if (i < 0) throw new IllegalStateException();
+                if (match(equipment.getStacks()[i], equipment.getItems()[i])) matches += 1;
             }
             if (matchAllSlot && matches == slots.size()) {
                 return PowerResult.ok();
@@ -93,6 +85,10 @@ public class EquipmentCondition extends BaseCondition<Void> {
     }
 
     public boolean match(ItemStack stack) {
+        return match(stack, ItemManager.toRPGItem(stack).orElse(null));
+    }
+
+    private boolean match(ItemStack stack, RPGItem stackItem) {
         if (requireEmpty){
             return stack == null || stack.getType().isAir();
         }
@@ -103,18 +99,17 @@ public class EquipmentCondition extends BaseCondition<Void> {
         if (itemStack != null && !stack.isSimilar(itemStack)) {
             return false;
         }
-        Optional<RPGItem> stackItem = ItemManager.toRPGItem(stack);
         if (rpgitem != null) {
-            if (stackItem.isEmpty()) {
+            if (stackItem == null) {
                 return false;
             }
             try {
                 int uid = Integer.parseInt(rpgitem);
                 Set<RPGItem> items = ItemManager.getItems(uid);
-                if (!items.contains(stackItem.get())) return false;
+                if (!items.contains(stackItem)) return false;
             } catch (NumberFormatException e) {
                 Set<RPGItem> items = ItemManager.getItems(rpgitem);
-                if (!items.contains(stackItem.get())) return false;
+                if (!items.contains(stackItem)) return false;
             }
         }
         return true;
@@ -1,22 +1,22 @@
 package think.rpgitems.power.cond;
 
-import com.udojava.evalex.Expression;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import think.rpgitems.power.Meta;
 import think.rpgitems.power.PowerResult;
 import think.rpgitems.power.Property;
 import think.rpgitems.power.PropertyHolder;
+import think.rpgitems.utils.CompiledExpression;
 
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
-import static think.rpgitems.power.Utils.*;
-
 @Meta(marker = true)
 public class EvalCondition extends BaseCondition<BigDecimal> {
+    private static final String[] VARIABLES = {"playerYaw", "playerPitch", "playerX", "playerY", "playerZ", "playerLastDamage"};
 
     @Property(order = 0, required = true)
     public String id;
@@ -47,18 +47,18 @@ public class EvalCondition extends BaseCondition<BigDecimal> {
 
     @Override
     public PowerResult<BigDecimal> check(Player player, ItemStack stack, Map<PropertyHolder, PowerResult<?>> context) {
-        Expression e = new Expression(expression);
-        e.and("playerYaw", lazyNumber(() -> (double) player.getLocation().getYaw()))
-         .and("playerPitch", lazyNumber(() -> (double) player.getLocation().getPitch()))
-         .and("playerX", lazyNumber(() -> player.getLocation().getX()))
-         .and("playerY", lazyNumber(() -> player.getLocation().getY()))
-         .and("playerZ", lazyNumber(() -> player.getLocation().getZ()))
-         .and("playerLastDamage", lazyNumber(player::getLastDamage));
-
-        e.addLazyFunction(scoreBoard(player));
-        e.addLazyFunction(context(player));
-        e.addLazyFunction(now());
-        BigDecimal result = e.eval();
+        CompiledExpression e = CompiledExpression.compile(expression, VARIABLES);
+        double[] values = new double[VARIABLES.length];
+        if (e.uses("playerYaw") || e.uses("playerPitch") || e.uses("playerX") || e.uses("playerY") || e.uses("playerZ")) {
+            Location location = player.getLocation();
+            values[0] = location.getYaw();
+            values[1] = location.getPitch();
+            values[2] = location.getX();
+            values[3] = location.getY();
+            values[4] = location.getZ();
+        }
+        values[5] = player.getLastDamage();
+        BigDecimal result = e.evalDecimal(player, values, null);
         return result.equals(BigDecimal.ONE) ? PowerResult.ok(result) : PowerResult.fail(result);
     }
 
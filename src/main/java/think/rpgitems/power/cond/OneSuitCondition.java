@@ -1,9 +1,9 @@
 package think.rpgitems.power.cond;
 
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.EntityEquipment;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
-import think.rpgitems.item.ItemManager;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.Meta;
 import think.rpgitems.power.PowerResult;
@@ -82,18 +82,17 @@ public class OneSuitCondition extends BaseCondition<Void> {
 
     @Override
     public PowerResult<Void> check(Player player, ItemStack stack, Map<PropertyHolder, PowerResult<?>> context) {
-        EntityEquipment equipment = player.getEquipment();
-        return isMeetRPGItem(equipment.getHelmet(), getHelmet())
-                && isMeetRPGItem(equipment.getChestplate(), getChestplate())
-                && isMeetRPGItem(equipment.getLeggings(), getLeggings())
-                && isMeetRPGItem(equipment.getBoots(), getBoots())
-                && isMeetRPGItem(equipment.getItemInMainHand(), getMainHand())
-                && isMeetRPGItem(equipment.getItemInOffHand(), getOffHand()) ? ok() : fail();
+        EquipmentIndex.Snapshot equipment = EquipmentIndex.get(player);
+        return isMeetRPGItem(equipment.get(EquipmentSlot.HEAD), getHelmet())
+                && isMeetRPGItem(equipment.get(EquipmentSlot.CHEST), getChestplate())
+                && isMeetRPGItem(equipment.get(EquipmentSlot.LEGS), getLeggings())
+                && isMeetRPGItem(equipment.get(EquipmentSlot.FEET), getBoots())
+                && isMeetRPGItem(equipment.get(EquipmentSlot.HAND), getMainHand())
+                && isMeetRPGItem(equipment.get(EquipmentSlot.OFF_HAND), getOffHand()) ? ok() : fail();
     }
 
-    private static boolean isMeetRPGItem(ItemStack item, String id) {
+    private static boolean isMeetRPGItem(RPGItem rpgItem, String id) {
         if (id == null || id.trim().isEmpty()) return true;
-        RPGItem rpgItem = ItemManager.toRPGItem(item).orElse(null);
         return rpgItem != null && rpgItem.getName().equals(id);
     }
 
@@ -57,7 +57,7 @@ import static think.rpgitems.power.Utils.*;
         PowerBeamHit.class,
         PowerLocation.class
 }, implClass = AOEDamage.Impl.class)
-public class AOEDamage extends BasePower {
+public class AOEDamage extends BasePower implements TickIntervalHolder {
 
     @Property
     public int cooldown = 0;
@@ -100,6 +100,9 @@ public class AOEDamage extends BasePower {
     @Property
     public boolean castOff = false;
 
+    @Property
+    public int tickInterval = 1;
+
     public boolean isCastOff() {
         return castOff;
     }
@@ -452,6 +455,11 @@ public class AOEDamage extends BasePower {
     /**
      * Display text of this power. Will use default text in case of null
      */
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "AOEDamage";
@@ -10,6 +10,7 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
 import think.rpgitems.Events;
 import think.rpgitems.I18n;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.ItemManager;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.*;
@@ -125,6 +126,7 @@ public class ArrowWithItem extends BasePower {
                 if (amount > 0) item.setAmount(amount);
                 else item = null;
                 inv.setItem(i, item);
+                EquipmentIndex.markDirty(p);
                 return display;
             }
         }
@@ -159,7 +161,7 @@ public class ArrowWithItem extends BasePower {
                 if (isExplode()) {
                     arrow.addScoreboardTag("rgi_projectile_explode" + (isExplodeFire() ? "_fire" : ""));
                 }
-                Events.autoRemoveProjectile(arrow.getEntityId());
+                Events.autoRemoveProjectile(arrow);
                 arrow.setPersistent(false);
                 return PowerResult.ok();
             }
@@ -64,7 +64,7 @@ public class Arrows extends BasePower {
             Events.registerRPGProjectile(getPower().getItem(), stack, player);
             Arrow arrow = player.launchProjectile(org.bukkit.entity.Arrow.class);
             arrow.setPickupStatus(org.bukkit.entity.Arrow.PickupStatus.DISALLOWED);
-            Events.autoRemoveProjectile(arrow.getEntityId());
+            Events.autoRemoveProjectile(arrow);
             arrow.setPersistent(false);
             return PowerResult.ok();
         }
@@ -22,7 +22,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 @Meta(defaultTrigger = "RIGHT_CLICK", withSelectors = true, generalInterface = PowerPlain.class, implClass = Attachments.Impl.class)
-public class Attachments extends BasePower {
+public class Attachments extends BasePower implements TickIntervalHolder {
 
     @Property
     public List<EquipmentSlot> allowedSlots;
@@ -39,6 +39,9 @@ public class Attachments extends BasePower {
     @Property
     public boolean requireHurtByEntity = true;
 
+    @Property
+    public int tickInterval = 1;
+
     public List<Integer> getAllowedInvSlots() {
         return allowedInvSlots;
     }
@@ -55,6 +58,11 @@ public class Attachments extends BasePower {
         return limit;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "attachments";
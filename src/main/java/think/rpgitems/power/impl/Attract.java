@@ -49,7 +49,7 @@ import static think.rpgitems.power.Utils.getNearbyEntities;
         PowerBeamHit.class,
         PowerLocation.class
 }, implClass = Attract.Impl.class)
-public class Attract extends BasePower {
+public class Attract extends BasePower implements TickIntervalHolder {
     @Property(order = 0)
     public int radius = 5;
     @Property(order = 1, required = true)
@@ -78,6 +78,9 @@ public class Attract extends BasePower {
     @Property
     public double firingRange = 64;
 
+    @Property
+    public int tickInterval = 1;
+
     public double getFiringRange() {
         return firingRange;
     }
@@ -133,6 +136,11 @@ public class Attract extends BasePower {
         return maxSpeed;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "attract";
@@ -2,7 +2,6 @@ package think.rpgitems.power.impl;
 
 import think.rpgitems.utils.nyaacore.Message;
 import com.google.common.util.concurrent.AtomicDouble;
-import com.udojava.evalex.Expression;
 import org.bukkit.*;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
@@ -21,6 +20,7 @@ import org.bukkit.util.BoundingBox;
 import org.bukkit.util.RayTraceResult;
 import org.bukkit.util.Vector;
 import think.rpgitems.RPGItems;
+import think.rpgitems.utils.CompiledExpression;
 import think.rpgitems.utils.LightContext;
 import think.rpgitems.event.BeamEndEvent;
 import think.rpgitems.event.BeamHitBlockEvent;
@@ -32,7 +32,6 @@ import think.rpgitems.utils.cast.RangedValueSerializer;
 import think.rpgitems.utils.cast.RoundedConeInfo;
 
 import javax.annotation.Nullable;
-import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -64,7 +63,7 @@ import static think.rpgitems.utils.cast.CastUtils.makeCone;
         PowerBeamHit.class,
         PowerLocation.class
 }, implClass = Beam.Impl.class)
-public class Beam extends BasePower {
+public class Beam extends BasePower implements TickIntervalHolder {
     @Property
     public int length = 10;
 
@@ -104,6 +103,9 @@ public class Beam extends BasePower {
     @Property
     public double particleDensity = 2;
 
+    @Property
+    public int tickInterval = 1;
+
     /**
      * Cost of this power
      */
@@ -224,6 +226,13 @@ public class Beam extends BasePower {
 
     private static Random random = new Random();
 
+    /**
+     * @return Count of beams currently moving
+     */
+    public static int getActiveCount() {
+        return BeamScheduler.getActiveCount();
+    }
+
     public FiringLocation getFiringLocation() {
         return firingLocation;
     }
@@ -316,6 +325,11 @@ public class Beam extends BasePower {
         return mode;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "beam";
@@ -508,6 +522,12 @@ public class Beam extends BasePower {
         AtomicInteger currentTick = new AtomicInteger(0);
         Vector gravityVector = new Vector(0, 0, 0);
         Location lastLocation;
+        private Location nextLocation;
+        private final Vector stepVector = new Vector();
+        private final Vector sweptFrom = new Vector();
+        private List<EntityGrid.Entry> candidates = Collections.emptyList();
+        private Location candidateCenter;
+        private double candidateTravel;
         private ItemStack itemStack;
         boolean bounced = false;
         World world;
@@ -556,147 +576,132 @@ public class Beam extends BasePower {
             if (Double.isInfinite(lengthPerSpawn)) {
                 return;
             }
-            lastLocation = fromLocation;
+            lastLocation = fromLocation.clone();
+            nextLocation = fromLocation.clone();
+            sweptFrom.copy(fromLocation.toVector());
             towards.normalize();
-            new RecursiveTask().runTask(RPGItems.plugin);
+            BeamScheduler.submit(this::step);
         }
 
         public void setItemStack(ItemStack stack) {
             this.itemStack = stack;
         }
 
-        class RecursiveTask extends BukkitRunnable {
-            @Override
-            public void run() {
-                try {
-                    double lengthInThisTick = getNextLength(spawnedLength, length) + lengthRemains.get();
+        /**
+         * Advances the beam by one tick
+         *
+         * @return Whether the beam is still alive
+         */
+        private boolean step() {
+            double lengthInThisTick = getNextLength(spawnedLength, length) + lengthRemains.get();
 
-                    double lengthToSpawn = lengthInThisTick;
-                    if (mode.equals(Mode.BEAM)) {
-                        lengthToSpawn = length;
-                    }
-                    int hitCount = 0;
-                    while ((lengthToSpawn -= lengthPerSpawn) > 0) {
-                        hitMob.addAll(tryHit(fromEntity, lastLocation, itemStack, bounced && hitSelfWhenBounced, hitMob));
-
-                        if (cycle++ > 2 / lengthPerSpawn) {
-                            hitMob.clear();
-                            hitCount = 0;
-                            cycle = 0;
-                            if (homingMode.equals(HomingMode.MOUSE_TRACK)) {
-                                Location location = fromEntity.getLocation();
-                                if (fromEntity instanceof LivingEntity) {
-                                    location = ((LivingEntity) fromEntity).getEyeLocation();
-                                }
-                                targets = new LinkedList<>(getTargets(location.getDirection(), location, fromEntity, homingRange, homingAngle, homingTarget));
-                            }
+            double lengthToSpawn = lengthInThisTick;
+            if (mode.equals(Mode.BEAM)) {
+                lengthToSpawn = length;
+            }
+            candidateCenter = null;
+            candidateTravel = lengthToSpawn;
+            int hitCount = 0;
+            while ((lengthToSpawn -= lengthPerSpawn) > 0) {
+                hitMob.addAll(tryHit(fromEntity, lastLocation, itemStack, bounced && hitSelfWhenBounced, hitMob));
+
+                if (cycle++ > 2 / lengthPerSpawn) {
+                    hitMob.clear();
+                    hitCount = 0;
+                    cycle = 0;
+                    if (homingMode.equals(HomingMode.MOUSE_TRACK)) {
+                        Location location = fromEntity.getLocation();
+                        if (fromEntity instanceof LivingEntity) {
+                            location = ((LivingEntity) fromEntity).getEyeLocation();
                         }
+                        targets = new LinkedList<>(getTargets(location.getDirection(), location, fromEntity, homingRange, homingAngle, homingTarget));
+                    }
+                }
 
-                        spawnParticle(fromEntity, world, lastLocation, 1);
-                        Vector step = towards.clone().normalize().multiply(lengthPerSpawn);
-                        if (gravity != 0 && (
-                                homing == 0 || currentTick.get() < ticksBeforeHoming
-                        )) {
-                            double partsPerTick = lengthInThisTick / lengthPerSpawn;
-                            step.setY(step.getY() + getGravity(partsPerTick));
-                        }
-                        Location nextLoc = lastLocation.clone().add(step);
-                        if (!ignoreWall && (
-                                nextLoc.getBlockX() != lastLocation.getBlockX() ||
-                                        nextLoc.getBlockY() != lastLocation.getBlockY() ||
-                                        nextLoc.getBlockZ() != lastLocation.getBlockZ()
-                        )) {
-                            if(!(firingLocation.equals(FiringLocation.TARGET) && spawnedLength.get() < (firingR - 1))){
-                                Block block = nextLoc.getBlock();
-                                if (!transp.contains(block.getType())) {
-                                    if (!MovingTask.this.effectOnly) {
-                                        BeamHitBlockEvent beamHitBlockEvent = new BeamHitBlockEvent(player, fromEntity, block, lastLocation, itemStack, triggerDepth);
-                                        Bukkit.getPluginManager().callEvent(beamHitBlockEvent);
-                                    }
-                                    if (bounce > 0) {
-                                        bounce--;
-                                        bounced = true;
-                                        makeBounce(nextLoc.getBlock(), towards, step, lastLocation);
-                                    } else {
-                                        return;
-                                    }
-                                }
+                spawnParticle(fromEntity, world, lastLocation, 1);
+                Vector step = stepVector.copy(towards).normalize().multiply(lengthPerSpawn);
+                if (gravity != 0 && (
+                        homing == 0 || currentTick.get() < ticksBeforeHoming
+                )) {
+                    double partsPerTick = lengthInThisTick / lengthPerSpawn;
+                    step.setY(step.getY() + getGravity(partsPerTick));
+                }
+                Location nextLoc = nextLocation;
+                nextLoc.setX(lastLocation.getX() + step.getX());
+                nextLoc.setY(lastLocation.getY() + step.getY());
+                nextLoc.setZ(lastLocation.getZ() + step.getZ());
+                if (!ignoreWall && (
+                        nextLoc.getBlockX() != lastLocation.getBlockX() ||
+                                nextLoc.getBlockY() != lastLocation.getBlockY() ||
+                                nextLoc.getBlockZ() != lastLocation.getBlockZ()
+                )) {
+                    if(!(firingLocation.equals(FiringLocation.TARGET) && spawnedLength.get() < (firingR - 1))){
+                        Block block = nextLoc.getBlock();
+                        if (!transp.contains(block.getType())) {
+                            if (!effectOnly) {
+                                BeamHitBlockEvent beamHitBlockEvent = new BeamHitBlockEvent(player, fromEntity, block, lastLocation.clone(), itemStack, triggerDepth);
+                                Bukkit.getPluginManager().callEvent(beamHitBlockEvent);
                             }
-                        }
-                        lastLocation = nextLoc;
-                        spawnedLength.addAndGet(lengthPerSpawn);
-                        int dHit = hitMob.size() - hitCount;
-                        if (dHit > 0) {
-                            hitCount = hitMob.size();
-                            pierce -= dHit;
-                            if (pierce > 0) {
-                                if (homingMode.equals(HomingMode.MULTI_TARGET)) {
-                                    if (targets != null) {
-                                        targets.removeIf(entity -> hitMob.contains(entity.getUniqueId()));
-                                    }
-                                }
+                            if (bounce > 0) {
+                                bounce--;
+                                bounced = true;
+                                makeBounce(nextLoc.getBlock(), towards, step, lastLocation);
                             } else {
-                                return;
+                                return false;
                             }
                         }
-                        if (targets != null && homing > 0 && currentTick.get() >= ticksBeforeHoming) {
-                            towards = homingCorrect(step, lastLocation, targets.peek(), () -> {
-                                targets.removeIf(Entity::isDead);
-                                return targets.peek();
-                            });
-                        }
                     }
-
-                    lengthRemains.set(lengthToSpawn + lengthPerSpawn);
-                    if (spawnedLength.get() >= length || currentTick.addAndGet(1) > ttl || mode == Mode.BEAM) {
-                        if (!effectOnly) {
-                            callEnd();
+                }
+                // the two locations are reused in turn, events get copies
+                nextLocation = lastLocation;
+                lastLocation = nextLoc;
+                spawnedLength.addAndGet(lengthPerSpawn);
+                int dHit = hitMob.size() - hitCount;
+                if (dHit > 0) {
+                    hitCount = hitMob.size();
+                    pierce -= dHit;
+                    if (pierce > 0) {
+                        if (homingMode.equals(HomingMode.MULTI_TARGET)) {
+                            if (targets != null) {
+                                targets.removeIf(entity -> hitMob.contains(entity.getUniqueId()));
+                            }
                         }
-                        return;
+                    } else {
+                        return false;
                     }
-                    new RecursiveTask().runTaskLater(RPGItems.plugin, 1);
-                } catch (Exception e) {
-                    this.cancel();
-                    e.printStackTrace();
+                }
+                if (targets != null && homing > 0 && currentTick.get() >= ticksBeforeHoming) {
+                    Vector corrected = homingCorrect(step, lastLocation, targets.peek(), () -> {
+                        targets.removeIf(Entity::isDead);
+                        return targets.peek();
+                    });
+                    towards = corrected == stepVector ? corrected.clone() : corrected;
                 }
             }
 
-            private BeamEndEvent callEnd(){
-                BeamEndEvent beamEndEvent = new BeamEndEvent(player, fromEntity, lastLocation, itemStack, triggerDepth);
-                Bukkit.getPluginManager().callEvent(beamEndEvent);
-                return beamEndEvent;
+            lengthRemains.set(lengthToSpawn + lengthPerSpawn);
+            if (spawnedLength.get() >= length || currentTick.addAndGet(1) > ttl || mode == Mode.BEAM) {
+                if (!effectOnly) {
+                    callEnd();
+                }
+                return false;
             }
+            return true;
+        }
 
+        private BeamEndEvent callEnd(){
+            BeamEndEvent beamEndEvent = new BeamEndEvent(player, fromEntity, lastLocation.clone(), itemStack, triggerDepth);
+            Bukkit.getPluginManager().callEvent(beamEndEvent);
+            return beamEndEvent;
         }
 
         boolean reported = false;
 
         private double getNextLength(AtomicDouble spawnedLength, double length) {
-            Expression eval = new Expression(speedBias).with("x", new Expression.LazyNumber() {
-                @Override
-                public BigDecimal eval() {
-                    return BigDecimal.valueOf(spawnedLength.get() / length);
-                }
-
-                @Override
-                public String getString() {
-                    return String.valueOf(spawnedLength.get() / length);
-                }
-            }).with("t", new Expression.LazyNumber() {
-                @Override
-                public BigDecimal eval() {
-                    return BigDecimal.valueOf(currentTick.get() / 20d);
-                }
-
-                @Override
-                public String getString() {
-                    return null;
-                }
-            });
             double v = 1;
             if (!"".equals(speedBias)) {
                 try {
-                    v = (eval.eval().doubleValue());
+                    v = CompiledExpression.compile(speedBias, "x", "t").eval(spawnedLength.get() / length, currentTick.get() / 20d);
                 } catch (Exception ignored) {
                     //todo: lang
                     if (!reported) {
@@ -799,54 +804,77 @@ public class Beam extends BasePower {
                     i = 0;
                 }
                 if (spawnInWorld >= 3) {
-                    ((Player) from).spawnParticle(this.particle, lastLocation, i, offsetX, offsetY, offsetZ, particleSpeed, extraData);
+                    ParticleBatcher.spawn((Player) from, this.particle, lastLocation, i, offsetX, offsetY, offsetZ, particleSpeed, extraData);
                     spawnInWorld = 0;
                 } else {
-                    world.spawnParticle(this.particle, lastLocation, i, offsetX, offsetY, offsetZ, particleSpeed, extraData, false);
+                    ParticleBatcher.spawn(world, this.particle, lastLocation, i, offsetX, offsetY, offsetZ, particleSpeed, extraData, false);
                 }
                 spawnInWorld++;
             } else {
-                world.spawnParticle(this.particle, lastLocation, i, offsetX, offsetY, offsetZ, particleSpeed, extraData, false);
+                ParticleBatcher.spawn(world, this.particle, lastLocation, i, offsetX, offsetY, offsetZ, particleSpeed, extraData, false);
             }
 
         }
 
+        /**
+         * Sweeps the particle box from where the last check ended to the location, and hits the first living entity on the way
+         */
         private Collection<? extends UUID> tryHit(Entity from, Location loc, ItemStack stack, boolean canHitSelf, Set<UUID> hitMob) {
             HashSet<UUID> hitMobs = new HashSet<>();
             if (from == null || this.effectOnly) return hitMobs;
-            double offsetLength = new Vector(offsetX, offsetY, offsetZ).length();
-            double length = Double.isNaN(offsetLength) ? 0.1 : Math.max(offsetLength, 10);
-            Collection<Entity> candidates = from.getWorld().getNearbyEntities(loc, length, length, length);
-            List<Entity> collect = candidates.stream()
-                    .filter(entity -> (entity instanceof LivingEntity) && (!isUtilArmorStand(entity)) && (canHitSelf || !entity.equals(from)) && !entity.isDead() && !hitMob.contains(entity.getUniqueId()))
-                    .filter(entity -> canHit(loc, entity))
-                    .limit(Math.max(pierce, 1))
-                    .toList();
-            if (!collect.isEmpty()) {
-                Entity entity = collect.get(0);
-                if (entity instanceof LivingEntity) {
-                    BeamHitEntityEvent beamHitEntityEvent = new BeamHitEntityEvent(player, from, ((LivingEntity) entity), stack, damage, loc, getBoundingBox(loc), towards.clone().normalize().multiply(getNextLength(spawnedLength, length*20)), triggerDepth);
-                    Bukkit.getPluginManager().callEvent(beamHitEntityEvent);
-                    double damage = beamHitEntityEvent.getDamage();
-                    if (damage > 0) {
-                        LightContext.putTemp(from.getUniqueId(), DAMAGE_SOURCE, power.getNamespacedKey().toString());
-                        LightContext.putTemp(from.getUniqueId(), OVERRIDING_DAMAGE, damage);
-                        LightContext.putTemp(from.getUniqueId(), SUPPRESS_MELEE, suppressMelee);
-                        LightContext.putTemp(from.getUniqueId(), DAMAGE_SOURCE_ITEM, stack);
-                        ((LivingEntity) entity).damage(damage, from);
-                        LightContext.clear();
-                    }
-                    hitMobs.add(entity.getUniqueId());
+            BoundingBox particleBox = getBoundingBox(loc);
+            double halfX = particleBox.getWidthX() / 2, halfY = particleBox.getHeight() / 2, halfZ = particleBox.getWidthZ() / 2;
+            Vector start = sweptFrom.clone();
+            Vector direction = loc.toVector().subtract(start);
+            double distance = direction.length();
+            if (distance > 0) {
+                direction.multiply(1 / distance);
+            }
+            sweptFrom.setX(loc.getX()).setY(loc.getY()).setZ(loc.getZ());
+            LivingEntity entity = null;
+            double nearest = Double.MAX_VALUE;
+            for (EntityGrid.Entry candidate : getCandidates(from, loc, particleBox)) {
+                LivingEntity living = (LivingEntity) candidate.getEntity();
+                if ((!canHitSelf && living.equals(from)) || living.isDead() || hitMob.contains(living.getUniqueId())) continue;
+                double d = candidate.sweep(start, direction, distance, halfX, halfY, halfZ);
+                if (d >= 0 && d < nearest) {
+                    nearest = d;
+                    entity = living;
                 }
             }
+            if (entity != null) {
+                Location hitLocation = start.add(direction.multiply(nearest)).toLocation(loc.getWorld());
+                double offsetLength = new Vector(offsetX, offsetY, offsetZ).length();
+                double length = Double.isNaN(offsetLength) ? 0.1 : Math.max(offsetLength, 10);
+                BeamHitEntityEvent beamHitEntityEvent = new BeamHitEntityEvent(player, from, entity, stack, damage, hitLocation, getBoundingBox(hitLocation), towards.clone().normalize().multiply(getNextLength(spawnedLength, length*20)), triggerDepth);
+                Bukkit.getPluginManager().callEvent(beamHitEntityEvent);
+                double damage = beamHitEntityEvent.getDamage();
+                if (damage > 0) {
+                    LightContext.putTemp(from.getUniqueId(), DAMAGE_SOURCE, power.getNamespacedKey().toString());
+                    LightContext.putTemp(from.getUniqueId(), OVERRIDING_DAMAGE, damage);
+                    LightContext.putTemp(from.getUniqueId(), SUPPRESS_MELEE, suppressMelee);
+                    LightContext.putTemp(from.getUniqueId(), DAMAGE_SOURCE_ITEM, stack);
+                    entity.damage(damage, from);
+                    LightContext.clear();
+                }
+                hitMobs.add(entity.getUniqueId());
+            }
             return hitMobs;
         }
 
-        private boolean canHit(Location loc, Entity entity) {
-            BoundingBox boundingBox = entity.getBoundingBox();
-            BoundingBox particleBox = getBoundingBox(loc);
-
-            return boundingBox.overlaps(particleBox) || particleBox.overlaps(boundingBox);
+        /**
+         * @return Living entities that may be swept by the particle box near the location, from the world's {@link EntityGrid}.
+         * Queried once per tick, covering the distance the beam travels in the tick, and again only if the beam leaves that area.
+         */
+        private List<EntityGrid.Entry> getCandidates(Entity from, Location loc, BoundingBox particleBox) {
+            if (candidateCenter != null && loc.distanceSquared(candidateCenter) <= (candidateTravel + 1) * (candidateTravel + 1)) {
+                return candidates;
+            }
+            double reach = candidateTravel + lengthPerSpawn + 1 + Math.max(particleBox.getWidthX(), Math.max(particleBox.getHeight(), particleBox.getWidthZ())) / 2;
+            candidates = EntityGrid.of(from.getWorld()).query(BoundingBox.of(loc, reach, reach, reach), LivingEntity.class);
+            candidates.removeIf(entry -> isUtilArmorStand(entry.getEntity()));
+            candidateCenter = loc.clone();
+            return candidates;
         }
 
         private BoundingBox getBoundingBox(Location loc) {
@@ -0,0 +1,74 @@
+package think.rpgitems.power.impl;
+
+import org.bukkit.scheduler.BukkitRunnable;
+import think.rpgitems.RPGItems;
+
+import java.util.ArrayDeque;
+import java.util.logging.Level;
+
+/**
+ * Steps every live beam from a single repeating task, instead of one task per beam per tick.
+ * <p>
+ * Beams are stepped once per tick in submission order. When stepping takes longer than
+ * {@code general.beam.tick_budget} milliseconds, the remaining beams wait for the next tick and are stepped first then.
+ * The task stops itself when no beam is left, and is started again by the next {@link #submit}.
+ */
+final class BeamScheduler extends BukkitRunnable {
+    private static final ArrayDeque<Step> beams = new ArrayDeque<>();
+    private static BeamScheduler task;
+
+    /**
+     * One tick of a beam
+     */
+    interface Step {
+        /**
+         * @return Whether the beam is still alive and should be stepped next tick
+         */
+        boolean step();
+    }
+
+    private BeamScheduler() {
+    }
+
+    /**
+     * Steps the beam from the next tick on, until it ends
+     */
+    static void submit(Step beam) {
+        if (task == null || task.isCancelled()) {
+            beams.clear();
+            task = new BeamScheduler();
+            task.runTaskTimer(RPGItems.plugin, 1, 1);
+        }
+        beams.addLast(beam);
+    }
+
+    static int getActiveCount() {
+        return beams.size();
+    }
+
+    @Override
+    public void run() {
+        int budget = RPGItems.plugin.cfg.beamTickBudget;
+        long deadline = System.nanoTime() + budget * 1_000_000L;
+        // beams submitted while stepping start next tick
+        int count = beams.size();
+        for (int i = 0; i < count; i++) {
+            if (budget > 0 && i > 0 && System.nanoTime() > deadline) break;
+            Step beam = beams.pollFirst();
+            boolean alive;
+            try {
+                alive = beam.step();
+            } catch (Exception e) {
+                RPGItems.plugin.getLogger().log(Level.WARNING, "Error stepping beam", e);
+                alive = false;
+            }
+            if (alive) {
+                beams.addLast(beam);
+            }
+        }
+        if (beams.isEmpty()) {
+            cancel();
+            task = null;
+        }
+    }
+}
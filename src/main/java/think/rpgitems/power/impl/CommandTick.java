@@ -13,7 +13,7 @@ import static think.rpgitems.RPGItems.plugin;
         defaultTrigger = {"TICK"},
         implClass = CommandTick.Impl.class
 )
-public class CommandTick extends BasePower {
+public class CommandTick extends BasePower implements TickIntervalHolder {
     @Property(
             order = 1,
             required = true
@@ -33,6 +33,8 @@ public class CommandTick extends BasePower {
             order = 2
     )
     public int interval;
+    @Property
+    public int tickInterval = 1;
 
     public int getCost() {
         return this.cost;
@@ -42,6 +44,11 @@ public class CommandTick extends BasePower {
         return this.interval;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     public String getName() {
         return "commandtick";
     }
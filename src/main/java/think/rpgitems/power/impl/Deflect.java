@@ -167,7 +167,7 @@ public class Deflect extends BasePower {
                 event.setCancelled(true);
                 target.getLocation().getWorld().playSound(target.getLocation(), Sound.ITEM_SHIELD_BLOCK, 1.0f, 3.0f);
                 Projectile t = target.launchProjectile(p.getClass());
-                Events.registerRPGProjectile(t.getEntityId(), getItem().getUid());
+                Events.registerRPGProjectile(t, getItem().getUid());
                 if (p instanceof TippedArrow tippedArrowP) {
                     TippedArrow tippedArrowT = (TippedArrow) t;
                     tippedArrowT.setBasePotionData(tippedArrowP.getBasePotionData());
@@ -188,7 +188,7 @@ public class Deflect extends BasePower {
                 // `bounce` does not do anything
                 // t.setBounce(p.doesBounce());
                 t.setShooter(target);
-                Events.autoRemoveProjectile(t.getEntityId());
+                Events.autoRemoveProjectile(t);
                 p.eject();
                 p.remove();
                 return PowerResult.ok(0.0);
@@ -42,7 +42,7 @@ import static think.rpgitems.power.Utils.checkAndSetCooldown;
         PowerBeamHit.class,
         PowerLocation.class
 }, implClass = Dummy.Impl.class)
-public class Dummy extends BasePower {
+public class Dummy extends BasePower implements TickIntervalHolder {
 
     @Property
     public int cooldown = 0;
@@ -93,6 +93,9 @@ public class Dummy extends BasePower {
     @Property
     public boolean globalCooldown = false;
 
+    @Property
+    public int tickInterval = 1;
+
     @Override
     public void init(ConfigurationSection section) {
         if (section.isBoolean("ignoreDurabilityBound")) {
@@ -141,6 +144,11 @@ public class Dummy extends BasePower {
         return enchantmentType;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "dummy";
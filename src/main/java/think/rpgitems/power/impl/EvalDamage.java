@@ -1,6 +1,7 @@
 package think.rpgitems.power.impl;
 
 import com.udojava.evalex.Expression;
+import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
@@ -11,8 +12,10 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.projectiles.ProjectileSource;
 import think.rpgitems.RPGItems;
 import think.rpgitems.power.*;
+import think.rpgitems.utils.CompiledExpression;
 
-import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Set;
 import java.util.logging.Level;
 
 /**
@@ -20,6 +23,20 @@ import java.util.logging.Level;
  */
 @Meta(defaultTrigger = "HIT", implClass = EvalDamage.Impl.class)
 public class EvalDamage extends BasePower {
+    private static final String[] VARIABLES = {
+            "damage", "finalDamage", "isDamageByEntity", "isDamageByProjectile", "damagerType", "damagerTicksLived", "distance", "cause",
+            "playerYaw", "playerPitch", "playerX", "playerY", "playerZ", "playerLastDamage",
+            "entityType", "entityYaw", "entityPitch", "entityX", "entityY", "entityZ", "entityLastDamage"
+    };
+    private static final int DAMAGE = 0, FINAL_DAMAGE = 1, IS_DAMAGE_BY_ENTITY = 2, IS_DAMAGE_BY_PROJECTILE = 3, DAMAGER_TYPE = 4,
+            DAMAGER_TICKS_LIVED = 5, DISTANCE = 6, CAUSE = 7, PLAYER_YAW = 8, PLAYER_LAST_DAMAGE = 13, ENTITY_TYPE = 14, ENTITY_YAW = 15,
+            ENTITY_LAST_DAMAGE = 20;
+    private static final Set<String> STRINGS = Set.of("damagerType", "cause", "entityType");
+    // variables each trigger defines, the others are left undefined
+    private static final String[] HIT_VARIABLES = undefine(VARIABLES, IS_DAMAGE_BY_ENTITY, PLAYER_LAST_DAMAGE);
+    private static final String[] TAKE_HIT_VARIABLES = undefine(VARIABLES, ENTITY_LAST_DAMAGE);
+    private static final String[] TAKE_HIT_NO_ENTITY_VARIABLES = undefine(TAKE_HIT_VARIABLES, IS_DAMAGE_BY_PROJECTILE, DAMAGER_TYPE,
+            DAMAGER_TICKS_LIVED, DISTANCE, ENTITY_TYPE, ENTITY_YAW, ENTITY_YAW + 1, ENTITY_YAW + 2, ENTITY_YAW + 3, ENTITY_YAW + 4);
 
     @Property
     public String display;
@@ -30,6 +47,14 @@ public class EvalDamage extends BasePower {
     @Property
     public boolean setBaseDamage = false;
 
+    private static String[] undefine(String[] variables, int... indexes) {
+        String[] result = Arrays.copyOf(variables, variables.length);
+        for (int index : indexes) {
+            result[index] = null;
+        }
+        return result;
+    }
+
     public String getExpression() {
         return expression;
     }
@@ -57,42 +82,27 @@ public class EvalDamage extends BasePower {
         @Override
         public PowerResult<Double> hit(Player player, ItemStack stack, LivingEntity entity, double damage, EntityDamageByEntityEvent event) {
             try {
-                Expression ex = new Expression(getExpression());
+                CompiledExpression ex = CompiledExpression.compile(getExpression(), HIT_VARIABLES, STRINGS);
+                double[] values = new double[VARIABLES.length];
+                String[] strings = new String[VARIABLES.length];
                 boolean byProjectile = false;
                 Entity damager = event.getDamager();
                 if (damager instanceof Projectile) {
                     byProjectile = true;
                 }
-                ex
-                        .and("damage", BigDecimal.valueOf(damage))
-                        .and("damagerType", damager.getType().name())
-                        .and("isDamageByProjectile", byProjectile ? BigDecimal.ONE : BigDecimal.ZERO)
-                        .and("damagerTicksLived", Utils.lazyNumber(() -> (double) damager.getTicksLived()))
-                        .and("finalDamage", Utils.lazyNumber(event::getFinalDamage))
-                        .and("distance", Utils.lazyNumber(() -> player.getLocation().distance(entity.getLocation())))
-                        .and("playerYaw", Utils.lazyNumber(() -> (double) player.getLocation().getYaw()))
-                        .and("playerPitch", Utils.lazyNumber(() -> (double) player.getLocation().getPitch()))
-                        .and("playerX", Utils.lazyNumber(() -> player.getLocation().getX()))
-                        .and("playerY", Utils.lazyNumber(() -> player.getLocation().getY()))
-                        .and("playerZ", Utils.lazyNumber(() -> player.getLocation().getZ()))
-                        .and("entityType", entity.getType().name())
-                        .and("entityYaw", Utils.lazyNumber(() -> (double) entity.getLocation().getYaw()))
-                        .and("entityPitch", Utils.lazyNumber(() -> (double) entity.getLocation().getPitch()))
-                        .and("entityX", Utils.lazyNumber(() -> entity.getLocation().getX()))
-                        .and("entityY", Utils.lazyNumber(() -> entity.getLocation().getY()))
-                        .and("entityZ", Utils.lazyNumber(() -> entity.getLocation().getZ()))
-                        .and("entityLastDamage", Utils.lazyNumber(entity::getLastDamage))
-                        .and("cause", event.getCause().name())
-                        .addLazyFunction(Utils.scoreBoard(player))
-                ;
-
-                BigDecimal result = ex.eval();
-                double ret = result.doubleValue();
+                values[DAMAGE] = damage;
+                setDamager(ex, values, strings, damager, entity, player, byProjectile);
+                if (ex.uses("finalDamage")) values[FINAL_DAMAGE] = event.getFinalDamage();
+                setLocation(ex, values, PLAYER_YAW, player);
+                values[ENTITY_LAST_DAMAGE] = entity.getLastDamage();
+                strings[CAUSE] = event.getCause().name();
+
+                double ret = ex.eval(player, values, strings);
                 if (isSetBaseDamage()) {
                     event.setDamage(ret);
                 }
                 return PowerResult.ok(ret);
-            } catch (Expression.ExpressionException ex) {
+            } catch (Expression.ExpressionException | ArithmeticException ex) {
                 RPGItems.plugin.getLogger().log(Level.WARNING, "bad expression: " + getExpression(), ex);
                 if (player.isOp() || player.hasPermission("rpgitem")) {
                     player.sendMessage("bad expression: " + getExpression());
@@ -106,22 +116,15 @@ public class EvalDamage extends BasePower {
         public PowerResult<Double> takeHit(Player player, ItemStack stack, double damage, EntityDamageEvent event) {
             boolean byEntity = event instanceof EntityDamageByEntityEvent;
             try {
-
-                Expression ex = new Expression(getExpression());
-                ex
-                        .and("damage", BigDecimal.valueOf(damage))
-                        .and("finalDamage", Utils.lazyNumber(event::getFinalDamage))
-                        .and("isDamageByEntity", byEntity ? BigDecimal.ONE : BigDecimal.ZERO)
-                        .and("playerYaw", Utils.lazyNumber(() -> (double) player.getLocation().getYaw()))
-                        .and("playerPitch", Utils.lazyNumber(() -> (double) player.getLocation().getPitch()))
-                        .and("playerX", Utils.lazyNumber(() -> player.getLocation().getX()))
-                        .and("playerY", Utils.lazyNumber(() -> player.getLocation().getY()))
-                        .and("playerZ", Utils.lazyNumber(() -> player.getLocation().getZ()))
-                        .and("playerLastDamage", Utils.lazyNumber(player::getLastDamage))
-                        .and("cause", event.getCause().name());
-                ex.addLazyFunction(Utils.scoreBoard(player));
-                ex.addLazyFunction(Utils.context(player));
-                ex.addLazyFunction(Utils.now());
+                CompiledExpression ex = CompiledExpression.compile(getExpression(), byEntity ? TAKE_HIT_VARIABLES : TAKE_HIT_NO_ENTITY_VARIABLES, STRINGS);
+                double[] values = new double[VARIABLES.length];
+                String[] strings = new String[VARIABLES.length];
+                values[DAMAGE] = damage;
+                if (ex.uses("finalDamage")) values[FINAL_DAMAGE] = event.getFinalDamage();
+                values[IS_DAMAGE_BY_ENTITY] = byEntity ? 1 : 0;
+                setLocation(ex, values, PLAYER_YAW, player);
+                values[PLAYER_LAST_DAMAGE] = player.getLastDamage();
+                strings[CAUSE] = event.getCause().name();
 
                 if (byEntity) {
                     boolean byProjectile = false;
@@ -134,27 +137,15 @@ public class EvalDamage extends BasePower {
                             byProjectile = true;
                         }
                     }
-                    Entity entity = ent;
-                    ex
-                            .and("damagerType", damager.getType().name())
-                            .and("isDamageByProjectile", byProjectile ? BigDecimal.ONE : BigDecimal.ZERO)
-                            .and("damagerTicksLived", Utils.lazyNumber(() -> (double) damager.getTicksLived()))
-                            .and("distance", Utils.lazyNumber(() -> player.getLocation().distance(entity.getLocation())))
-                            .and("entityType", entity.getType().name())
-                            .and("entityYaw", Utils.lazyNumber(() -> (double) entity.getLocation().getYaw()))
-                            .and("entityPitch", Utils.lazyNumber(() -> (double) entity.getLocation().getPitch()))
-                            .and("entityX", Utils.lazyNumber(() -> entity.getLocation().getX()))
-                            .and("entityY", Utils.lazyNumber(() -> entity.getLocation().getY()))
-                            .and("entityZ", Utils.lazyNumber(() -> entity.getLocation().getZ()));
+                    setDamager(ex, values, strings, damager, ent, player, byProjectile);
                 }
 
-                BigDecimal result = ex.eval();
-                double ret = result.doubleValue();
+                double ret = ex.eval(player, values, strings);
                 if (isSetBaseDamage()) {
                     event.setDamage(ret);
                 }
-                return PowerResult.ok(result.doubleValue());
-            } catch (Expression.ExpressionException ex) {
+                return PowerResult.ok(ret);
+            } catch (Expression.ExpressionException | ArithmeticException ex) {
                 RPGItems.plugin.getLogger().log(Level.WARNING, "bad expression: " + getExpression(), ex);
                 if (player.isOp() || player.hasPermission("rpgitem")) {
                     player.sendMessage("bad expression: " + getExpression());
@@ -164,6 +155,30 @@ public class EvalDamage extends BasePower {
             }
         }
 
+        private void setDamager(CompiledExpression ex, double[] values, String[] strings, Entity damager, Entity entity, Player player, boolean byProjectile) {
+            strings[DAMAGER_TYPE] = damager.getType().name();
+            values[IS_DAMAGE_BY_PROJECTILE] = byProjectile ? 1 : 0;
+            values[DAMAGER_TICKS_LIVED] = damager.getTicksLived();
+            if (ex.uses("distance")) values[DISTANCE] = player.getLocation().distance(entity.getLocation());
+            strings[ENTITY_TYPE] = entity.getType().name();
+            setLocation(ex, values, ENTITY_YAW, entity);
+        }
+
+        private void setLocation(CompiledExpression ex, double[] values, int offset, Entity entity) {
+            boolean used = false;
+            for (int i = offset; i < offset + 5; i++) {
+                used |= ex.uses(VARIABLES[i]);
+            }
+            if (used) {
+                Location location = entity.getLocation();
+                values[offset] = location.getYaw();
+                values[offset + 1] = location.getPitch();
+                values[offset + 2] = location.getX();
+                values[offset + 3] = location.getY();
+                values[offset + 4] = location.getZ();
+            }
+        }
+
         @Override
         public Power getPower() {
             return EvalDamage.this;
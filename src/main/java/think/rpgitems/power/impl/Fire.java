@@ -21,6 +21,7 @@ import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Damageable;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.FallingBlock;
@@ -153,19 +154,15 @@ public class Fire extends BasePower {
                         count++;
 
                         if (finishedFire) {
-                            (new BukkitRunnable() {
-                                @Override
-                                public void run() {
-                                    if (fireblocks.isEmpty()) {
-                                        cancel();
-                                        return;
-                                    }
-                                    Block fb = fireblocks.get(0);
-                                    fb.getWorld().playEffect(fb.getLocation(), Effect.EXTINGUISH, 1);
-                                    fb.setType(Material.AIR);
-                                    fireblocks.remove(fb);
+                            // put out one block every 3 ticks, in the order they were lit
+                            int delay = 4 * 20 + new Random().nextInt(40);
+                            BlockData air = Material.AIR.createBlockData();
+                            for (int i = 0; i < fireblocks.size(); i++) {
+                                Block fb = fireblocks.get(i);
+                                if (fb.getType() == Material.FIRE) {
+                                    TempBlocks.track(fb, air, delay + 3 * i, Effect.EXTINGUISH);
                                 }
-                            }).runTaskTimer(RPGItems.plugin, 4 * 20 + new Random().nextInt(40), 3);
+                            }
                         }
                     }
 
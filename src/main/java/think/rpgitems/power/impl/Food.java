@@ -23,6 +23,7 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.power.*;
 
 /**
@@ -63,7 +64,10 @@ public class Food extends BasePower {
                 int newFoodPoint = player.getFoodLevel() + getFoodpoints();
                 if (newFoodPoint > 20) newFoodPoint = 20;
                 player.setFoodLevel(newFoodPoint);
-                Bukkit.getScheduler().scheduleSyncDelayedTask(RPGItems.plugin, () -> player.getInventory().setItemInMainHand(new ItemStack(Material.AIR)), 1L);
+                Bukkit.getScheduler().scheduleSyncDelayedTask(RPGItems.plugin, () -> {
+                    player.getInventory().setItemInMainHand(new ItemStack(Material.AIR));
+                    EquipmentIndex.markDirty(player);
+                }, 1L);
             } else {
                 player.setFoodLevel(player.getFoodLevel() + getFoodpoints());
                 item.setAmount(count);
@@ -4,7 +4,10 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.Hanging;
 import org.bukkit.entity.ItemFrame;
 import org.bukkit.entity.Painting;
 import org.bukkit.entity.Player;
@@ -14,11 +17,13 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerToggleSneakEvent;
 import org.bukkit.event.player.PlayerToggleSprintEvent;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.BoundingBox;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
 import think.rpgitems.power.*;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static think.rpgitems.power.Utils.checkCooldown;
@@ -133,6 +138,8 @@ public class ForceField extends BasePower {
     }
 
     private static class buildWallTask implements Runnable {
+        private static final BlockData WOOL = Material.WHITE_WOOL.createBlockData();
+        private static final BlockData BARRIER = Material.BARRIER.createBlockData();
         /**
          * The W.
          */
@@ -141,13 +148,6 @@ public class ForceField extends BasePower {
          * The Circle points.
          */
         final Set<Location> circlePoints;
-        /**
-         * The Was wool.
-         */
-        final Set<Location> wasWool, /**
-         * The Was barrier.
-         */
-        wasBarrier;
         /**
          * The L.
          */
@@ -156,9 +156,13 @@ public class ForceField extends BasePower {
          */
         h;
         /**
-         * The Ttl.
+         * Tick the wall is reverted at.
          */
-        final int ttl;
+        final int expireAt;
+        /**
+         * Horizontal extent of the wall, for the hanging entity lookup.
+         */
+        final double minX, maxX, minZ, maxZ;
         /**
          * The Current.
          */
@@ -183,26 +187,22 @@ public class ForceField extends BasePower {
             this.l = l;
             this.h = h;
             current = -1;
-            wasWool = new HashSet<>();
-            wasBarrier = new HashSet<>();
-            this.ttl = ttl;
+            // one layer per tick, reverted ttl ticks after the last one
+            this.expireAt = Bukkit.getCurrentTick() + (h - l + 2) + ttl;
+            this.minX = circlePoints.stream().mapToDouble(Location::getX).min().orElse(0);
+            this.maxX = circlePoints.stream().mapToDouble(Location::getX).max().orElse(0);
+            this.minZ = circlePoints.stream().mapToDouble(Location::getZ).min().orElse(0);
+            this.maxZ = circlePoints.stream().mapToDouble(Location::getZ).max().orElse(0);
         }
 
         @Override
         public void run() {
+            int ttl = expireAt - Bukkit.getCurrentTick();
             if (current != -1) {
                 for (Location l : circlePoints) {
-                    if (wasWool.contains(l)) {
-                        l.add(0, 1, 0);
-                        continue;
-                    }
-                    if (w.getBlockAt(l).getType() == Material.BARRIER) {
-                        wasBarrier.add(l.clone());
-                        l.add(0, 1, 0);
-                        continue;
-                    }
-                    if (w.getBlockAt(l).getType() == Material.WHITE_WOOL)
-                        w.getBlockAt(l).setType(Material.BARRIER);
+                    Block block = w.getBlockAt(l);
+                    if (block.getType() == Material.WHITE_WOOL && TempBlocks.isTemp(block))
+                        TempBlocks.place(block, BARRIER, ttl, false, null);
                     l.add(0, 1, 0);
                 }
             }
@@ -212,33 +212,22 @@ public class ForceField extends BasePower {
                 current++;
             }
             if (current <= h) {
+                List<EntityGrid.Entry> hangings = EntityGrid.of(w).query(new BoundingBox(minX - 2, current - 2, minZ - 2, maxX + 2, current + 2, maxZ + 2), Hanging.class);
                 loop:
                 for (Location l : circlePoints) {
-                    if (w.getBlockAt(l).getType() == Material.WHITE_WOOL) {
-                        wasWool.add(l.clone());
-                        continue;
-                    }
-                    if (w.getBlockAt(l).getType() == Material.AIR) {
-                        for (Entity e : w.getNearbyEntities(l, 2, 2, 2)) {
+                    Block block = w.getBlockAt(l);
+                    if (block.getType() == Material.AIR) {
+                        for (EntityGrid.Entry hanging : hangings) {
+                            Entity e = hanging.getEntity();
                             if (e instanceof ItemFrame || e instanceof Painting) {
                                 if (e.getLocation().distance(l) < 1.5) continue loop;
                             }
                         }
-                        w.getBlockAt(l).setType(Material.WHITE_WOOL);
+                        TempBlocks.place(block, WOOL, ttl, false, null);
                     }
                 }
             } else {
                 Bukkit.getScheduler().cancelTask(id);
-                Bukkit.getScheduler().scheduleSyncDelayedTask(RPGItems.plugin, () -> {
-                    for (int i = h; i >= l; i--) {
-                        for (Location l : circlePoints) {
-                            l.subtract(0, 1, 0);
-                            if (!wasBarrier.contains(l) && w.getBlockAt(l).getType() == Material.BARRIER) {
-                                w.getBlockAt(l).setType(Material.AIR);
-                            }
-                        }
-                    }
-                }, ttl);
             }
         }
 
@@ -16,7 +16,8 @@ import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
 import think.rpgitems.power.*;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -106,7 +107,7 @@ public class Ice extends BasePower {
                         }
                         cancel();
                         BlockData iceBlock = Material.PACKED_ICE.createBlockData();
-                        final HashMap<Location, BlockData> changedBlocks = new HashMap<>();
+                        final List<Block> changedBlocks = new ArrayList<>();
                         for (int x = -1; x < 2; x++) {
                             for (int y = -1; y < 3; y++) {
                                 for (int z = -1; z < 2; z++) {
@@ -114,38 +115,19 @@ public class Ice extends BasePower {
                                     Block b = world.getBlockAt(loc);
                                     if (!b.getType().isSolid() &&
                                                 !(b.getType() == Material.PLAYER_HEAD || b.getType() == Material.PLAYER_WALL_HEAD)) {
-                                        changedBlocks.put(b.getLocation(), b.getBlockData());
-                                        for (Player p : player.getWorld().getPlayers()) {
-                                            p.sendBlockChange(b.getLocation(), iceBlock);
-                                        }
+                                        changedBlocks.add(b);
                                     }
                                 }
                             }
                         }
 
-                        // ice block remove timer
-                        (new BukkitRunnable() {
-                            final Random random = new Random();
-
-                            @Override
-                            public void run() {
-                                for (int i = 0; i < 4; i++) {
-                                    if (changedBlocks.isEmpty()) {
-                                        cancel();
-                                        return;
-                                    }
-                                    int index = random.nextInt(changedBlocks.size());
-                                    Location position = changedBlocks.keySet().toArray(new Location[0])[index];
-                                    BlockData data = changedBlocks.remove(position);
-                                    position.getWorld().playEffect(position, Effect.STEP_SOUND, Material.PACKED_ICE);
-
-                                    for (Player p : player.getWorld().getPlayers()) {
-                                        p.sendBlockChange(position, data);
-                                    }
-                                }
-
-                            }
-                        }).runTaskTimer(RPGItems.plugin, 4 * 20 + new Random().nextInt(40), 3);
+                        // melt four blocks every 3 ticks in random order
+                        Random random = new Random();
+                        Collections.shuffle(changedBlocks, random);
+                        int delay = 4 * 20 + random.nextInt(40);
+                        for (int i = 0; i < changedBlocks.size(); i++) {
+                            TempBlocks.show(changedBlocks.get(i), iceBlock, delay + 3 * (i / 4), Effect.STEP_SOUND);
+                        }
                     }
 
                 }
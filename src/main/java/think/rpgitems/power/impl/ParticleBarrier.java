@@ -40,7 +40,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import static think.rpgitems.power.Utils.checkCooldown;
 
 @Meta(defaultTrigger = {"RIGHT_CLICK", "TICK"}, generalInterface = PowerPlain.class, implClass = ParticleBarrier.Impl.class)
-public class ParticleBarrier extends BasePower {
+public class ParticleBarrier extends BasePower implements TickIntervalHolder {
 
     private static final Cache<UUID, Double> barriers = CacheBuilder.newBuilder()
                                                                     .expireAfterAccess(1, TimeUnit.MINUTES)
@@ -73,6 +73,9 @@ public class ParticleBarrier extends BasePower {
     @AcceptedValue(preset = Preset.POTION_EFFECT_TYPE)
     public PotionEffectType effect = PotionEffectType.INCREASE_DAMAGE;
 
+    @Property
+    public int tickInterval = 1;
+
     @Override
     public void init(ConfigurationSection s) {
         int orc = getRc().getAndIncrement();
@@ -161,6 +164,11 @@ public class ParticleBarrier extends BasePower {
         return energyPerLevel;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "particlebarrier";
@@ -11,10 +11,8 @@ import org.bukkit.event.entity.EntityShootBowEvent;
 import org.bukkit.event.entity.ProjectileHitEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import think.rpgitems.commands.AdminCommands;
 import think.rpgitems.I18n;
-import think.rpgitems.RPGItems;
 import think.rpgitems.event.BeamEndEvent;
 import think.rpgitems.event.BeamHitBlockEvent;
 import think.rpgitems.event.BeamHitEntityEvent;
@@ -121,7 +119,7 @@ public class ParticlePower extends BasePower {
                 player.getWorld().playEffect(player.getLocation(), getEffect(), 0);
             }
         } else {
-            player.getWorld().spawnParticle(getParticle(), player.getLocation(), getParticleCount(), getOffsetX(), getOffsetY(), getOffsetZ(), getExtra(), getData(), isForce());
+            ParticleBatcher.spawn(player.getWorld(), getParticle(), player.getLocation(), getParticleCount(), getOffsetX(), getOffsetY(), getOffsetZ(), getExtra(), getData(), isForce());
         }
     }
 
@@ -133,7 +131,7 @@ public class ParticlePower extends BasePower {
                 world.playEffect(location, getEffect(), 0);
             }
         } else {
-            world.spawnParticle(getParticle(), location, getParticleCount(), getOffsetX(), getOffsetY(), getOffsetZ(), getExtra(), getData(), isForce());
+            ParticleBatcher.spawn(world, getParticle(), location, getParticleCount(), getOffsetX(), getOffsetY(), getOffsetZ(), getExtra(), getData(), isForce());
         }
     }
 
@@ -305,12 +303,9 @@ public class ParticlePower extends BasePower {
 
         private PowerResult<Void> fire(Location playLocation) {
             int delay = getDelay();
-            new BukkitRunnable(){
-                @Override
-                public void run() {
-                    spawnParticle(playLocation.getWorld(), playLocation);
-                }
-            }.runTaskLater(RPGItems.plugin, delay);
+            ParticleBatcher.later(delay, () -> {
+                spawnParticle(playLocation.getWorld(), playLocation);
+            });
             return PowerResult.ok();
         }
 
@@ -347,20 +342,14 @@ public class ParticlePower extends BasePower {
             if (!getItem().consumeDurability(player, stack, getCost())) return PowerResult.cost();
             if (getPlayLocation().equals(PlayLocation.HIT_LOCATION)) {
                 int delay = getDelay();
-                new BukkitRunnable(){
-                    @Override
-                    public void run() {
-                        spawnParticle(entity);
-                    }
-                }.runTaskLater(RPGItems.plugin, delay);
+                ParticleBatcher.later(delay, () -> {
+                    spawnParticle(entity);
+                });
             }else if (getPlayLocation().equals(PlayLocation.SELF)){
                 int delay = getDelay();
-                new BukkitRunnable(){
-                    @Override
-                    public void run() {
-                        spawnParticle(player);
-                    }
-                }.runTaskLater(RPGItems.plugin, delay);
+                ParticleBatcher.later(delay, () -> {
+                    spawnParticle(player);
+                });
             }
             return PowerResult.ok().with(damage);
         }
@@ -371,17 +360,14 @@ public class ParticlePower extends BasePower {
             if (!getItem().consumeDurability(player, stack, getCost())) return PowerResult.cost();
 
             int delay = getDelay();
-            new BukkitRunnable(){
-                @Override
-                public void run() {
-                    Location location = event.getLoc();
-                    if (getPlayLocation().equals(PlayLocation.HIT_LOCATION)) {
-                    }else if (getPlayLocation().equals(PlayLocation.SELF)){
-                        location = player.getLocation();
-                    }
-                    spawnParticle(entity.getWorld(), location);
+            ParticleBatcher.later(delay, () -> {
+                Location location = event.getLoc();
+                if (getPlayLocation().equals(PlayLocation.HIT_LOCATION)) {
+                }else if (getPlayLocation().equals(PlayLocation.SELF)){
+                    location = player.getLocation();
                 }
-            }.runTaskLater(RPGItems.plugin, delay);
+                spawnParticle(entity.getWorld(), location);
+            });
             return PowerResult.ok(damage);
         }
 
@@ -391,17 +377,14 @@ public class ParticlePower extends BasePower {
             if (!getItem().consumeDurability(player, stack, getCost())) return PowerResult.cost();
 
             int delay = getDelay();
-            new BukkitRunnable(){
-                @Override
-                public void run() {
-                    Location loc = location;
-                    if (getPlayLocation().equals(PlayLocation.HIT_LOCATION)) {
-                    }else if (getPlayLocation().equals(PlayLocation.SELF)){
-                        loc = player.getLocation();
-                    }
-                    spawnParticle(player.getWorld(), loc);
+            ParticleBatcher.later(delay, () -> {
+                Location loc = location;
+                if (getPlayLocation().equals(PlayLocation.HIT_LOCATION)) {
+                }else if (getPlayLocation().equals(PlayLocation.SELF)){
+                    loc = player.getLocation();
                 }
-            }.runTaskLater(RPGItems.plugin, delay);
+                spawnParticle(player.getWorld(), loc);
+            });
 
             return PowerResult.ok();
         }
@@ -412,17 +395,14 @@ public class ParticlePower extends BasePower {
             if (!getItem().consumeDurability(player, stack, getCost())) return PowerResult.cost();
 
             int delay = getDelay();
-            new BukkitRunnable(){
-                @Override
-                public void run() {
-                    Location loc = location;
-                    if (getPlayLocation().equals(PlayLocation.HIT_LOCATION)) {
-                    }else if (getPlayLocation().equals(PlayLocation.SELF)){
-                        loc = player.getLocation();
-                    }
-                    spawnParticle(player.getWorld(), loc);
+            ParticleBatcher.later(delay, () -> {
+                Location loc = location;
+                if (getPlayLocation().equals(PlayLocation.HIT_LOCATION)) {
+                }else if (getPlayLocation().equals(PlayLocation.SELF)){
+                    loc = player.getLocation();
                 }
-            }.runTaskLater(RPGItems.plugin, delay);
+                spawnParticle(player.getWorld(), loc);
+            });
 
             return PowerResult.ok();
         }
@@ -433,17 +413,14 @@ public class ParticlePower extends BasePower {
             if (!getItem().consumeDurability(player, stack, getCost())) return PowerResult.cost();
 
             int delay = getDelay();
-            new BukkitRunnable(){
-                @Override
-                public void run() {
-                    Location loc = event.getEntity().getLocation();
-                    if (getPlayLocation().equals(PlayLocation.HIT_LOCATION)) {
-                    }else if (getPlayLocation().equals(PlayLocation.SELF)){
-                        loc = player.getLocation();
-                    }
-                    spawnParticle(player.getWorld(), loc);
+            ParticleBatcher.later(delay, () -> {
+                Location loc = event.getEntity().getLocation();
+                if (getPlayLocation().equals(PlayLocation.HIT_LOCATION)) {
+                }else if (getPlayLocation().equals(PlayLocation.SELF)){
+                    loc = player.getLocation();
                 }
-            }.runTaskLater(RPGItems.plugin, delay);
+                spawnParticle(player.getWorld(), loc);
+            });
 
             return PowerResult.ok();
         }
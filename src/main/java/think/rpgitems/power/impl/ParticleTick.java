@@ -21,9 +21,11 @@ import static think.rpgitems.power.Utils.checkCooldown;
  */
 @SuppressWarnings("WeakerAccess")
 @Meta(defaultTrigger = "TICK", implClass = ParticleTick.Impl.class)
-public class ParticleTick extends ParticlePower {
+public class ParticleTick extends ParticlePower implements TickIntervalHolder {
     @Property(order = 1)
     public int interval = 15;
+    @Property
+    public int tickInterval = 1;
 
     /**
      * Interval of particle effect
@@ -32,6 +34,11 @@ public class ParticleTick extends ParticlePower {
         return interval;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "particletick";
@@ -21,7 +21,7 @@ import static think.rpgitems.power.Utils.checkAndSetCooldown;
  */
 @SuppressWarnings("WeakerAccess")
 @Meta(defaultTrigger = "TICK", implClass = PotionTick.Impl.class)
-public class PotionTick extends BasePower {
+public class PotionTick extends BasePower implements TickIntervalHolder {
 
     @Deserializer(PotionEffectUtils.class)
     @Serializer(PotionEffectUtils.class)
@@ -40,6 +40,8 @@ public class PotionTick extends BasePower {
     public int minDuration = 5;
     @Property
     public boolean clear = false;
+    @Property
+    public int tickInterval = 1;
 
     /**
      * Cost of this power
@@ -69,6 +71,11 @@ public class PotionTick extends BasePower {
         return interval;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "potiontick";
@@ -481,7 +481,7 @@ public class ProjectilePower extends BasePower {
                 ((Fireball) projectile).setDirection(v.clone().normalize().multiply(getSpeed()));
             }
             if (Arrow.class.isAssignableFrom(getProjectileType())) {
-                Events.autoRemoveProjectile(projectile.getEntityId());
+                Events.autoRemoveProjectile(projectile);
                 ((Arrow) projectile).setPickupStatus(Arrow.PickupStatus.DISALLOWED);
             }
             if (!isGravity()) {
@@ -2,6 +2,7 @@ package think.rpgitems.power.impl;
 
 import org.bukkit.*;
 import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.FallingBlock;
 import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityShootBowEvent;
@@ -105,37 +106,23 @@ public class Rainbow extends BasePower {
             }
             (new BukkitRunnable() {
 
-                ArrayList<Location> fallLocs = new ArrayList<>();
-                Random random = new Random();
+                final Random random = new Random();
+                final BlockData air = Material.AIR.createBlockData();
 
                 public void run() {
-
-                    Iterator<Location> l = fallLocs.iterator();
-                    while (l.hasNext()) {
-                        Location loc = l.next();
-                        if (random.nextBoolean()) {
-                            Block b = loc.getBlock();
-                            if ((isFire() && b.getType() == Material.FIRE) || (!isFire() && Tag.WOOL.isTagged(b.getType()))) {
-                                loc.getWorld().playEffect(loc, Effect.STEP_SOUND, b.getType());
-                                b.setType(Material.AIR);
-                            }
-                            l.remove();
-                        }
-                        if (random.nextInt(5) == 0) {
-                            break;
-                        }
-                    }
-
                     Iterator<FallingBlock> it = blocks.iterator();
                     while (it.hasNext()) {
                         FallingBlock block = it.next();
                         if (block.isDead()) {
-                            fallLocs.add(block.getLocation());
+                            Block b = block.getLocation().getBlock();
+                            if ((isFire() && b.getType() == Material.FIRE) || (!isFire() && Tag.WOOL.isTagged(b.getType()))) {
+                                TempBlocks.track(b, air, 5 + 5 * random.nextInt(4), Effect.STEP_SOUND);
+                            }
                             it.remove();
                         }
                     }
 
-                    if (fallLocs.isEmpty() && blocks.isEmpty()) {
+                    if (blocks.isEmpty()) {
                         cancel();
                     }
 
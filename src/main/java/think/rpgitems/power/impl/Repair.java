@@ -17,6 +17,7 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import think.rpgitems.I18n;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.power.*;
 import think.rpgitems.power.trigger.BaseTriggers;
 
@@ -181,6 +182,7 @@ public class Repair extends BasePower {
                     break;
                 }
                 if (removeItem(player.getInventory(), getMaterial(), 1)) {
+                    EquipmentIndex.markDirty(player);
                     getItem().setItemStackDurability(player, stack, Math.min(itemDurability + getDurability(), max));
                     repairCount++;
                 } else {
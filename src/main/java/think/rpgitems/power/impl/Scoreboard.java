@@ -46,7 +46,7 @@ import static think.rpgitems.power.Utils.checkCooldown;
         PowerBeamHit.class,
         PowerLocation.class
 }, implClass = Scoreboard.Impl.class)
-public class Scoreboard extends BasePower {
+public class Scoreboard extends BasePower implements TickIntervalHolder {
 
     private static LoadingCache<String, Pair<Set<String>, Set<String>>> teamCache = CacheBuilder
                                                                                             .newBuilder()
@@ -80,6 +80,8 @@ public class Scoreboard extends BasePower {
     public boolean abortOnSuccess = false;
     @Property
     public boolean requireHurtByEntity = true;
+    @Property
+    public int tickInterval = 1;
     private BukkitRunnable removeTask;
 
     /**
@@ -100,6 +102,11 @@ public class Scoreboard extends BasePower {
         return delay;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "scoreboard";
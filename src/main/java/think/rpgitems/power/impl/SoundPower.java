@@ -43,7 +43,7 @@ import static think.rpgitems.power.Utils.checkCooldown;
         PowerBeamHit.class,
         PowerLocation.class
 }, implClass = SoundPower.Impl.class)
-public class SoundPower extends BasePower {
+public class SoundPower extends BasePower implements TickIntervalHolder {
     @Property
     public float pitch = 1.0f;
     @Property
@@ -58,6 +58,8 @@ public class SoundPower extends BasePower {
     public int cooldown = 0;
     @Property
     public int delay = 0;
+    @Property
+    public int tickInterval = 1;
 
     public int getDelay() {
         return delay;
@@ -90,6 +92,11 @@ public class SoundPower extends BasePower {
         return cost;
     }
 
+    @Override
+    public int getTickInterval() {
+        return tickInterval;
+    }
+
     @Override
     public String getName() {
         return "sound";
@@ -92,7 +92,7 @@ public class TippedArrows extends BasePower {
             Events.registerRPGProjectile(getPower().getItem(), stack, player);
             org.bukkit.entity.TippedArrow arrow = player.launchProjectile(org.bukkit.entity.TippedArrow.class);
             arrow.addCustomEffect(new PotionEffect(getType(), getDuration(), getAmplifier()), true);
-            Events.autoRemoveProjectile(arrow.getEntityId());
+            Events.autoRemoveProjectile(arrow);
             return PowerResult.ok();
         }
 
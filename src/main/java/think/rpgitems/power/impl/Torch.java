@@ -10,14 +10,13 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityShootBowEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.scheduler.BukkitRunnable;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
 import think.rpgitems.power.*;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -98,11 +97,9 @@ public class Torch extends BasePower {
                     final Random random = new Random();
                     if (block.isDead()) {
                         block.remove();
-                        if (block.getLocation().getBlock().getType().equals(Material.TORCH))
-                            block.setMetadata("RPGItems.Torch", new FixedMetadataValue(RPGItems.plugin, null));
                         cancel();
-                        final HashMap<Location, Material> changedBlocks = new HashMap<>();
-                        final HashMap<Location, BlockData> changedBlockData = new HashMap<>();
+                        List<Block> torches = new ArrayList<>();
+                        List<BlockData> torchData = new ArrayList<>();
                         for (int x = -2; x <= 2; x++) {
                             for (int y = -2; y <= 3; y++) {
                                 for (int z = -2; z <= 2; z++) {
@@ -111,47 +108,32 @@ public class Torch extends BasePower {
                                     if (b.getType().equals(Material.AIR) && random.nextInt(100) < 20) {
                                         List<BlockFace> faces = getPossibleFaces(loc);
                                         if (faces.size() > 0) {
-                                            changedBlocks.put(b.getLocation(), b.getType());
-                                            changedBlockData.put(b.getLocation(), b.getBlockData());
                                             BlockFace o = faces.get(random.nextInt(faces.size()));
-                                            b.setMetadata("RPGItems.Torch", new FixedMetadataValue(RPGItems.plugin, null));
-                                            b.setType(o == BlockFace.DOWN ? Material.TORCH : Material.WALL_TORCH, false);
+                                            BlockData data = (o == BlockFace.DOWN ? Material.TORCH : Material.WALL_TORCH).createBlockData();
                                             if (o != BlockFace.DOWN) {
-                                                Directional f = ((Directional) b.getBlockData());
-                                                f.setFacing(o);
-                                                b.setBlockData(f, false);
+                                                ((Directional) data).setFacing(o);
                                             }
+                                            torches.add(b);
+                                            torchData.add(data);
                                         }
                                     }
                                 }
                             }
                         }
-                        (new BukkitRunnable() {
-
-                            @Override
-                            public void run() {
-                                if (changedBlocks.isEmpty()) {
-                                    cancel();
-                                    block.removeMetadata("RPGItems.Torch", RPGItems.plugin);
-                                    if (block.getLocation().getBlock().getType() == Material.TORCH) {
-                                        block.getLocation().getBlock().setType(Material.AIR);
-                                    }
-                                    return;
-                                }
-                                int index = random.nextInt(changedBlocks.size());
-                                Location loc = (Location) changedBlocks.keySet().toArray()[index];
-                                Material material = changedBlocks.get(loc);
-                                BlockData data = changedBlockData.get(loc);
-                                Location position = changedBlocks.keySet().toArray(new Location[0])[index];
-                                changedBlocks.remove(position);
-                                Block c = position.getBlock();
-                                position.getWorld().playEffect(position, Effect.STEP_SOUND, c.getType());
-                                c.removeMetadata("RPGItems.Torch", RPGItems.plugin);
-                                c.setType(material, false);
-                                c.setBlockData(data, false);
-
-                            }
-                        }).runTaskTimer(RPGItems.plugin, 4 * 20 + new Random().nextInt(40), 3);
+                        // remove one torch every 3 ticks in random order, then the landed one
+                        int delay = 4 * 20 + random.nextInt(40);
+                        List<Integer> order = new ArrayList<>();
+                        for (int i = 0; i < torches.size(); i++) {
+                            order.add(i);
+                        }
+                        Collections.shuffle(order, random);
+                        for (int i = 0; i < torches.size(); i++) {
+                            TempBlocks.place(torches.get(i), torchData.get(i), delay + 3 * order.get(i), false, Effect.STEP_SOUND);
+                        }
+                        Block landed = block.getLocation().getBlock();
+                        if (landed.getType() == Material.TORCH) {
+                            TempBlocks.track(landed, Material.AIR.createBlockData(), delay + 3 * torches.size(), null);
+                        }
                     }
 
                 }
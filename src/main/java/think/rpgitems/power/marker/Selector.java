@@ -22,8 +22,8 @@ import think.rpgitems.power.Utils;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Power selector.
@@ -61,6 +61,8 @@ public class Selector extends BaseMarker {
             .expireAfterAccess(1, TimeUnit.DAYS)
             .build(CacheLoader.from(Selector::parseGameMode));
 
+    private Compiled compiled;
+
     @Property(order = 0, required = true)
     public String id;
     /**
@@ -226,46 +228,89 @@ public class Selector extends BaseMarker {
     }
 
     public void inPlaceFilter(Player p, List<Entity> entities) {
-        Location ref = reference(p);
-        List<Entity> ents = entities.stream().filter(entity -> !Utils.isUtilArmorStand(entity) && inRadius(entity, ref, r, rm)).collect(Collectors.toList());
-        if (Stream.of(dx, dy, dz).anyMatch(Objects::nonNull))
-            ents = ents.stream().filter(entity -> inVolume(entity, ref, dx, dy, dz)).collect(Collectors.toList());
-        if (type != null) {
-            Set<EntityType> allowType = typeCache.getUnchecked(type);
-            ents = ents.stream().filter(entity -> allowType.contains(entity.getType())).collect(Collectors.toList());
-        }
-        if (tag != null) {
-            Pair<Set<String>, Set<String>> t = tagCache.getUnchecked(tag);
-            Set<String> mustHave = t.getKey();
-            Set<String> mustNotHave = t.getValue();
-            Pair<Set<String>, Set<String>> tag = Pair.of(
-                    mustHave.stream().map(s -> s.replaceAll("\\{player}", p.getName())).collect(Collectors.toSet()),
-                    mustNotHave.stream().map(s -> s.replaceAll("\\{player}", p.getName())).collect(Collectors.toSet())
-                    );
-            ents = ents.stream().filter(entity -> matchTag(entity, tag)).collect(Collectors.toList());
-        }
-        if (team != null) {
-            Pair<Set<String>, Set<String>> t = teamCache.getUnchecked(team);
-            ents = ents.stream().filter(entity -> matchTeam(entity, p.getScoreboard(), t)).collect(Collectors.toList());
+        entities.removeIf(predicate(p).negate());
+    }
+
+    /**
+     * Fuses every criterion of this selector into one predicate, resolved against the player once.
+     * Criteria are parsed once per selector and parsed again only when a property changes.
+     */
+    public Predicate<Entity> predicate(Player p) {
+        Compiled c = compiled;
+        if (c == null || !c.isFor(this)) {
+            compiled = c = new Compiled(this);
         }
-        if (score != null) {
-            Map<String, Pair<Integer, Integer>> t = scoreCache.getUnchecked(score);
-            ents = ents.stream().filter(entity -> matchScore(entity, p.getScoreboard(), t)).collect(Collectors.toList());
+        Location ref = reference(p);
+        double refX = ref.getX(), refY = ref.getY(), refZ = ref.getZ();
+        double maxSquared = r != null && r > 0 ? (double) r * r : Double.POSITIVE_INFINITY;
+        double minSquared = rm != null && rm > 0 ? (double) rm * rm : 0;
+        double maxX = dx != null && dx > 0 ? dx : Double.POSITIVE_INFINITY;
+        double maxY = dy != null && dy > 0 ? dy : Double.POSITIVE_INFINITY;
+        double maxZ = dz != null && dz > 0 ? dz : Double.POSITIVE_INFINITY;
+        Set<EntityType> types = c.types;
+        Pair<Set<String>, Set<String>> tags = c.tags == null || !c.tagsHavePlayer ? c.tags : Pair.of(
+                c.tags.getKey() == null ? null : c.tags.getKey().stream().map(s -> s.replace("{player}", p.getName())).collect(Collectors.toSet()),
+                c.tags.getValue() == null ? null : c.tags.getValue().stream().map(s -> s.replace("{player}", p.getName())).collect(Collectors.toSet())
+        );
+        Pair<Set<String>, Set<String>> teams = c.teams;
+        Scoreboard scoreboard = teams != null || c.scores != null ? p.getScoreboard() : null;
+        List<Objective> objectives = null;
+        List<Pair<Integer, Integer>> limits = null;
+        if (c.scores != null) {
+            objectives = new ArrayList<>(c.scores.size());
+            limits = new ArrayList<>(c.scores.size());
+            for (Map.Entry<String, Pair<Integer, Integer>> limit : c.scores.entrySet()) {
+                Objective objective = scoreboard.getObjective(limit.getKey());
+                // a missing objective matches nothing
+                if (objective == null) return entity -> false;
+                objectives.add(objective);
+                limits.add(limit.getValue());
+            }
         }
-        if (gameMode != null) {
-            Pair<Set<GameMode>, Set<GameMode>> t = gameModeCache.getUnchecked(gameMode);
-            final Set<GameMode> mayOn = t.getKey();
-            final Set<GameMode> mustNotOn = t.getValue();
-            ents = ents.stream().filter(entity -> entity instanceof Player)
-                    .map(entity -> ((Player) entity))
-                    .filter(player -> {
-                        final GameMode gameMode = player.getGameMode();
-                        return mayOn.contains(gameMode) && !mustNotOn.contains(gameMode);
-                    })
-                    .collect(Collectors.toList());
+        List<Objective> finalObjectives = objectives;
+        List<Pair<Integer, Integer>> finalLimits = limits;
+        Pair<Set<GameMode>, Set<GameMode>> gameModes = c.gameModes;
+        Location location = new Location(null, 0, 0, 0);
+        return entity -> {
+            if (Utils.isUtilArmorStand(entity)) return false;
+            if (gameModes != null && !(entity instanceof Player player && gameModes.getKey().contains(player.getGameMode()) && !gameModes.getValue().contains(player.getGameMode()))) return false;
+            if (types != null && !types.contains(entity.getType())) return false;
+            entity.getLocation(location);
+            double x = location.getX() - refX, y = location.getY() - refY, z = location.getZ() - refZ;
+            double distanceSquared = x * x + y * y + z * z;
+            if (distanceSquared >= maxSquared || distanceSquared < minSquared) return false;
+            if (x >= maxX || y >= maxY || z >= maxZ) return false;
+            if (tags != null && !matchTags(entity.getScoreboardTags(), tags)) return false;
+            if (scoreboard == null) return true;
+            String name = entity instanceof OfflinePlayer ? ((OfflinePlayer) entity).getName() : entity.getUniqueId().toString();
+            if (teams != null && !matchTeam(scoreboard.getEntryTeam(name), teams)) return false;
+            if (finalObjectives != null) {
+                for (int i = 0; i < finalObjectives.size(); i++) {
+                    int score = finalObjectives.get(i).getScore(name).getScore();
+                    Pair<Integer, Integer> limit = finalLimits.get(i);
+                    if (limit.getValue() != null && score >= limit.getValue()) return false;
+                    if (limit.getKey() != null && score < limit.getKey()) return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static boolean matchTags(Set<String> tags, Pair<Set<String>, Set<String>> tagLimit) {
+        if (tagLimit.getValue() == null) return tags.isEmpty();
+        if (tagLimit.getKey() == null) return !tags.isEmpty();
+        if (!tags.containsAll(tagLimit.getKey())) return false;
+        for (String tag : tags) {
+            if (tagLimit.getValue().contains(tag)) return false;
         }
-        entities.clear();
-        entities.addAll(ents);
+        return true;
+    }
+
+    private static boolean matchTeam(Team t, Pair<Set<String>, Set<String>> teamLimit) {
+        if (teamLimit.getValue() == null) return t == null;
+        if (teamLimit.getKey() == null) return t != null;
+        return teamLimit.getKey().stream().findFirst().map(l -> t != null && l.equals(t.getName())).orElse(true)
+                       && (t == null || !teamLimit.getValue().contains(t.getName()));
     }
 
     private Location reference(Player p) {
@@ -277,23 +322,6 @@ public class Selector extends BaseMarker {
                 getCoordinate(z, base.getZ()));
     }
 
-    private boolean inRadius(Entity e, Location l, Integer r, Integer rm) {
-        boolean result = true;
-        double dis = e.getLocation().distance(l);
-        if (r != null && r > 0) result = dis < r;
-        if (rm != null && rm > 0) result &= dis >= rm;
-        return result;
-    }
-
-    private boolean inVolume(Entity e, Location l, Integer dx, Integer dy, Integer dz) {
-        boolean result = true;
-        Location loc = e.getLocation();
-        if (dx != null && dx > 0) result = loc.getX() - l.getX() < dx;
-        if (dy != null && dy > 0) result &= loc.getY() - l.getY() < dy;
-        if (dz != null && dz > 0) result &= loc.getZ() - l.getZ() < dz;
-        return result;
-    }
-
     public static boolean matchTag(Entity e, Pair<Set<String>, Set<String>> tagLimit) {
         Set<String> tags = e.getScoreboardTags();
         if (tagLimit.getValue() == null) return tags.isEmpty();
@@ -321,11 +349,7 @@ public class Selector extends BaseMarker {
         if (e instanceof OfflinePlayer) {
             name = ((OfflinePlayer) e).getName();
         }
-        Team t = s.getEntryTeam(name);
-        if (teamLimit.getValue() == null) return t == null;
-        if (teamLimit.getKey() == null) return t != null;
-        return teamLimit.getKey().stream().findFirst().map(l -> t != null && l.equals(t.getName())).orElse(true)
-                       && (t == null || !teamLimit.getValue().contains(t.getName()));
+        return matchTeam(s.getEntryTeam(name), teamLimit);
     }
 
     public static boolean matchScore(Entity e, Scoreboard s, Map<String, Pair<Integer, Integer>> scoreLimit) {
@@ -362,6 +386,37 @@ public class Selector extends BaseMarker {
         return id;
     }
 
+    /**
+     * Parsed criteria of a selector, along with the property values they were parsed from
+     */
+    private static final class Compiled {
+        final String type, tag, team, score, gameMode;
+        final Set<EntityType> types;
+        final Pair<Set<String>, Set<String>> tags;
+        final boolean tagsHavePlayer;
+        final Pair<Set<String>, Set<String>> teams;
+        final Map<String, Pair<Integer, Integer>> scores;
+        final Pair<Set<GameMode>, Set<GameMode>> gameModes;
+
+        Compiled(Selector selector) {
+            type = selector.type;
+            tag = selector.tag;
+            team = selector.team;
+            score = selector.score;
+            gameMode = selector.gameMode;
+            types = type == null ? null : typeCache.getUnchecked(type);
+            tags = tag == null ? null : tagCache.getUnchecked(tag);
+            tagsHavePlayer = tag != null && tag.contains("{player}");
+            teams = team == null ? null : teamCache.getUnchecked(team);
+            scores = score == null ? null : scoreCache.getUnchecked(score);
+            gameModes = gameMode == null ? null : gameModeCache.getUnchecked(gameMode);
+        }
+
+        boolean isFor(Selector selector) {
+            return type == selector.type && tag == selector.tag && team == selector.team && score == selector.score && gameMode == selector.gameMode;
+        }
+    }
+
     @Override
     public String getName() {
         return "selector";
@@ -1,15 +1,15 @@
 package think.rpgitems.power.propertymodifier;
 
-import com.udojava.evalex.Expression;
 import think.rpgitems.power.Meta;
 import think.rpgitems.power.Property;
-import think.rpgitems.power.Utils;
+import think.rpgitems.utils.CompiledExpression;
 
-import java.math.BigDecimal;
 import java.util.concurrent.ThreadLocalRandom;
 
 @Meta(marker = true)
 public class EvalModifier extends BaseModifier<Double> implements DoubleModifier {
+    private static final String[] VARIABLES = {"durability", "random", "time", "value"};
+
     @Property
     public String expression;
 
@@ -20,10 +20,10 @@ public class EvalModifier extends BaseModifier<Double> implements DoubleModifier
 
     @Override
     public Double apply(RgiParameter<Double> t) {
-        Expression expression = new Expression(this.expression);
-        expression.and("durability", Utils.lazyNumber(() -> Double.valueOf(t.getItem().getItemStackDurability(t.getItemStack()).orElse(0))));
-        expression.and("random", Utils.lazyNumber(() -> ThreadLocalRandom.current().nextDouble()));
-        expression.and("time", Utils.lazyNumber(() -> (double) (System.currentTimeMillis() / 50)));
-        return expression.and("value", BigDecimal.valueOf(t.getValue())).eval().doubleValue();
+        CompiledExpression expression = CompiledExpression.compile(this.expression, VARIABLES);
+        double durability = expression.uses("durability") ? t.getItem().getItemStackDurability(t.getItemStack()).orElse(0) : 0;
+        double random = expression.uses("random") ? ThreadLocalRandom.current().nextDouble() : 0;
+        double time = expression.uses("time") ? (double) (System.currentTimeMillis() / 50) : 0;
+        return expression.eval(durability, random, time, t.getValue());
     }
 }
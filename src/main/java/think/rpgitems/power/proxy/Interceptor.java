@@ -1,13 +1,15 @@
 package think.rpgitems.power.proxy;
 
-import think.rpgitems.utils.nyaacore.Pair;
 import think.rpgitems.utils.nyaacore.utils.ItemTagUtils;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
 import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
 import net.bytebuddy.implementation.MethodDelegation;
 import net.bytebuddy.implementation.bind.annotation.AllArguments;
+import net.bytebuddy.implementation.bind.annotation.FieldValue;
 import net.bytebuddy.implementation.bind.annotation.Origin;
 import net.bytebuddy.implementation.bind.annotation.RuntimeType;
 import net.bytebuddy.matcher.ElementMatchers;
@@ -15,6 +17,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import think.rpgitems.RPGItems;
 import think.rpgitems.item.RPGItem;
+import think.rpgitems.power.Pimpl;
 import think.rpgitems.power.Power;
 import think.rpgitems.power.PowerManager;
 import think.rpgitems.power.PropertyInstance;
@@ -26,45 +29,114 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+/**
+ * Property modifier aware proxy of powers.
+ * <p>
+ * One proxy class is generated per (power class, trigger interface) and shared by every player and stack.
+ * The (player, stack) context lives in the {@link Interceptor} instance stored in each proxy object.
+ */
 public class Interceptor {
-    private static final Cache<String, Pair<origPowerHolder, Power>> POWER_CACHE = CacheBuilder.newBuilder().weakValues().build();
+    static final String FIELD_NAME = "rgi$interceptor";
+    private static final Map<ProxyTypeKey, ProxyType> PROXY_TYPES = new ConcurrentHashMap<>();
+    private static final Cache<ProxyKey, Power> POWER_CACHE = CacheBuilder.newBuilder().weakValues().build();
+    private static final ThreadLocal<Interceptor> CONSTRUCTING = new ThreadLocal<>();
+    @SuppressWarnings("unchecked")
+    private static final Modifier<Double>[] NO_MODIFIERS = new Modifier[0];
     private final Power orig;
     private final Player player;
     private final Map<Method, PropertyInstance> getters;
     private final ItemStack stack;
     private final MethodHandles.Lookup lookup;
+    private final Map<Method, MethodHandle> handles;
+    private List<Modifier> modifiers;
+    private int modifierRevision;
+    private Map<Method, Modifier<Double>[]> matched;
 
-    protected Interceptor(Power orig, Player player, ItemStack stack, MethodHandles.Lookup lookup) {
-        this.lookup = lookup;
+    protected Interceptor(Power orig, Player player, ItemStack stack, ProxyType type) {
+        this.lookup = type.lookup();
         this.orig = orig;
         this.player = player;
-        this.getters = PowerManager.getProperties(orig.getClass())
-                .entrySet()
-                .stream()
-                .collect(Collectors.toMap(e -> e.getValue().getKey(), e -> e.getValue().getValue()));
+        this.getters = type.getters();
+        this.handles = type.handles();
         this.stack = stack;
     }
 
     public static Power create(Power orig, Player player, ItemStack stack, Trigger trigger) {
-        Pair<origPowerHolder, Power> result = POWER_CACHE.getIfPresent(getCacheKey(player, stack, orig));
+        ProxyKey key = new ProxyKey(player.getUniqueId(), getItemKey(stack), orig);
+        Power result = POWER_CACHE.getIfPresent(key);
         if (result != null) {
-            if (result.getKey().itemStack().equals(stack) && result.getKey().playerId().equals(player.getUniqueId()) && result.getKey().orig().equals(orig))
-                return result.getValue();
+            Interceptor interceptor = ((Proxy) result).getInterceptor();
+            if (interceptor.stack.equals(stack))
+                return result;
         }
         Power proxyPower = makeProxy(orig, player, stack, trigger);
-        POWER_CACHE.put(getCacheKey(player, stack, orig), Pair.of(new origPowerHolder(player.getUniqueId(), stack, orig), proxyPower));
+        if (proxyPower != orig) {
+            POWER_CACHE.put(key, proxyPower);
+        }
         return proxyPower;
+    }
+
+    /**
+     * @return Count of proxy classes generated so far
+     */
+    public static int getProxyClassCount() {
+        return PROXY_TYPES.size();
+    }
 
+    /**
+     * @return Approximate count of proxy instances currently cached
+     */
+    public static long getProxyInstanceCount() {
+        return POWER_CACHE.size();
+    }
+
+    /**
+     * Drop all generated proxy types, since the power classes they extend may be unloaded
+     */
+    public static void clear() {
+        POWER_CACHE.invalidateAll();
+        PROXY_TYPES.clear();
     }
 
     private static Power makeProxy(Power orig, Player player, ItemStack stack, Trigger trigger) {
+        ProxyType type = getProxyType(orig, trigger);
+        if (type == null) return orig;
+        Interceptor interceptor = new Interceptor(orig, player, stack, type);
+        CONSTRUCTING.set(interceptor);
+        try {
+            Power proxy = (Power) type.constructor().invoke();
+            type.setter().invoke(proxy, interceptor);
+            return proxy;
+        } catch (Throwable e) {
+            RPGItems.logger.severe("make proxy error: not instantiatable (invoke error): " + orig.getClass());
+            e.printStackTrace();
+            return orig;
+        } finally {
+            CONSTRUCTING.remove();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ProxyType getProxyType(Power orig, Trigger trigger) {
+        ProxyTypeKey key = new ProxyTypeKey(orig.getClass(), trigger.getPowerClass());
+        ProxyType type = PROXY_TYPES.get(key);
+        if (type != null) return type;
+        type = makeProxyType(orig, key.powerInterface());
+        if (type != null) {
+            ProxyType existing = PROXY_TYPES.putIfAbsent(key, type);
+            if (existing != null) return existing;
+        }
+        return type;
+    }
+
+    private static ProxyType makeProxyType(Power orig, Class<? extends Pimpl> powerInterface) {
         MethodHandles.Lookup lookup = orig.getLookup();
         if (lookup == null) lookup = MethodHandles.lookup();
         if (lookup.lookupClass() != orig.getClass()) {
@@ -73,68 +145,58 @@ public class Interceptor {
             } catch (IllegalAccessException e) {
                 RPGItems.logger.severe("make proxy error: can not get lookup (is it outdated?): " + orig.getClass());
                 e.printStackTrace();
-                return orig;
+                return null;
             }
         }
 
-        MethodHandle constructorMH;
-
         try {
-            Class<? extends Power> proxyClass = makeProxyClass(orig, player, stack, trigger, lookup);
-            constructorMH = lookup.findConstructor(proxyClass, MethodType.methodType(void.class));
-        } catch (NoSuchMethodException | IllegalAccessException e) {
+            Class<? extends Power> proxyClass = makeProxyClass(orig.getClass(), powerInterface, lookup);
+            MethodHandle constructor = lookup.findConstructor(proxyClass, MethodType.methodType(void.class));
+            MethodHandle setter = lookup.findSetter(proxyClass, FIELD_NAME, Interceptor.class);
+            Map<Method, PropertyInstance> getters = PowerManager.getProperties(orig.getClass())
+                    .values()
+                    .stream()
+                    .collect(Collectors.toMap(p -> p.getKey(), p -> p.getValue()));
+            return new ProxyType(lookup, constructor, setter, getters, new ConcurrentHashMap<>());
+        } catch (NoSuchMethodException | NoSuchFieldException | IllegalAccessException e) {
             RPGItems.logger.severe("make proxy error: not instantiatable: " + orig.getClass());
             e.printStackTrace();
-            return orig;
-        }
-
-        try {
-            return (Power) constructorMH.invoke();
-        } catch (Throwable e) {
-            RPGItems.logger.severe("make proxy error: not instantiatable (invoke error): " + orig.getClass());
-            e.printStackTrace();
-            return orig;
+            return null;
         }
     }
 
-    private static String getCacheKey(Player player, ItemStack itemStack, Power orig) {
-        String playerHash = player.getUniqueId().toString();
-        String itemHash = ItemTagUtils.getString(itemStack, RPGItem.NBT_ITEM_UUID).orElseGet(() -> String.valueOf(itemStack.hashCode()));
-        String origHash = orig.getName() + ":" + orig.getPlaceholderId() + ":" + orig.getClass().getName();
-        return playerHash + "-#-" + itemHash + "-#-" + origHash;
-
+    private static Object getItemKey(ItemStack itemStack) {
+        return ItemTagUtils.getString(itemStack, RPGItem.NBT_ITEM_UUID).<Object>map(s -> s).orElseGet(itemStack::hashCode);
     }
 
-    private static Class<? extends Power> makeProxyClass(Power orig, Player player, ItemStack stack, Trigger trigger, MethodHandles.Lookup lookup) throws NoSuchMethodException {
-        Class<? extends Power> origClass = orig.getClass();
-
-
+    private static Class<? extends Power> makeProxyClass(Class<? extends Power> origClass, Class<? extends Pimpl> powerInterface, MethodHandles.Lookup lookup) {
         return new ByteBuddy()
                 .subclass(origClass)
-                .implement(new Class[]{trigger.getPowerClass()})
+                .implement(new Class[]{powerInterface})
                 .implement(NotUser.class)
+                .defineField(FIELD_NAME, Interceptor.class, Visibility.PUBLIC)
                 .method(ElementMatchers.any())
-                .intercept(MethodDelegation.to(new Interceptor(orig, player, stack, lookup)))
+                .intercept(MethodDelegation.to(Dispatcher.class))
+                .implement(Proxy.class)
+                .intercept(FieldAccessor.ofField(FIELD_NAME))
                 .make()
                 .load(origClass.getClassLoader(), ClassLoadingStrategy.UsingLookup.of(lookup))
                 .getLoaded();
     }
 
-    @RuntimeType
     @SuppressWarnings({"rawtypes", "unchecked"})
-    public Object intercept(@AllArguments Object[] args, @Origin Method method) {
+    public Object intercept(Object[] args, Method method) {
         try {
-            if (getters.containsKey(method)) {
-                PropertyInstance propertyInstance = getters.get(method);
+            PropertyInstance propertyInstance = getters.get(method);
+            if (propertyInstance != null) {
                 Class<?> type = propertyInstance.field().getType();
-                List<Modifier> playerModifiers = RPGItem.getModifiers(player);
-                List<Modifier> stackModifiers = RPGItem.getModifiers(player, stack);
-                List<Modifier> modifiers = Stream.concat(playerModifiers.stream(), stackModifiers.stream()).sorted(Comparator.comparing(Modifier::priority)).toList();
                 // Numeric modifiers
                 if (type == int.class || type == Integer.class || type == float.class || type == Float.class || type == double.class || type == Double.class) {
-
-                    List<Modifier<Double>> numberModifiers = modifiers.stream().filter(m -> (m.getModifierTargetType() == Double.class) && m.match(orig, propertyInstance)).map(m -> (Modifier<Double>) m).toList();
-                    Number value = (Number) invokeMethod(method, orig, args);
+                    Modifier<Double>[] numberModifiers = getNumberModifiers(method, propertyInstance);
+                    if (numberModifiers.length == 0) {
+                        return invokeMethod(method, args);
+                    }
+                    Number value = (Number) invokeMethod(method, args);
                     double origValue = value.doubleValue();
                     for (Modifier<Double> numberModifier : numberModifiers) {
                         RgiParameter param = new RgiParameter<>(orig.getItem(), orig, stack, origValue);
@@ -151,7 +213,7 @@ public class Interceptor {
                 }
             }
 
-            return invokeMethod(method, orig, args);
+            return invokeMethod(method, args);
         } catch (Throwable e) {
             RPGItems.logger.severe("invoke method error:" + method);
             e.printStackTrace();
@@ -159,14 +221,79 @@ public class Interceptor {
         return null;
     }
 
-    private Object invokeMethod(Method method, Object obj, Object... args) throws Throwable {
-        //method.trySetAccessible();
-        MethodHandle MH;
-        MH = lookup.unreflect(method);
-        MH = MH.bindTo(obj);
-        return MH.invokeWithArguments(args);
+    /**
+     * @return Numeric modifiers applying to the property, sorted by priority. Cached until modifiers change.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Modifier<Double>[] getNumberModifiers(Method method, PropertyInstance propertyInstance) {
+        int revision = RPGItem.getModifierRevision();
+        if (modifiers == null || revision != modifierRevision) {
+            modifiers = RPGItem.getMergedModifiers(player, stack);
+            modifierRevision = revision;
+            matched = null;
+        }
+        if (modifiers.isEmpty()) {
+            return NO_MODIFIERS;
+        }
+        if (matched == null) {
+            matched = new HashMap<>();
+        }
+        Modifier<Double>[] result = matched.get(method);
+        if (result == null) {
+            result = modifiers.stream()
+                    .filter(m -> (m.getModifierTargetType() == Double.class) && m.match(orig, propertyInstance))
+                    .toArray(Modifier[]::new);
+            matched.put(method, result);
+        }
+        return result;
+    }
+
+    private Object invokeMethod(Method method, Object[] args) throws Throwable {
+        MethodHandle handle = handles.get(method);
+        if (handle == null) {
+            handle = handles.computeIfAbsent(method, this::unreflect);
+        }
+        return handle.invokeExact((Object) orig, args);
+    }
+
+    private MethodHandle unreflect(Method method) {
+        try {
+            int count = method.getParameterCount();
+            return lookup.unreflect(method)
+                    .asType(MethodType.genericMethodType(count + 1))
+                    .asSpreader(Object[].class, count);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Implemented by every generated proxy, exposing the context it was created with
+     */
+    public interface Proxy {
+        Interceptor getInterceptor();
+    }
+
+    /**
+     * Shared entry point of all generated proxy classes
+     */
+    public static class Dispatcher {
+        @RuntimeType
+        public static Object dispatch(@FieldValue(FIELD_NAME) Interceptor interceptor, @AllArguments Object[] args, @Origin Method method) {
+            if (interceptor == null) {
+                // called from the super constructor, before the field is set
+                interceptor = CONSTRUCTING.get();
+            }
+            return interceptor.intercept(args, method);
+        }
+    }
+
+    record ProxyTypeKey(Class<? extends Power> powerClass, Class<? extends Pimpl> powerInterface) {
     }
-}
 
-record origPowerHolder(UUID playerId, ItemStack itemStack, Power orig) {
-}
\ No newline at end of file
+    record ProxyType(MethodHandles.Lookup lookup, MethodHandle constructor, MethodHandle setter, Map<Method, PropertyInstance> getters, Map<Method, MethodHandle> handles) {
+    }
+
+    record ProxyKey(UUID playerId, Object itemKey, Power orig) {
+    }
+}
@@ -15,12 +15,14 @@ import java.util.*;
 public abstract class Trigger<TEvent extends Event, TPower extends Pimpl, TResult, TReturn> extends BasePropertyHolder {
 
     private static final Map<String, Trigger> registry = new HashMap<>();
+    private static int nextIndex = 0;
     private final Class<TEvent> eventClass;
     private final Class<TResult> resultClass;
     private final Class<TPower> powerClass;
     private final Class<TReturn> returnClass;
     private final String name;
     private final String base;
+    private int index = -1;
     @Property
     public int priority;
 
@@ -122,9 +124,19 @@ public abstract class Trigger<TEvent extends Event, TPower extends Pimpl, TResul
             throw new IllegalArgumentException("Cannot set already-set trigger: " + trigger.name);
         }
         registry.put(name, trigger);
+        if (trigger.index < 0) {
+            trigger.index = nextIndex++;
+        }
         PowerManager.registerMetas(trigger.getClass());
     }
 
+    /**
+     * @return Number of indexes handed out to registered triggers so far
+     */
+    public static int indexCount() {
+        return nextIndex;
+    }
+
     public static Set<String> keySet() {
         return registry.keySet();
     }
@@ -147,6 +159,13 @@ public abstract class Trigger<TEvent extends Event, TPower extends Pimpl, TResul
         return priority;
     }
 
+    /**
+     * @return Dense index of this trigger in the registry, or -1 for unregistered (custom) triggers
+     */
+    public int getIndex() {
+        return index;
+    }
+
     public TReturn def(Player player, ItemStack i, TEvent event) {
         return null;
     }
@@ -122,10 +122,11 @@ public class WGHandler extends Handler {
         Collection<String> du = set.queryValue(localPlayer, disabledPlayer);
         Collection<String> eu = set.queryValue(localPlayer, enabledPlayer);
         WGSupport.warningMessageByPlayer.put(uuid, wm);
-        WGSupport.disabledPowerByPlayer.put(uuid, dp);
-        WGSupport.enabledPowerByPlayer.put(uuid, ep);
-        WGSupport.disabledItemByPlayer.put(uuid, di);
-        WGSupport.enabledItemByPlayer.put(uuid, ei);
+        WGSupport.disabledPowerByPlayer.put(uuid, toSet(dp));
+        WGSupport.enabledPowerByPlayer.put(uuid, toSet(ep));
+        WGSupport.disabledItemByPlayer.put(uuid, toSet(di));
+        WGSupport.enabledItemByPlayer.put(uuid, toSet(ei));
+        WGSupport.invalidate(uuid);
         if (eu == null || eu.isEmpty()) {
             WGSupport.disabledByPlayer.put(uuid, du != null && du.contains(uuid.toString()));
         } else {
@@ -133,6 +134,10 @@ public class WGHandler extends Handler {
         }
     }
 
+    private static Set<String> toSet(Collection<String> values) {
+        return values == null ? null : new HashSet<>(values);
+    }
+
     static void registerHandler() {
         SessionManager sessionManager = worldGuardInstance.getPlatform().getSessionManager();
         sessionManager.registerHandler(FACTORY, null);
@@ -145,7 +150,13 @@ public class WGHandler extends Handler {
 
     @Override
     public boolean onCrossBoundary(LocalPlayer player, Location from, Location to, ApplicableRegionSet toSet, Set<ProtectedRegion> entered, Set<ProtectedRegion> exited, MoveType moveType) {
-        if (entered.isEmpty() && exited.isEmpty()) return true;
+        if (entered.isEmpty() && exited.isEmpty()) {
+            // called on every block moved, only a world change or teleport may change the global region
+            if (!from.getExtent().equals(to.getExtent()) || moveType.isTeleport()) {
+                WGSupport.invalidate(player.getUniqueId());
+            }
+            return true;
+        }
         refresh(toSet, player);
         return true;
     }
@@ -24,6 +24,8 @@ import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class WGSupport {
+    // WorldGuard has no event for region changes, so the PvP state is queried again after this many ticks
+    private static final int PVP_TTL = 20;
 
     public static boolean useWorldGuard = true;
     public static boolean forceRefresh = false;
@@ -33,6 +35,9 @@ public class WGSupport {
     static Map<UUID, Collection<String>> disabledItemByPlayer;
     static Map<UUID, Collection<String>> enabledItemByPlayer;
     static Map<UUID, Boolean> disabledByPlayer;
+    private static Map<UUID, CachedPvP> pvpByPlayer;
+    private static Map<UUID, Set<String>> resolvedDisabledItemByPlayer;
+    private static Map<UUID, Set<String>> resolvedEnabledItemByPlayer;
     static WorldGuardPlugin wgPlugin;
     private static RPGItems plugin;
     private static boolean hasSupport = false;
@@ -74,6 +79,9 @@ public class WGSupport {
             disabledItemByPlayer = new HashMap<>();
             enabledItemByPlayer = new HashMap<>();
             disabledByPlayer = new HashMap<>();
+            pvpByPlayer = new HashMap<>();
+            resolvedDisabledItemByPlayer = new HashMap<>();
+            resolvedEnabledItemByPlayer = new HashMap<>();
             Bukkit.getPluginManager().registerEvents(new EventListener(), plugin);
             for (Player p : plugin.getServer().getOnlinePlayers()) {
                 WGHandler.refreshPlayerWG(p);
@@ -105,9 +113,46 @@ public class WGSupport {
         if (!hasSupport || !useWorldGuard)
             return Event.Result.ALLOW;
 
+        int now = Bukkit.getCurrentTick();
+        CachedPvP cached = pvpByPlayer.get(player.getUniqueId());
+        if (cached != null && !forceRefresh && now < cached.expires()) return cached.result();
         LocalPlayer localPlayer = wgPlugin.wrapPlayer(player);
         State stat = WorldGuard.getInstance().getPlatform().getRegionContainer().createQuery().queryState(localPlayer.getLocation(), localPlayer, Flags.PVP);
-        return (stat == null || stat.equals(State.ALLOW)) ? Event.Result.ALLOW : Event.Result.DENY;
+        Event.Result result = (stat == null || stat.equals(State.ALLOW)) ? Event.Result.ALLOW : Event.Result.DENY;
+        pvpByPlayer.put(player.getUniqueId(), new CachedPvP(result, now + PVP_TTL));
+        return result;
+    }
+
+    private record CachedPvP(Event.Result result, int expires) {
+    }
+
+    /**
+     * Drop the cached region state of the player, called when the player crosses a region boundary or quits
+     */
+    public static void invalidate(UUID uuid) {
+        if (pvpByPlayer == null) return;
+        pvpByPlayer.remove(uuid);
+        resolvedDisabledItemByPlayer.remove(uuid);
+        resolvedEnabledItemByPlayer.remove(uuid);
+    }
+
+    /**
+     * Drop the item names resolved from the region flags, called when items or item groups change
+     */
+    public static void invalidateItems() {
+        if (resolvedDisabledItemByPlayer == null) return;
+        resolvedDisabledItemByPlayer.clear();
+        resolvedEnabledItemByPlayer.clear();
+    }
+
+    private static Set<String> resolveItems(Map<UUID, Set<String>> resolvedByPlayer, UUID uuid, Collection<String> names) {
+        if (names == null) return null;
+        Set<String> resolved = resolvedByPlayer.get(uuid);
+        if (resolved == null) {
+            resolved = names.stream().map(ItemManager::getItems).flatMap(Set::stream).map(RPGItem::getName).collect(Collectors.toCollection(HashSet::new));
+            resolvedByPlayer.put(uuid, resolved);
+        }
+        return resolved;
     }
 
     private static Event.Result canUse(Player player, RPGItem item, Collection<? extends Pimpl> powers) {
@@ -129,8 +174,8 @@ public class WGSupport {
         if (item == null || item.isIgnoreWorldGuard()) {
             return Event.Result.ALLOW;
         }
-        List<String> disabledItems = disableds == null ? null : disableds.stream().map(ItemManager::getItems).flatMap(Set::stream).map(RPGItem::getName).collect(Collectors.toList());
-        List<String> enabledItems = enableds == null ? null : enableds.stream().map(ItemManager::getItems).flatMap(Set::stream).map(RPGItem::getName).collect(Collectors.toList());
+        Set<String> disabledItems = resolveItems(resolvedDisabledItemByPlayer, player.getUniqueId(), disableds);
+        Set<String> enabledItems = resolveItems(resolvedEnabledItemByPlayer, player.getUniqueId(), enableds);
         String itemName = item.getName();
         if (notEnabled(disabledItems, enabledItems, itemName)) return Event.Result.DENY;
 
@@ -164,6 +209,10 @@ public class WGSupport {
     }
 
     public static void unload() {
+        if (pvpByPlayer != null) {
+            pvpByPlayer.clear();
+            invalidateItems();
+        }
         if (!hasSupport) {
             return;
         }
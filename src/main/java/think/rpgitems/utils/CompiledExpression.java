@@ -0,0 +1,386 @@
+package think.rpgitems.utils;
+
+import com.udojava.evalex.Expression;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+import think.rpgitems.power.Utils;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An expression parsed once and evaluated many times with different variable values.
+ * <p>
+ * Plain arithmetic over the declared numeric variables ({@code + - * / %}, parentheses and a few math functions)
+ * is compiled to a tree evaluated in {@code double}. Anything else, including any use of a string variable,
+ * falls back to a single EvalEx {@link Expression} whose variables read the values passed to {@link #eval}.
+ * <p>
+ * Compiled expressions are cached by source and variable names until {@link #clear()}.
+ */
+public final class CompiledExpression {
+    private static final Map<Key, CompiledExpression> cache = new ConcurrentHashMap<>();
+    private static final double[] NO_VALUES = new double[0];
+
+    private final String source;
+    private final String[] variables;
+    private final Set<String> strings;
+    private final Set<String> referenced;
+    private final Node compiled;
+    private Expression expression;
+    private double[] currentValues = NO_VALUES;
+    private String[] currentStrings;
+    private Player currentPlayer;
+
+    private CompiledExpression(String source, String[] variables, Set<String> strings) {
+        this.source = source;
+        this.variables = variables;
+        this.strings = strings;
+        this.referenced = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        this.compiled = new Parser(source, variables, strings, referenced).parse();
+    }
+
+    /**
+     * @param source    Expression source
+     * @param variables Names of the numeric variables, in the order their values are passed to {@link #eval}
+     * @return The compiled expression, shared by every caller with the same source and variables
+     */
+    public static CompiledExpression compile(String source, String... variables) {
+        return compile(source, variables, Collections.emptySet());
+    }
+
+    /**
+     * @param source    Expression source
+     * @param variables Names of the variables, in the order their values are passed to {@link #eval}.
+     *                  A null name leaves the slot undefined, as if the variable was not declared.
+     * @param strings   Names of the variables whose values are passed as strings
+     * @return The compiled expression, shared by every caller with the same source and variables
+     */
+    public static CompiledExpression compile(String source, String[] variables, Set<String> strings) {
+        return cache.computeIfAbsent(new Key(source, Arrays.asList(variables), strings), k -> new CompiledExpression(source, variables, strings));
+    }
+
+    /**
+     * @return Count of compiled expressions currently cached
+     */
+    public static int getCachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Drop all cached expressions
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    /**
+     * @return Whether the expression may read the variable. Callers can skip computing values of unused variables.
+     */
+    public boolean uses(String variable) {
+        return compiled == null || referenced.contains(variable);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @param values Values of the declared variables
+     * @return Result of the expression
+     * @throws Expression.ExpressionException if the expression is invalid
+     * @throws ArithmeticException            if the result is not a finite number
+     */
+    public double eval(double... values) {
+        return eval(null, values, null);
+    }
+
+    /**
+     * @param player  Player the {@code playerScoreBoard}, {@code playerContext} functions read from
+     * @param values  Values of the declared numeric variables
+     * @param strings Values of the declared string variables, by the same index. May be null.
+     * @return Result of the expression
+     * @throws Expression.ExpressionException if the expression is invalid
+     * @throws ArithmeticException            if the result is not a finite number
+     */
+    public double eval(@Nullable Player player, double[] values, @Nullable String[] strings) {
+        if (compiled != null) {
+            double result = compiled.eval(values);
+            if (Double.isNaN(result) || Double.isInfinite(result)) {
+                throw new ArithmeticException("`" + source + "` is not a finite number");
+            }
+            return result;
+        }
+        return evalExpression(player, values, strings).doubleValue();
+    }
+
+    /**
+     * Same as {@link #eval(Player, double[], String[])}, but returns the EvalEx result unchanged when the expression
+     * falls back to it. Compiled results are returned without trailing zeros.
+     */
+    public BigDecimal evalDecimal(@Nullable Player player, double[] values, @Nullable String[] strings) {
+        if (compiled != null) {
+            return BigDecimal.valueOf(eval(player, values, strings)).stripTrailingZeros();
+        }
+        return evalExpression(player, values, strings);
+    }
+
+    private synchronized BigDecimal evalExpression(@Nullable Player player, double[] values, @Nullable String[] strings) {
+        if (expression == null) {
+            expression = createExpression();
+        }
+        currentPlayer = player;
+        currentValues = values;
+        currentStrings = strings;
+        try {
+            return expression.eval();
+        } finally {
+            currentPlayer = null;
+            currentValues = NO_VALUES;
+            currentStrings = null;
+        }
+    }
+
+    private Expression createExpression() {
+        Expression expression = new Expression(source);
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i] == null) continue;
+            int index = i;
+            expression.with(variables[i], new Expression.LazyNumber() {
+                @Override
+                public BigDecimal eval() {
+                    String string = string(index);
+                    if (string != null) {
+                        return new Expression(string).eval();
+                    }
+                    return BigDecimal.valueOf(currentValues[index]);
+                }
+
+                @Override
+                public String getString() {
+                    String string = string(index);
+                    return string != null ? string : BigDecimal.valueOf(currentValues[index]).toPlainString();
+                }
+            });
+        }
+        expression.addLazyFunction(Utils.scoreBoard(() -> currentPlayer));
+        expression.addLazyFunction(Utils.context(() -> currentPlayer));
+        expression.addLazyFunction(Utils.now());
+        return expression;
+    }
+
+    private String string(int index) {
+        return currentStrings == null || index >= currentStrings.length ? null : currentStrings[index];
+    }
+
+    private interface Node {
+        double eval(double[] values);
+    }
+
+    /**
+     * Recursive descent parser of the arithmetic subset. Returns null on anything outside of it.
+     */
+    private static final class Parser {
+        private final String source;
+        private final String[] variables;
+        private final Set<String> strings;
+        private final Set<String> referenced;
+        private int pos = 0;
+
+        Parser(String source, String[] variables, Set<String> strings, Set<String> referenced) {
+            this.source = source;
+            this.variables = variables;
+            this.strings = strings;
+            this.referenced = referenced;
+        }
+
+        Node parse() {
+            try {
+                Node node = expression();
+                skipSpaces();
+                return pos == source.length() ? node : null;
+            } catch (Unsupported e) {
+                return null;
+            }
+        }
+
+        private Node expression() {
+            Node left = term();
+            while (true) {
+                skipSpaces();
+                if (eat('+')) {
+                    Node l = left, r = term();
+                    left = v -> l.eval(v) + r.eval(v);
+                } else if (eat('-')) {
+                    Node l = left, r = term();
+                    left = v -> l.eval(v) - r.eval(v);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node term() {
+            Node left = unary();
+            while (true) {
+                skipSpaces();
+                if (eat('*')) {
+                    Node l = left, r = unary();
+                    left = v -> l.eval(v) * r.eval(v);
+                } else if (eat('/')) {
+                    Node l = left, r = unary();
+                    left = v -> l.eval(v) / r.eval(v);
+                } else if (eat('%')) {
+                    Node l = left, r = unary();
+                    left = v -> l.eval(v) % r.eval(v);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node unary() {
+            skipSpaces();
+            if (eat('-')) {
+                Node n = unary();
+                return v -> -n.eval(v);
+            }
+            if (eat('+')) {
+                return unary();
+            }
+            return primary();
+        }
+
+        private Node primary() {
+            skipSpaces();
+            if (pos >= source.length()) throw new Unsupported();
+            char c = source.charAt(pos);
+            if (eat('(')) {
+                Node n = expression();
+                skipSpaces();
+                if (!eat(')')) throw new Unsupported();
+                return n;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                return number();
+            }
+            if (Character.isLetter(c) || c == '_') {
+                String name = identifier();
+                skipSpaces();
+                if (eat('(')) {
+                    return function(name);
+                }
+                return variable(name);
+            }
+            throw new Unsupported();
+        }
+
+        private Node number() {
+            int start = pos;
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (pos < source.length() && Character.isLetter(source.charAt(pos))) throw new Unsupported();
+            try {
+                double value = Double.parseDouble(source.substring(start, pos));
+                return v -> value;
+            } catch (NumberFormatException e) {
+                throw new Unsupported();
+            }
+        }
+
+        private String identifier() {
+            int start = pos;
+            while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+            return source.substring(start, pos);
+        }
+
+        private Node variable(String name) {
+            for (int i = 0; i < variables.length; i++) {
+                if (name.equalsIgnoreCase(variables[i])) {
+                    // strings only make sense to EvalEx, e.g. in comparisons
+                    if (strings.contains(variables[i])) throw new Unsupported();
+                    int index = i;
+                    referenced.add(name);
+                    return v -> v[index];
+                }
+            }
+            // constants and unknown variables are left to EvalEx
+            throw new Unsupported();
+        }
+
+        private Node function(String name) {
+            List<Node> args = new ArrayList<>();
+            skipSpaces();
+            if (!eat(')')) {
+                do {
+                    args.add(expression());
+                    skipSpaces();
+                } while (eat(','));
+                if (!eat(')')) throw new Unsupported();
+            }
+            switch (name.toUpperCase(Locale.ROOT)) {
+                case "ABS" -> {
+                    Node a = single(args);
+                    return v -> Math.abs(a.eval(v));
+                }
+                case "SQRT" -> {
+                    Node a = single(args);
+                    return v -> Math.sqrt(a.eval(v));
+                }
+                case "FLOOR" -> {
+                    Node a = single(args);
+                    return v -> Math.floor(a.eval(v));
+                }
+                case "CEILING" -> {
+                    Node a = single(args);
+                    return v -> Math.ceil(a.eval(v));
+                }
+                case "MIN", "MAX" -> {
+                    if (args.isEmpty()) throw new Unsupported();
+                    Node[] nodes = args.toArray(new Node[0]);
+                    boolean min = name.equalsIgnoreCase("MIN");
+                    return v -> {
+                        double result = nodes[0].eval(v);
+                        for (int i = 1; i < nodes.length; i++) {
+                            double x = nodes[i].eval(v);
+                            result = min ? Math.min(result, x) : Math.max(result, x);
+                        }
+                        return result;
+                    };
+                }
+                default -> throw new Unsupported();
+            }
+        }
+
+        private static Node single(List<Node> args) {
+            if (args.size() != 1) throw new Unsupported();
+            return args.get(0);
+        }
+
+        private boolean eat(char c) {
+            if (pos < source.length() && source.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+
+    private static final class Unsupported extends RuntimeException {
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private record Key(String source, List<String> variables, Set<String> strings) {
+    }
+}
@@ -2,6 +2,7 @@ package think.rpgitems.utils.nms.legacy;
 
 import org.bukkit.inventory.ItemStack;
 import think.rpgitems.utils.nms.INBTTagTools;
+import think.rpgitems.utils.nms.ItemIdentity;
 
 import java.util.Optional;
 
@@ -120,4 +121,9 @@ public class LegacyNBTTagTools implements INBTTagTools {
     public void remove(ItemStack item, String key) throws NoSuchFieldException, IllegalAccessException {
 
     }
+
+    @Override
+    public long getIdentity(ItemStack item, String uidKey, String itemUuidKey, String modelKey) {
+        return ItemIdentity.NONE;
+    }
 }
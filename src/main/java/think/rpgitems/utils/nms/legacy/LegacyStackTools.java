@@ -46,6 +46,11 @@ public class LegacyStackTools implements IStackTools {
         return null;
     }
 
+    @Override
+    public Object getHandle(ItemStack itemStack) {
+        return null;
+    }
+
     public static String itemStackArrayToBase64(List<ItemStack> items) {
         try {
             ByteArrayOutputStream dataOut = new ByteArrayOutputStream();
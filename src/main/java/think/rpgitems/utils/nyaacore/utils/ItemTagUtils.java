@@ -1,6 +1,7 @@
 package think.rpgitems.utils.nyaacore.utils;
 
 import org.bukkit.inventory.ItemStack;
+import think.rpgitems.utils.nms.ItemIdentity;
 
 import java.lang.reflect.Field;
 import java.util.Optional;
@@ -16,7 +17,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<String> setString(ItemStack item, String key, String value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setString(item, key, value);
+        Optional<String> result = nbtTools().setString(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<Integer> getInt(ItemStack item, String key) {
@@ -24,7 +27,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<Integer> setInt(ItemStack item, String key, int value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setInt(item, key, value);
+        Optional<Integer> result = nbtTools().setInt(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<Double> getDouble(ItemStack item, String key) {
@@ -32,7 +37,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<Double> setDouble(ItemStack item, String key, double value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setDouble(item, key, value);
+        Optional<Double> result = nbtTools().setDouble(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<Short> getShort(ItemStack item, String key) {
@@ -40,7 +47,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<Short> setShort(ItemStack item, String key, short value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setShort(item, key, value);
+        Optional<Short> result = nbtTools().setShort(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<Byte> getByte(ItemStack item, String key) {
@@ -48,7 +57,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<Byte> setByte(ItemStack item, String key, byte value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setByte(item, key, value);
+        Optional<Byte> result = nbtTools().setByte(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<Long> getLong(ItemStack item, String key) {
@@ -56,7 +67,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<Long> setLong(ItemStack item, String key, long value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setLong(item, key, value);
+        Optional<Long> result = nbtTools().setLong(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<long[]> getLongArray(ItemStack item, String key) {
@@ -64,7 +77,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<long[]> setLongArray(ItemStack item, String key, long[] value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setLongArray(item, key, value);
+        Optional<long[]> result = nbtTools().setLongArray(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<int[]> getIntArray(ItemStack item, String key) {
@@ -72,7 +87,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<int[]> setIntArray(ItemStack item, String key, int[] value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setIntArray(item, key, value);
+        Optional<int[]> result = nbtTools().setIntArray(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<byte[]> getByteArray(ItemStack item, String key) {
@@ -80,7 +97,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<byte[]> setByteArray(ItemStack item, String key, byte[] value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setByteArray(item, key, value);
+        Optional<byte[]> result = nbtTools().setByteArray(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<Boolean> getBoolean(ItemStack item, String key) {
@@ -88,7 +107,9 @@ public class ItemTagUtils {
     }
 
     public static Optional<Boolean> setBoolean(ItemStack item, String key, boolean value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setBoolean(item, key, value);
+        Optional<Boolean> result = nbtTools().setBoolean(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static Optional<Float> getFloat(ItemStack item, String key) {
@@ -96,10 +117,20 @@ public class ItemTagUtils {
     }
 
     public static Optional<Float> setFloat(ItemStack item, String key, float value) throws NoSuchFieldException, IllegalAccessException {
-        return nbtTools().setFloat(item, key, value);
+        Optional<Float> result = nbtTools().setFloat(item, key, value);
+        ItemIdentity.invalidate();
+        return result;
     }
 
     public static void remove(ItemStack item, String key) throws NoSuchFieldException, IllegalAccessException {
         nbtTools().remove(item, key);
+        ItemIdentity.invalidate();
+    }
+
+    /**
+     * @return Identity tags of the item read in one pass, see {@link ItemIdentity}
+     */
+    public static long getIdentity(ItemStack item, String uidKey, String itemUuidKey, String modelKey) {
+        return nbtTools().getIdentity(item, uidKey, itemUuidKey, modelKey);
     }
 }